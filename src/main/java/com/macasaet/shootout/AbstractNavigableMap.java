@@ -0,0 +1,795 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * A skeletal {@link NavigableMap}. Subclasses provide point operations, the
+ * four directions of navigation, and a forward cursor; the range views,
+ * descending views, key sets, and iterators are derived from those. Null
+ * keys are not supported.
+ *
+ * <p>Subclasses must increment {@link #modCount} on every structural
+ * modification so that iterators can detect concurrent modification.
+ * Iterators support removal by re-positioning their cursor after the
+ * removal, so cursors need not survive structural modifications.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public abstract class AbstractNavigableMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+    /**
+     * A position in the map, in ascending key order.
+     */
+    protected interface Cursor<K, V> {
+
+        /**
+         * @return false if the cursor has moved past the last entry
+         */
+        boolean isValid();
+
+        K getKey();
+
+        V getValue();
+
+        void advance();
+
+    }
+
+    protected int modCount;
+
+    private final SubMap all = new SubMap(null, true, null, true, false);
+
+    private final Comparator<? super K> comparator;
+
+    /**
+     * @param comparator the order of the keys, or null for their natural order
+     */
+    protected AbstractNavigableMap(final Comparator<? super K> comparator) {
+        this.comparator = comparator;
+    }
+
+    public abstract V get(Object key);
+
+    public abstract boolean containsKey(Object key);
+
+    public abstract V put(K key, V value);
+
+    public abstract V remove(Object key);
+
+    public abstract int size();
+
+    public abstract void clear();
+
+    /**
+     * @return an immutable snapshot of the entry with the least key greater
+     *         than (or equal to, if <code>inclusive</code>) the given key,
+     *         or null if there is none
+     */
+    protected abstract Entry<K, V> ceiling(K key, boolean inclusive);
+
+    /**
+     * @return an immutable snapshot of the entry with the greatest key
+     *         less than (or equal to, if <code>inclusive</code>) the given
+     *         key, or null if there is none
+     */
+    protected abstract Entry<K, V> floor(K key, boolean inclusive);
+
+    /**
+     * @return an immutable snapshot of the entry with the least key, or null if empty
+     */
+    protected abstract Entry<K, V> first();
+
+    /**
+     * @return an immutable snapshot of the entry with the greatest key, or null if empty
+     */
+    protected abstract Entry<K, V> last();
+
+    /**
+     * @param from the key at which to start, or null to start at the first entry
+     * @param inclusive whether to include the entry for <code>from</code> if present
+     * @return a cursor at the least key greater than (or equal to) <code>from</code>
+     */
+    protected abstract Cursor<K, V> cursor(K from, boolean inclusive);
+
+    @SuppressWarnings("unchecked")
+    protected int compare(final Object x, final K y) {
+        return comparator == null ? ((Comparable<? super K>) x).compareTo(y) : comparator.compare((K) x, y);
+    }
+
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    public Entry<K, V> lowerEntry(final K key) {
+        return all.lowerEntry(key);
+    }
+
+    public K lowerKey(final K key) {
+        return all.lowerKey(key);
+    }
+
+    public Entry<K, V> floorEntry(final K key) {
+        return all.floorEntry(key);
+    }
+
+    public K floorKey(final K key) {
+        return all.floorKey(key);
+    }
+
+    public Entry<K, V> ceilingEntry(final K key) {
+        return all.ceilingEntry(key);
+    }
+
+    public K ceilingKey(final K key) {
+        return all.ceilingKey(key);
+    }
+
+    public Entry<K, V> higherEntry(final K key) {
+        return all.higherEntry(key);
+    }
+
+    public K higherKey(final K key) {
+        return all.higherKey(key);
+    }
+
+    public Entry<K, V> firstEntry() {
+        return first();
+    }
+
+    public Entry<K, V> lastEntry() {
+        return last();
+    }
+
+    public K firstKey() {
+        return all.firstKey();
+    }
+
+    public K lastKey() {
+        return all.lastKey();
+    }
+
+    public Entry<K, V> pollFirstEntry() {
+        return all.pollFirstEntry();
+    }
+
+    public Entry<K, V> pollLastEntry() {
+        return all.pollLastEntry();
+    }
+
+    public Set<Entry<K, V>> entrySet() {
+        return all.entrySet();
+    }
+
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    public NavigableSet<K> navigableKeySet() {
+        return all.navigableKeySet();
+    }
+
+    public NavigableSet<K> descendingKeySet() {
+        return all.descendingKeySet();
+    }
+
+    public NavigableMap<K, V> descendingMap() {
+        return all.descendingMap();
+    }
+
+    public NavigableMap<K, V> subMap(final K fromKey, final boolean fromInclusive, final K toKey,
+            final boolean toInclusive) {
+        return all.subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    public NavigableMap<K, V> headMap(final K toKey, final boolean inclusive) {
+        return all.headMap(toKey, inclusive);
+    }
+
+    public NavigableMap<K, V> tailMap(final K fromKey, final boolean inclusive) {
+        return all.tailMap(fromKey, inclusive);
+    }
+
+    public SortedMap<K, V> subMap(final K fromKey, final K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    public SortedMap<K, V> headMap(final K toKey) {
+        return headMap(toKey, false);
+    }
+
+    public SortedMap<K, V> tailMap(final K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * A view of the entries between two optional bounds, in either order.
+     * The whole map is the unbounded ascending view.
+     */
+    protected class SubMap extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+        private final K low;
+        private final boolean lowInclusive;
+        private final K high;
+        private final boolean highInclusive;
+        private final boolean descending;
+
+        private Set<Entry<K, V>> entrySet;
+
+        /**
+         * @param low the lower bound in ascending key order, or null if unbounded
+         * @param high the upper bound in ascending key order, or null if unbounded
+         * @param descending whether to present the entries in descending order
+         */
+        protected SubMap(final K low, final boolean lowInclusive, final K high, final boolean highInclusive,
+                final boolean descending) {
+            if (low != null && high != null && compare(low, high) > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.highInclusive = highInclusive;
+            this.descending = descending;
+        }
+
+        protected boolean tooLow(final Object key) {
+            if (low == null) {
+                return false;
+            }
+            final int comparison = compare(key, low);
+            return comparison < 0 || (comparison == 0 && !lowInclusive);
+        }
+
+        protected boolean tooHigh(final Object key) {
+            if (high == null) {
+                return false;
+            }
+            final int comparison = compare(key, high);
+            return comparison > 0 || (comparison == 0 && !highInclusive);
+        }
+
+        protected boolean inRange(final Object key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        /**
+         * @return whether a new bound at <code>key</code> lies within this view
+         */
+        protected boolean inRange(final K key, final boolean inclusive) {
+            if (inclusive) {
+                return inRange(key);
+            }
+            return (low == null || compare(key, low) >= 0) && (high == null || compare(key, high) <= 0);
+        }
+
+        protected boolean isUnbounded() {
+            return low == null && high == null;
+        }
+
+        public V get(final Object key) {
+            Objects.requireNonNull(key);
+            return inRange(key) ? AbstractNavigableMap.this.get(key) : null;
+        }
+
+        public boolean containsKey(final Object key) {
+            Objects.requireNonNull(key);
+            return inRange(key) && AbstractNavigableMap.this.containsKey(key);
+        }
+
+        public V put(final K key, final V value) {
+            Objects.requireNonNull(key);
+            if (!inRange(key)) {
+                throw new IllegalArgumentException("key out of range");
+            }
+            return AbstractNavigableMap.this.put(key, value);
+        }
+
+        public V remove(final Object key) {
+            Objects.requireNonNull(key);
+            return inRange(key) ? AbstractNavigableMap.this.remove(key) : null;
+        }
+
+        public int size() {
+            if (isUnbounded()) {
+                return AbstractNavigableMap.this.size();
+            }
+            int retval = 0;
+            for (final var iterator = entryIterator(); iterator.hasNext(); iterator.next()) {
+                retval++;
+            }
+            return retval;
+        }
+
+        public boolean isEmpty() {
+            return isUnbounded() ? AbstractNavigableMap.this.isEmpty() : absoluteLowest() == null;
+        }
+
+        public void clear() {
+            if (isUnbounded()) {
+                AbstractNavigableMap.this.clear();
+            } else {
+                // AbstractMap#clear() would delegate back here through the entry set
+                for (final var iterator = entryIterator(); iterator.hasNext();) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+
+        protected Entry<K, V> absoluteLowest() {
+            final var retval = low == null ? first() : ceiling(low, lowInclusive);
+            return retval == null || tooHigh(retval.getKey()) ? null : retval;
+        }
+
+        protected Entry<K, V> absoluteHighest() {
+            final var retval = high == null ? last() : floor(high, highInclusive);
+            return retval == null || tooLow(retval.getKey()) ? null : retval;
+        }
+
+        protected Entry<K, V> absoluteCeiling(final K key, final boolean inclusive) {
+            Objects.requireNonNull(key);
+            if (tooLow(key)) {
+                return absoluteLowest();
+            }
+            final var retval = ceiling(key, inclusive);
+            return retval == null || tooHigh(retval.getKey()) ? null : retval;
+        }
+
+        protected Entry<K, V> absoluteFloor(final K key, final boolean inclusive) {
+            Objects.requireNonNull(key);
+            if (tooHigh(key)) {
+                return absoluteHighest();
+            }
+            final var retval = floor(key, inclusive);
+            return retval == null || tooLow(retval.getKey()) ? null : retval;
+        }
+
+        public Entry<K, V> lowerEntry(final K key) {
+            return descending ? absoluteCeiling(key, false) : absoluteFloor(key, false);
+        }
+
+        public K lowerKey(final K key) {
+            return keyOf(lowerEntry(key));
+        }
+
+        public Entry<K, V> floorEntry(final K key) {
+            return descending ? absoluteCeiling(key, true) : absoluteFloor(key, true);
+        }
+
+        public K floorKey(final K key) {
+            return keyOf(floorEntry(key));
+        }
+
+        public Entry<K, V> ceilingEntry(final K key) {
+            return descending ? absoluteFloor(key, true) : absoluteCeiling(key, true);
+        }
+
+        public K ceilingKey(final K key) {
+            return keyOf(ceilingEntry(key));
+        }
+
+        public Entry<K, V> higherEntry(final K key) {
+            return descending ? absoluteFloor(key, false) : absoluteCeiling(key, false);
+        }
+
+        public K higherKey(final K key) {
+            return keyOf(higherEntry(key));
+        }
+
+        public Entry<K, V> firstEntry() {
+            return descending ? absoluteHighest() : absoluteLowest();
+        }
+
+        public Entry<K, V> lastEntry() {
+            return descending ? absoluteLowest() : absoluteHighest();
+        }
+
+        public K firstKey() {
+            final var entry = firstEntry();
+            if (entry == null) {
+                throw new NoSuchElementException();
+            }
+            return entry.getKey();
+        }
+
+        public K lastKey() {
+            final var entry = lastEntry();
+            if (entry == null) {
+                throw new NoSuchElementException();
+            }
+            return entry.getKey();
+        }
+
+        public Entry<K, V> pollFirstEntry() {
+            final var retval = firstEntry();
+            if (retval != null) {
+                AbstractNavigableMap.this.remove(retval.getKey());
+            }
+            return retval;
+        }
+
+        public Entry<K, V> pollLastEntry() {
+            final var retval = lastEntry();
+            if (retval != null) {
+                AbstractNavigableMap.this.remove(retval.getKey());
+            }
+            return retval;
+        }
+
+        public Comparator<? super K> comparator() {
+            return descending ? Collections.reverseOrder(AbstractNavigableMap.this.comparator()) : AbstractNavigableMap.this.comparator();
+        }
+
+        public NavigableMap<K, V> descendingMap() {
+            return new SubMap(low, lowInclusive, high, highInclusive, !descending);
+        }
+
+        public NavigableSet<K> navigableKeySet() {
+            return new KeySet<>(this);
+        }
+
+        public Set<K> keySet() {
+            return navigableKeySet();
+        }
+
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        public NavigableMap<K, V> subMap(final K fromKey, final boolean fromInclusive, final K toKey,
+                final boolean toInclusive) {
+            Objects.requireNonNull(fromKey);
+            Objects.requireNonNull(toKey);
+            if (!inRange(fromKey, fromInclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            if (!inRange(toKey, toInclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+            return descending
+                    ? new SubMap(toKey, toInclusive, fromKey, fromInclusive, true)
+                    : new SubMap(fromKey, fromInclusive, toKey, toInclusive, false);
+        }
+
+        public NavigableMap<K, V> headMap(final K toKey, final boolean inclusive) {
+            Objects.requireNonNull(toKey);
+            if (!inRange(toKey, inclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+            return descending
+                    ? new SubMap(toKey, inclusive, high, highInclusive, true)
+                    : new SubMap(low, lowInclusive, toKey, inclusive, false);
+        }
+
+        public NavigableMap<K, V> tailMap(final K fromKey, final boolean inclusive) {
+            Objects.requireNonNull(fromKey);
+            if (!inRange(fromKey, inclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            return descending
+                    ? new SubMap(low, lowInclusive, fromKey, inclusive, true)
+                    : new SubMap(fromKey, inclusive, high, highInclusive, false);
+        }
+
+        public SortedMap<K, V> subMap(final K fromKey, final K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        public SortedMap<K, V> headMap(final K toKey) {
+            return headMap(toKey, false);
+        }
+
+        public SortedMap<K, V> tailMap(final K fromKey) {
+            return tailMap(fromKey, true);
+        }
+
+        public Set<Entry<K, V>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<>() {
+
+                    public Iterator<Entry<K, V>> iterator() {
+                        return entryIterator();
+                    }
+
+                    public int size() {
+                        return SubMap.this.size();
+                    }
+
+                    public boolean isEmpty() {
+                        return SubMap.this.isEmpty();
+                    }
+
+                    public boolean contains(final Object o) {
+                        if (!(o instanceof Entry)) {
+                            return false;
+                        }
+                        final var entry = (Entry<?, ?>) o;
+                        final var key = entry.getKey();
+                        return key != null && inRange(key) && AbstractNavigableMap.this.containsKey(key)
+                                && Objects.equals(AbstractNavigableMap.this.get(key), entry.getValue());
+                    }
+
+                    public boolean remove(final Object o) {
+                        if (!contains(o)) {
+                            return false;
+                        }
+                        AbstractNavigableMap.this.remove(((Entry<?, ?>) o).getKey());
+                        return true;
+                    }
+
+                    public void clear() {
+                        SubMap.this.clear();
+                    }
+                };
+            }
+            return entrySet;
+        }
+
+        protected Iterator<Entry<K, V>> entryIterator() {
+            return descending ? new DescendingIterator() : new AscendingIterator();
+        }
+
+        /**
+         * Walks a cursor forwards, re-positioning it after each removal.
+         */
+        protected class AscendingIterator implements Iterator<Entry<K, V>> {
+
+            private Cursor<K, V> cursor = cursor(low, lowInclusive);
+            private int expectedModCount = modCount;
+            private K lastReturned;
+
+            public boolean hasNext() {
+                return cursor.isValid() && !tooHigh(cursor.getKey());
+            }
+
+            public Entry<K, V> next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final var retval = new IteratorEntry(cursor.getKey(), cursor.getValue());
+                cursor.advance();
+                lastReturned = retval.getKey();
+                return retval;
+            }
+
+            public void remove() {
+                if (lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                final var next = cursor.isValid() ? cursor.getKey() : null;
+                AbstractNavigableMap.this.remove(lastReturned);
+                lastReturned = null;
+                expectedModCount = modCount;
+                if (next != null) {
+                    cursor = cursor(next, true);
+                }
+            }
+        }
+
+        /**
+         * Finds each predecessor afresh; descending iteration is not
+         * benchmarked, so this favours simplicity over speed.
+         */
+        protected class DescendingIterator implements Iterator<Entry<K, V>> {
+
+            private Entry<K, V> next = absoluteHighest();
+            private int expectedModCount = modCount;
+            private K lastReturned;
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public Entry<K, V> next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                final var retval = new IteratorEntry(next.getKey(), next.getValue());
+                next = absoluteFloor(next.getKey(), false);
+                lastReturned = retval.getKey();
+                return retval;
+            }
+
+            public void remove() {
+                if (lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                AbstractNavigableMap.this.remove(lastReturned);
+                lastReturned = null;
+                expectedModCount = modCount;
+            }
+        }
+    }
+
+    /**
+     * An entry returned by an iterator, writes go through to the map.
+     */
+    protected class IteratorEntry extends SimpleEntry<K, V> {
+
+        private static final long serialVersionUID = 1l;
+
+        public IteratorEntry(final K key, final V value) {
+            super(key, value);
+        }
+
+        public V setValue(final V value) {
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+    }
+
+    protected static <K> K keyOf(final Entry<K, ?> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+
+    /**
+     * The keys of a {@link NavigableMap}, in the map's order.
+     */
+    protected static class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+
+        private final NavigableMap<E, ?> map;
+
+        public KeySet(final NavigableMap<E, ?> map) {
+            Objects.requireNonNull(map);
+            this.map = map;
+        }
+
+        public Iterator<E> iterator() {
+            final var entries = map.entrySet().iterator();
+            return new Iterator<>() {
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                public E next() {
+                    return entries.next().getKey();
+                }
+
+                public void remove() {
+                    entries.remove();
+                }
+            };
+        }
+
+        public Iterator<E> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        public int size() {
+            return map.size();
+        }
+
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        public boolean contains(final Object o) {
+            return map.containsKey(o);
+        }
+
+        public boolean remove(final Object o) {
+            if (!map.containsKey(o)) {
+                return false;
+            }
+            map.remove(o);
+            return true;
+        }
+
+        public void clear() {
+            map.clear();
+        }
+
+        public Comparator<? super E> comparator() {
+            return map.comparator();
+        }
+
+        public E first() {
+            return map.firstKey();
+        }
+
+        public E last() {
+            return map.lastKey();
+        }
+
+        public E lower(final E e) {
+            return map.lowerKey(e);
+        }
+
+        public E floor(final E e) {
+            return map.floorKey(e);
+        }
+
+        public E ceiling(final E e) {
+            return map.ceilingKey(e);
+        }
+
+        public E higher(final E e) {
+            return map.higherKey(e);
+        }
+
+        public E pollFirst() {
+            return keyOf(map.pollFirstEntry());
+        }
+
+        public E pollLast() {
+            return keyOf(map.pollLastEntry());
+        }
+
+        public NavigableSet<E> descendingSet() {
+            return new KeySet<>(map.descendingMap());
+        }
+
+        public NavigableSet<E> subSet(final E fromElement, final boolean fromInclusive, final E toElement,
+                final boolean toInclusive) {
+            return new KeySet<>(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        public NavigableSet<E> headSet(final E toElement, final boolean inclusive) {
+            return new KeySet<>(map.headMap(toElement, inclusive));
+        }
+
+        public NavigableSet<E> tailSet(final E fromElement, final boolean inclusive) {
+            return new KeySet<>(map.tailMap(fromElement, inclusive));
+        }
+
+        public SortedSet<E> subSet(final E fromElement, final E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        public SortedSet<E> headSet(final E toElement) {
+            return headSet(toElement, false);
+        }
+
+        public SortedSet<E> tailSet(final E fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+
+    /**
+     * Snapshots are not modifiable, like those returned by
+     * {@link java.util.TreeMap}'s navigation methods.
+     */
+    protected static <K, V> Entry<K, V> snapshot(final K key, final V value) {
+        return new SimpleImmutableEntry<>(key, value);
+    }
+}
@@ -0,0 +1,918 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An adaptive radix tree as described by Leis, Kemper, and Neumann in "The
+ * Adaptive Radix Tree: ARTful Indexing for Main-Memory Databases" (ICDE
+ * 2013). Keys are decomposed into bytes, one per level, and each inner
+ * node is sized for its number of children: 4 or 16 sorted keys, a
+ * 256-byte index into 48 children, or 256 children. Chains of single
+ * children are collapsed into a prefix and leaves are created lazily, so a
+ * lookup visits a few small nodes regardless of the number of entries and
+ * compares the full key only once, at the leaf.
+ *
+ * <p>Keys are decomposed by a {@link KeyEncoding}, whose byte order must
+ * agree with the keys' natural order. A key that is a prefix of another is
+ * stored as the terminal leaf of the inner node at which it ends.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class AdaptiveRadixTreeMap<K, V> extends AbstractNavigableMap<K, V> {
+
+    /**
+     * Decomposes keys into bytes whose unsigned lexicographic order is the
+     * keys' natural order.
+     */
+    public interface KeyEncoding<K> {
+
+        /**
+         * Big-endian with the sign bit flipped so that negative numbers
+         * sort first.
+         */
+        KeyEncoding<Long> LONG = new KeyEncoding<>() {
+            public int length(final Long key) {
+                return Long.BYTES;
+            }
+
+            public int byteAt(final Long key, final int index) {
+                return (int) ((key ^ Long.MIN_VALUE) >>> (56 - (index << 3))) & 0xff;
+            }
+        };
+
+        /**
+         * Each UTF-16 code unit, high byte first, which matches
+         * {@link String#compareTo(String)}.
+         */
+        KeyEncoding<String> STRING = new KeyEncoding<>() {
+            public int length(final String key) {
+                return key.length() << 1;
+            }
+
+            public int byteAt(final String key, final int index) {
+                final char c = key.charAt(index >> 1);
+                return (index & 1) == 0 ? c >>> 8 : c & 0xff;
+            }
+        };
+
+        /**
+         * @return the number of bytes in the key
+         */
+        int length(K key);
+
+        /**
+         * @return the unsigned byte at <code>index</code>
+         */
+        int byteAt(K key, int index);
+
+    }
+
+    protected abstract static class Node {
+    }
+
+    protected static final class Leaf extends Node {
+        protected final Object key;
+        protected Object value;
+
+        protected Leaf(final Object key, final Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Children are addressed by position for ordered traversal. Positions
+     * increase with the children's bytes but need not equal them.
+     */
+    protected abstract static class Inner extends Node {
+        protected static final byte[] EMPTY = new byte[0];
+
+        protected byte[] prefix = EMPTY;
+        protected Leaf terminal;
+        protected int count;
+
+        protected abstract Node find(int b);
+
+        /**
+         * @return this node, or a larger copy if it is full
+         */
+        protected abstract Inner add(int b, Node child);
+
+        protected abstract void replace(int b, Node child);
+
+        /**
+         * @return this node, or a smaller copy if it has become sparse
+         */
+        protected abstract Inner remove(int b);
+
+        /**
+         * @return the position of the first child whose byte is at least
+         *         <code>b</code>, or -1 if there is none
+         */
+        protected abstract int ceilingPosition(int b);
+
+        /**
+         * @return the position of the last child whose byte is at most
+         *         <code>b</code>, or -1 if there is none
+         */
+        protected abstract int floorPosition(int b);
+
+        /**
+         * @param position a position, or -1 for the first child
+         * @return the position of the next child, or -1 if there is none
+         */
+        protected abstract int nextPosition(int position);
+
+        protected abstract int previousPosition(int position);
+
+        protected abstract Node childAt(int position);
+
+        protected abstract int byteAt(int position);
+
+        protected <T extends Inner> T copyHeader(final T to) {
+            to.prefix = prefix;
+            to.terminal = terminal;
+            return to;
+        }
+    }
+
+    /**
+     * Node4 and Node16: up to 4 or 16 children with their bytes sorted.
+     */
+    protected static final class SortedNode extends Inner {
+        private final byte[] keys;
+        private final Node[] children;
+
+        protected SortedNode(final int capacity) {
+            keys = new byte[capacity];
+            children = new Node[capacity];
+        }
+
+        protected Node find(final int b) {
+            for (int i = 0; i < count; i++) {
+                final int current = keys[i] & 0xff;
+                if (current == b) {
+                    return children[i];
+                } else if (current > b) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        protected Inner add(final int b, final Node child) {
+            if (count == keys.length) {
+                final Inner larger = keys.length == 4 ? copyHeader(new SortedNode(16)) : copyHeader(new Node48());
+                for (int i = 0; i < count; i++) {
+                    larger.add(keys[i] & 0xff, children[i]);
+                }
+                return larger.add(b, child);
+            }
+            final int index = insertionPoint(b);
+            System.arraycopy(keys, index, keys, index + 1, count - index);
+            System.arraycopy(children, index, children, index + 1, count - index);
+            keys[index] = (byte) b;
+            children[index] = child;
+            count++;
+            return this;
+        }
+
+        private int insertionPoint(final int b) {
+            int i = 0;
+            while (i < count && (keys[i] & 0xff) < b) {
+                i++;
+            }
+            return i;
+        }
+
+        protected void replace(final int b, final Node child) {
+            children[insertionPoint(b)] = child;
+        }
+
+        protected Inner remove(final int b) {
+            final int index = insertionPoint(b);
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(children, index + 1, children, index, count - index - 1);
+            count--;
+            children[count] = null;
+            if (keys.length == 16 && count <= 3) {
+                final var smaller = copyHeader(new SortedNode(4));
+                for (int i = 0; i < count; i++) {
+                    smaller.add(keys[i] & 0xff, children[i]);
+                }
+                return smaller;
+            }
+            return this;
+        }
+
+        protected int ceilingPosition(final int b) {
+            final int index = insertionPoint(b);
+            return index < count ? index : -1;
+        }
+
+        protected int floorPosition(final int b) {
+            int i = count - 1;
+            while (i >= 0 && (keys[i] & 0xff) > b) {
+                i--;
+            }
+            return i;
+        }
+
+        protected int nextPosition(final int position) {
+            return position + 1 < count ? position + 1 : -1;
+        }
+
+        protected int previousPosition(final int position) {
+            return position - 1;
+        }
+
+        protected Node childAt(final int position) {
+            return children[position];
+        }
+
+        protected int byteAt(final int position) {
+            return keys[position] & 0xff;
+        }
+    }
+
+    /**
+     * Up to 48 children, located through a 256-entry index of slots.
+     * Positions are bytes.
+     */
+    protected static final class Node48 extends Inner {
+        /**
+         * one more than the slot of each byte's child, 0 if absent
+         */
+        private final byte[] index = new byte[256];
+        private final Node[] children = new Node[48];
+
+        protected Node find(final int b) {
+            final int slot = index[b];
+            return slot == 0 ? null : children[slot - 1];
+        }
+
+        protected Inner add(final int b, final Node child) {
+            if (count == children.length) {
+                final var larger = copyHeader(new Node256());
+                for (int i = 0; i < 256; i++) {
+                    if (index[i] != 0) {
+                        larger.add(i, children[index[i] - 1]);
+                    }
+                }
+                return larger.add(b, child);
+            }
+            int slot = 0;
+            while (children[slot] != null) {
+                slot++;
+            }
+            children[slot] = child;
+            index[b] = (byte) (slot + 1);
+            count++;
+            return this;
+        }
+
+        protected void replace(final int b, final Node child) {
+            children[index[b] - 1] = child;
+        }
+
+        protected Inner remove(final int b) {
+            children[index[b] - 1] = null;
+            index[b] = 0;
+            count--;
+            if (count <= 12) {
+                final var smaller = copyHeader(new SortedNode(16));
+                for (int i = 0; i < 256; i++) {
+                    if (index[i] != 0) {
+                        smaller.add(i, children[index[i] - 1]);
+                    }
+                }
+                return smaller;
+            }
+            return this;
+        }
+
+        protected int ceilingPosition(final int b) {
+            for (int i = b; i < 256; i++) {
+                if (index[i] != 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        protected int floorPosition(final int b) {
+            for (int i = b; i >= 0; i--) {
+                if (index[i] != 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        protected int nextPosition(final int position) {
+            return position < 255 ? ceilingPosition(position + 1) : -1;
+        }
+
+        protected int previousPosition(final int position) {
+            return position > 0 ? floorPosition(position - 1) : -1;
+        }
+
+        protected Node childAt(final int position) {
+            return children[index[position] - 1];
+        }
+
+        protected int byteAt(final int position) {
+            return position;
+        }
+    }
+
+    /**
+     * A child for every possible byte. Positions are bytes.
+     */
+    protected static final class Node256 extends Inner {
+        private final Node[] children = new Node[256];
+
+        protected Node find(final int b) {
+            return children[b];
+        }
+
+        protected Inner add(final int b, final Node child) {
+            children[b] = child;
+            count++;
+            return this;
+        }
+
+        protected void replace(final int b, final Node child) {
+            children[b] = child;
+        }
+
+        protected Inner remove(final int b) {
+            children[b] = null;
+            count--;
+            if (count <= 37) {
+                final var smaller = copyHeader(new Node48());
+                for (int i = 0; i < 256; i++) {
+                    if (children[i] != null) {
+                        smaller.add(i, children[i]);
+                    }
+                }
+                return smaller;
+            }
+            return this;
+        }
+
+        protected int ceilingPosition(final int b) {
+            for (int i = b; i < 256; i++) {
+                if (children[i] != null) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        protected int floorPosition(final int b) {
+            for (int i = b; i >= 0; i--) {
+                if (children[i] != null) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        protected int nextPosition(final int position) {
+            return position < 255 ? ceilingPosition(position + 1) : -1;
+        }
+
+        protected int previousPosition(final int position) {
+            return position > 0 ? floorPosition(position - 1) : -1;
+        }
+
+        protected Node childAt(final int position) {
+            return children[position];
+        }
+
+        protected int byteAt(final int position) {
+            return position;
+        }
+    }
+
+    private final KeyEncoding<K> encoding;
+
+    private Node root;
+    private int size;
+
+    /**
+     * Whether the last insert or removal found the key, and its value.
+     */
+    private boolean found;
+    private Object foundValue;
+
+    /**
+     * @param encoding decomposes the keys into bytes in their natural order
+     */
+    public AdaptiveRadixTreeMap(final KeyEncoding<K> encoding) {
+        super(null);
+        Objects.requireNonNull(encoding);
+        this.encoding = encoding;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Leaf findLeaf(final Object key) {
+        Objects.requireNonNull(key);
+        final var k = (K) key;
+        final int length = encoding.length(k);
+        var node = root;
+        int depth = 0;
+        while (node instanceof Inner) {
+            final var inner = (Inner) node;
+            final var prefix = inner.prefix;
+            for (int i = 0; i < prefix.length; i++, depth++) {
+                if (depth >= length || encoding.byteAt(k, depth) != (prefix[i] & 0xff)) {
+                    return null;
+                }
+            }
+            if (depth == length) {
+                return inner.terminal;
+            }
+            node = inner.find(encoding.byteAt(k, depth++));
+        }
+        final var leaf = (Leaf) node;
+        return leaf != null && leaf.key.equals(key) ? leaf : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final var leaf = findLeaf(key);
+        return leaf == null ? null : (V) leaf.value;
+    }
+
+    public boolean containsKey(final Object key) {
+        return findLeaf(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(final K key, final V value) {
+        Objects.requireNonNull(key);
+        root = insert(root, key, encoding.length(key), 0, value);
+        if (found) {
+            final var retval = (V) foundValue;
+            found = false;
+            foundValue = null;
+            return retval;
+        }
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * @return the node to replace <code>node</code> with
+     */
+    protected Node insert(final Node node, final K key, final int length, int depth, final V value) {
+        if (node == null) {
+            return new Leaf(key, value);
+        }
+        if (node instanceof Leaf) {
+            final var leaf = (Leaf) node;
+            if (leaf.key.equals(key)) {
+                found = true;
+                foundValue = leaf.value;
+                leaf.value = value;
+                return leaf;
+            }
+            @SuppressWarnings("unchecked")
+            final var other = (K) leaf.key;
+            final int otherLength = encoding.length(other);
+            int end = depth;
+            while (end < length && end < otherLength && encoding.byteAt(key, end) == encoding.byteAt(other, end)) {
+                end++;
+            }
+            final var branch = new SortedNode(4);
+            branch.prefix = bytes(key, depth, end);
+            attach(branch, leaf, other, otherLength, end);
+            attach(branch, new Leaf(key, value), key, length, end);
+            return branch;
+        }
+        final var inner = (Inner) node;
+        final var prefix = inner.prefix;
+        int matched = 0;
+        while (matched < prefix.length && depth + matched < length
+                && encoding.byteAt(key, depth + matched) == (prefix[matched] & 0xff)) {
+            matched++;
+        }
+        if (matched < prefix.length) {
+            // the key diverges within the prefix, so split it
+            final var branch = new SortedNode(4);
+            branch.prefix = Arrays.copyOf(prefix, matched);
+            inner.prefix = Arrays.copyOfRange(prefix, matched + 1, prefix.length);
+            branch.add(prefix[matched] & 0xff, inner);
+            attach(branch, new Leaf(key, value), key, length, depth + matched);
+            return branch;
+        }
+        depth += prefix.length;
+        if (depth == length) {
+            if (inner.terminal == null) {
+                inner.terminal = new Leaf(key, value);
+            } else {
+                found = true;
+                foundValue = inner.terminal.value;
+                inner.terminal.value = value;
+            }
+            return inner;
+        }
+        final int b = encoding.byteAt(key, depth);
+        final var child = inner.find(b);
+        if (child == null) {
+            return inner.add(b, new Leaf(key, value));
+        }
+        final var replacement = insert(child, key, length, depth + 1, value);
+        if (replacement != child) {
+            inner.replace(b, replacement);
+        }
+        return inner;
+    }
+
+    /**
+     * Add a leaf to a new branch whose path ends at <code>depth</code>.
+     */
+    protected void attach(final SortedNode branch, final Leaf leaf, final K key, final int length,
+            final int depth) {
+        if (depth == length) {
+            branch.terminal = leaf;
+        } else {
+            branch.add(encoding.byteAt(key, depth), leaf);
+        }
+    }
+
+    protected byte[] bytes(final K key, final int from, final int to) {
+        if (from == to) {
+            return Inner.EMPTY;
+        }
+        final var retval = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            retval[i - from] = (byte) encoding.byteAt(key, i);
+        }
+        return retval;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        Objects.requireNonNull(key);
+        final var k = (K) key;
+        root = remove(root, k, encoding.length(k), 0);
+        if (!found) {
+            return null;
+        }
+        final var retval = (V) foundValue;
+        found = false;
+        foundValue = null;
+        size--;
+        modCount++;
+        return retval;
+    }
+
+    /**
+     * @return the node to replace <code>node</code> with, possibly null
+     */
+    protected Node remove(final Node node, final K key, final int length, int depth) {
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof Leaf) {
+            final var leaf = (Leaf) node;
+            if (!leaf.key.equals(key)) {
+                return leaf;
+            }
+            found = true;
+            foundValue = leaf.value;
+            return null;
+        }
+        final var inner = (Inner) node;
+        final var prefix = inner.prefix;
+        for (int i = 0; i < prefix.length; i++, depth++) {
+            if (depth >= length || encoding.byteAt(key, depth) != (prefix[i] & 0xff)) {
+                return inner;
+            }
+        }
+        if (depth == length) {
+            if (inner.terminal == null) {
+                return inner;
+            }
+            found = true;
+            foundValue = inner.terminal.value;
+            inner.terminal = null;
+            return collapse(inner);
+        }
+        final int b = encoding.byteAt(key, depth);
+        final var child = inner.find(b);
+        if (child == null) {
+            return inner;
+        }
+        final var replacement = remove(child, key, length, depth + 1);
+        if (replacement == child) {
+            return inner;
+        }
+        if (replacement == null) {
+            return collapse(inner.remove(b));
+        }
+        inner.replace(b, replacement);
+        return inner;
+    }
+
+    /**
+     * Replace an inner node that no longer branches with its only
+     * descendant.
+     */
+    protected Node collapse(final Inner inner) {
+        if (inner.count == 0) {
+            return inner.terminal;
+        }
+        if (inner.count > 1 || inner.terminal != null) {
+            return inner;
+        }
+        final int position = inner.nextPosition(-1);
+        final var child = inner.childAt(position);
+        if (child instanceof Inner) {
+            // merge the prefixes
+            final var childInner = (Inner) child;
+            final var merged = new byte[inner.prefix.length + 1 + childInner.prefix.length];
+            System.arraycopy(inner.prefix, 0, merged, 0, inner.prefix.length);
+            merged[inner.prefix.length] = (byte) inner.byteAt(position);
+            System.arraycopy(childInner.prefix, 0, merged, inner.prefix.length + 1, childInner.prefix.length);
+            childInner.prefix = merged;
+        }
+        return child;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+        modCount++;
+    }
+
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        for (final var cursor = cursor(null, true); cursor.isValid(); cursor.advance()) {
+            action.accept(cursor.getKey(), cursor.getValue());
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    protected static Leaf minimum(final Node node) {
+        if (node == null || node instanceof Leaf) {
+            return (Leaf) node;
+        }
+        final var inner = (Inner) node;
+        return inner.terminal != null ? inner.terminal : minimum(inner.childAt(inner.nextPosition(-1)));
+    }
+
+    protected static Leaf maximum(final Node node) {
+        if (node == null || node instanceof Leaf) {
+            return (Leaf) node;
+        }
+        final var inner = (Inner) node;
+        return inner.count > 0 ? maximum(inner.childAt(inner.floorPosition(255))) : inner.terminal;
+    }
+
+    /**
+     * @return the leaf with the least key greater than (or equal to) <code>key</code>
+     */
+    protected Leaf ceiling(final Node node, final K key, final int length, int depth, final boolean inclusive) {
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof Leaf) {
+            final var leaf = (Leaf) node;
+            final int comparison = compare(leaf.key, key);
+            return comparison > 0 || (comparison == 0 && inclusive) ? leaf : null;
+        }
+        final var inner = (Inner) node;
+        final var prefix = inner.prefix;
+        for (int i = 0; i < prefix.length; i++, depth++) {
+            if (depth == length) {
+                // every key below is an extension of this one
+                return minimum(inner);
+            }
+            final int difference = (prefix[i] & 0xff) - encoding.byteAt(key, depth);
+            if (difference > 0) {
+                return minimum(inner);
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+        if (depth == length) {
+            if (inclusive && inner.terminal != null) {
+                return inner.terminal;
+            }
+            return inner.count == 0 ? null : minimum(inner.childAt(inner.nextPosition(-1)));
+        }
+        // the terminal, if any, is a proper prefix of the key and so is less
+        final int b = encoding.byteAt(key, depth);
+        int position = inner.ceilingPosition(b);
+        if (position < 0) {
+            return null;
+        }
+        if (inner.byteAt(position) == b) {
+            final var retval = ceiling(inner.childAt(position), key, length, depth + 1, inclusive);
+            if (retval != null) {
+                return retval;
+            }
+            position = inner.nextPosition(position);
+        }
+        return position < 0 ? null : minimum(inner.childAt(position));
+    }
+
+    /**
+     * @return the leaf with the greatest key less than (or equal to) <code>key</code>
+     */
+    protected Leaf floor(final Node node, final K key, final int length, int depth, final boolean inclusive) {
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof Leaf) {
+            final var leaf = (Leaf) node;
+            final int comparison = compare(leaf.key, key);
+            return comparison < 0 || (comparison == 0 && inclusive) ? leaf : null;
+        }
+        final var inner = (Inner) node;
+        final var prefix = inner.prefix;
+        for (int i = 0; i < prefix.length; i++, depth++) {
+            if (depth == length) {
+                return null;
+            }
+            final int difference = (prefix[i] & 0xff) - encoding.byteAt(key, depth);
+            if (difference < 0) {
+                return maximum(inner);
+            } else if (difference > 0) {
+                return null;
+            }
+        }
+        if (depth == length) {
+            return inclusive ? inner.terminal : null;
+        }
+        final int b = encoding.byteAt(key, depth);
+        int position = inner.floorPosition(b);
+        if (position >= 0 && inner.byteAt(position) == b) {
+            final var retval = floor(inner.childAt(position), key, length, depth + 1, inclusive);
+            if (retval != null) {
+                return retval;
+            }
+            position = inner.previousPosition(position);
+        }
+        return position >= 0 ? maximum(inner.childAt(position)) : inner.terminal;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Entry<K, V> toEntry(final Leaf leaf) {
+        return leaf == null ? null : snapshot((K) leaf.key, (V) leaf.value);
+    }
+
+    protected Entry<K, V> ceiling(final K key, final boolean inclusive) {
+        return toEntry(ceiling(root, key, encoding.length(key), 0, inclusive));
+    }
+
+    protected Entry<K, V> floor(final K key, final boolean inclusive) {
+        return toEntry(floor(root, key, encoding.length(key), 0, inclusive));
+    }
+
+    protected Entry<K, V> first() {
+        return toEntry(minimum(root));
+    }
+
+    protected Entry<K, V> last() {
+        return toEntry(maximum(root));
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Cursor<K, V> cursor(final K from, final boolean inclusive) {
+        final var retval = new TreeCursor();
+        if (from == null) {
+            retval.descend(root);
+            return retval;
+        }
+        final var start = ceiling(root, from, encoding.length(from), 0, inclusive);
+        if (start != null) {
+            retval.seek((K) start.key);
+        }
+        return retval;
+    }
+
+    /**
+     * An in-order traversal that keeps the path from the root.
+     */
+    protected class TreeCursor implements Cursor<K, V> {
+
+        private Inner[] path = new Inner[8];
+        /**
+         * the position of the child being visited in each node on the
+         * path, or -1 if visiting its terminal
+         */
+        private int[] positions = new int[8];
+        private int top;
+        private Leaf current;
+
+        protected void push(final Inner inner, final int position) {
+            if (top == path.length) {
+                path = Arrays.copyOf(path, top << 1);
+                positions = Arrays.copyOf(positions, top << 1);
+            }
+            path[top] = inner;
+            positions[top++] = position;
+        }
+
+        /**
+         * Visit the least key under <code>node</code>.
+         */
+        protected void descend(Node node) {
+            while (node instanceof Inner) {
+                final var inner = (Inner) node;
+                if (inner.terminal != null) {
+                    push(inner, -1);
+                    current = inner.terminal;
+                    return;
+                }
+                final int position = inner.nextPosition(-1);
+                push(inner, position);
+                node = inner.childAt(position);
+            }
+            current = (Leaf) node;
+        }
+
+        /**
+         * Visit a key known to be present.
+         */
+        protected void seek(final K key) {
+            final int length = encoding.length(key);
+            var node = root;
+            int depth = 0;
+            while (node instanceof Inner) {
+                final var inner = (Inner) node;
+                depth += inner.prefix.length;
+                if (depth == length) {
+                    push(inner, -1);
+                    current = inner.terminal;
+                    return;
+                }
+                final int position = inner.ceilingPosition(encoding.byteAt(key, depth++));
+                push(inner, position);
+                node = inner.childAt(position);
+            }
+            current = (Leaf) node;
+        }
+
+        public boolean isValid() {
+            return current != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public K getKey() {
+            return (K) current.key;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) current.value;
+        }
+
+        public void advance() {
+            while (top > 0) {
+                final var inner = path[top - 1];
+                final int next = inner.nextPosition(positions[top - 1]);
+                if (next >= 0) {
+                    positions[top - 1] = next;
+                    descend(inner.childAt(next));
+                    return;
+                }
+                top--;
+            }
+            current = null;
+        }
+    }
+
+}
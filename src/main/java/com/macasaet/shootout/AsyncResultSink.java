@@ -0,0 +1,109 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands results to a background thread which writes them to another sink,
+ * so that formatting and I/O do not happen on the thread being measured.
+ * The delegate is flushed whenever the queue runs empty. A failure is
+ * reported by the next call to any method.
+ */
+public class AsyncResultSink implements ResultSink {
+
+    private static final Object CLOSE = new Object();
+
+    private final ResultSink delegate;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Thread writer;
+
+    public AsyncResultSink(final ResultSink delegate) {
+        Objects.requireNonNull(delegate);
+        this.delegate = delegate;
+        writer = new Thread(this::drain, "result-sink");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void accept(final BenchmarkResult result) throws IOException {
+        checkFailure();
+        queue.add(result);
+    }
+
+    /**
+     * Block until every result accepted so far has been written.
+     */
+    public void flush() throws IOException {
+        checkFailure();
+        final var flushed = new CountDownLatch(1);
+        queue.add(flushed);
+        try {
+            while (!flushed.await(100, TimeUnit.MILLISECONDS) && writer.isAlive()) {
+                // keep waiting unless the writer has failed
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing results", ie);
+        }
+        checkFailure();
+    }
+
+    public void close() throws IOException {
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing result sink", ie);
+        }
+        checkFailure();
+    }
+
+    protected void drain() {
+        try {
+            for (var item = queue.take(); item != CLOSE; item = queue.take()) {
+                if (item instanceof BenchmarkResult) {
+                    delegate.accept((BenchmarkResult) item);
+                } else {
+                    delegate.flush();
+                    ((CountDownLatch) item).countDown();
+                }
+                if (queue.isEmpty()) {
+                    delegate.flush();
+                }
+            }
+            delegate.close();
+        } catch (final Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+    }
+
+    protected void checkFailure() throws IOException {
+        final var cause = failure.get();
+        if (cause != null) {
+            throw new IOException("Unable to write results: " + cause.getMessage(), cause);
+        }
+    }
+
+}
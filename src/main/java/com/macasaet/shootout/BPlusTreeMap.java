@@ -0,0 +1,606 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * A B+-tree. Each node holds up to {@link #getNodeCapacity()} keys in an
+ * array, so a lookup touches one node per level and binary searches
+ * within it rather than following a pointer per comparison as a binary
+ * search tree does. Entries are stored only in the leaves, which are
+ * linked in key order for scans.
+ *
+ * <p>The key arrays are created and searched by overridable methods so
+ * that subclasses can store primitive keys, see
+ * {@link LongBPlusTreeMap}.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BPlusTreeMap<K, V> extends AbstractNavigableMap<K, V> {
+
+    /**
+     * 64 eight-byte keys span eight 64-byte cache lines, few enough that
+     * the hardware prefetcher keeps up with a binary search
+     */
+    public static final int DEFAULT_NODE_CAPACITY = 64;
+
+    protected abstract static class Node {
+        /**
+         * a key array created by {@link BPlusTreeMap#createKeys(int)}
+         */
+        protected final Object keys;
+        protected int size;
+
+        protected Node(final Object keys) {
+            this.keys = keys;
+        }
+    }
+
+    protected static class Leaf extends Node {
+        protected final Object[] values;
+        protected Leaf previous;
+        protected Leaf next;
+
+        protected Leaf(final Object keys, final int capacity) {
+            super(keys);
+            values = new Object[capacity];
+        }
+    }
+
+    /**
+     * An internal node with <code>size</code> separator keys and
+     * <code>size + 1</code> children. Every key in
+     * <code>children[i + 1]</code> is greater than or equal to
+     * <code>keys[i]</code> and every key in <code>children[i]</code> is
+     * less than it.
+     */
+    protected static class Branch extends Node {
+        protected final Node[] children;
+
+        protected Branch(final Object keys, final int capacity) {
+            super(keys);
+            children = new Node[capacity + 1];
+        }
+    }
+
+    private final int nodeCapacity;
+    private final int minimumSize;
+
+    private Node root;
+    private int size;
+
+    /**
+     * The separator to insert into the parent after a split.
+     */
+    private K splitKey;
+    /**
+     * Whether the last insert or removal found the key, and its value.
+     */
+    private boolean found;
+    private Object foundValue;
+
+    public BPlusTreeMap() {
+        this(null, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * @param comparator the order of the keys, or null for their natural order
+     * @param nodeCapacity the maximum number of keys per node, at least 4
+     */
+    public BPlusTreeMap(final Comparator<? super K> comparator, final int nodeCapacity) {
+        super(comparator);
+        if (nodeCapacity < 4) {
+            throw new IllegalArgumentException("nodeCapacity must be at least 4");
+        }
+        this.nodeCapacity = nodeCapacity;
+        this.minimumSize = nodeCapacity / 2;
+        root = new Leaf(createKeys(nodeCapacity), nodeCapacity);
+    }
+
+    /**
+     * @return a new array for <code>length</code> keys
+     */
+    protected Object createKeys(final int length) {
+        return new Object[length];
+    }
+
+    /**
+     * @return the index of <code>key</code> among the first
+     *         <code>size</code> keys, or <code>-(insertion point) - 1</code>
+     *         if absent, as per {@link Arrays#binarySearch(Object[], Object)}
+     */
+    @SuppressWarnings("unchecked")
+    protected int search(final Object keys, final int size, final Object key) {
+        final var array = (Object[]) keys;
+        final var target = (K) key;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compare(array[middle], target);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected K keyAt(final Object keys, final int index) {
+        return (K) ((Object[]) keys)[index];
+    }
+
+    protected void setKey(final Object keys, final int index, final K key) {
+        ((Object[]) keys)[index] = key;
+    }
+
+    /**
+     * @return the child to descend into when looking for <code>key</code>
+     */
+    protected int childIndex(final Branch branch, final Object key) {
+        final int index = search(branch.keys, branch.size, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    protected Leaf findLeaf(final Object key) {
+        var node = root;
+        while (node instanceof Branch) {
+            final var branch = (Branch) node;
+            node = branch.children[childIndex(branch, key)];
+        }
+        return (Leaf) node;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        Objects.requireNonNull(key);
+        final var leaf = findLeaf(key);
+        final int index = search(leaf.keys, leaf.size, key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+
+    public boolean containsKey(final Object key) {
+        Objects.requireNonNull(key);
+        final var leaf = findLeaf(key);
+        return search(leaf.keys, leaf.size, key) >= 0;
+    }
+
+    public V put(final K key, final V value) {
+        Objects.requireNonNull(key);
+        final var sibling = insert(root, key, value);
+        if (found) {
+            return takeFoundValue();
+        }
+        if (sibling != null) {
+            final var newRoot = new Branch(createKeys(nodeCapacity), nodeCapacity);
+            setKey(newRoot.keys, 0, splitKey);
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.size = 1;
+            root = newRoot;
+            splitKey = null;
+        }
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected V takeFoundValue() {
+        final var retval = (V) foundValue;
+        found = false;
+        foundValue = null;
+        return retval;
+    }
+
+    /**
+     * Insert or replace an entry. If the key was present, {@link #found}
+     * is set and {@link #foundValue} holds the previous value.
+     *
+     * @return the new right sibling if <code>node</code> was split, in
+     *         which case {@link #splitKey} holds the separator
+     */
+    protected Node insert(final Node node, final K key, final V value) {
+        if (node instanceof Leaf) {
+            final var leaf = (Leaf) node;
+            final int index = search(leaf.keys, leaf.size, key);
+            if (index >= 0) {
+                found = true;
+                foundValue = leaf.values[index];
+                leaf.values[index] = value;
+                return null;
+            }
+            return insertAt(leaf, -index - 1, key, value);
+        }
+        final var branch = (Branch) node;
+        final int childIndex = childIndex(branch, key);
+        final var newChild = insert(branch.children[childIndex], key, value);
+        return newChild == null ? null : insertChild(branch, childIndex, splitKey, newChild);
+    }
+
+    protected Leaf insertAt(final Leaf leaf, final int index, final K key, final V value) {
+        if (leaf.size < nodeCapacity) {
+            shiftRight(leaf, index);
+            setKey(leaf.keys, index, key);
+            leaf.values[index] = value;
+            leaf.size++;
+            return null;
+        }
+        final var sibling = new Leaf(createKeys(nodeCapacity), nodeCapacity);
+        final int half = (nodeCapacity + 1) / 2;
+        final int moved = nodeCapacity - half;
+        System.arraycopy(leaf.keys, half, sibling.keys, 0, moved);
+        System.arraycopy(leaf.values, half, sibling.values, 0, moved);
+        Arrays.fill(leaf.values, half, nodeCapacity, null);
+        leaf.size = half;
+        sibling.size = moved;
+        sibling.next = leaf.next;
+        sibling.previous = leaf;
+        if (leaf.next != null) {
+            leaf.next.previous = sibling;
+        }
+        leaf.next = sibling;
+        if (index <= half) {
+            insertAt(leaf, index, key, value);
+        } else {
+            insertAt(sibling, index - half, key, value);
+        }
+        splitKey = keyAt(sibling.keys, 0);
+        return sibling;
+    }
+
+    /**
+     * Insert <code>child</code> to the right of <code>children[index]</code>.
+     *
+     * @return the new right sibling if the branch was split
+     */
+    protected Branch insertChild(final Branch branch, final int index, final K separator, final Node child) {
+        if (branch.size < nodeCapacity) {
+            System.arraycopy(branch.keys, index, branch.keys, index + 1, branch.size - index);
+            System.arraycopy(branch.children, index + 1, branch.children, index + 2, branch.size - index);
+            setKey(branch.keys, index, separator);
+            branch.children[index + 1] = child;
+            branch.size++;
+            return null;
+        }
+        // split around the middle key, which moves up to the parent
+        final var sibling = new Branch(createKeys(nodeCapacity), nodeCapacity);
+        final int half = nodeCapacity / 2;
+        final K middle;
+        if (index < half) {
+            middle = keyAt(branch.keys, half - 1);
+            moveToSibling(branch, sibling, half);
+            branch.size = half - 1;
+            insertChild(branch, index, separator, child);
+        } else if (index > half) {
+            middle = keyAt(branch.keys, half);
+            moveToSibling(branch, sibling, half + 1);
+            branch.size = half;
+            insertChild(sibling, index - half - 1, separator, child);
+        } else {
+            // the new separator is itself the middle
+            middle = separator;
+            sibling.children[0] = child;
+            System.arraycopy(branch.keys, half, sibling.keys, 0, nodeCapacity - half);
+            System.arraycopy(branch.children, half + 1, sibling.children, 1, nodeCapacity - half);
+            sibling.size = nodeCapacity - half;
+            branch.size = half;
+        }
+        Arrays.fill(branch.children, branch.size + 1, nodeCapacity + 1, null);
+        splitKey = middle;
+        return sibling;
+    }
+
+    /**
+     * Move the keys from <code>from</code> onwards and the children to
+     * their right into an empty sibling.
+     */
+    protected void moveToSibling(final Branch branch, final Branch sibling, final int from) {
+        final int moved = branch.size - from;
+        System.arraycopy(branch.keys, from, sibling.keys, 0, moved);
+        System.arraycopy(branch.children, from, sibling.children, 0, moved + 1);
+        sibling.size = moved;
+    }
+
+    protected void shiftRight(final Leaf leaf, final int index) {
+        System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+        System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.size - index);
+    }
+
+    public V remove(final Object key) {
+        Objects.requireNonNull(key);
+        remove(root, key);
+        if (!found) {
+            return null;
+        }
+        final var retval = takeFoundValue();
+        if (root instanceof Branch && root.size == 0) {
+            root = ((Branch) root).children[0];
+        }
+        size--;
+        modCount++;
+        return retval;
+    }
+
+    /**
+     * Remove a key if present, rebalancing any child left with fewer than
+     * the minimum number of keys. If the key was present, {@link #found} is
+     * set and {@link #foundValue} holds its value.
+     */
+    protected void remove(final Node node, final Object key) {
+        if (node instanceof Leaf) {
+            final var leaf = (Leaf) node;
+            final int index = search(leaf.keys, leaf.size, key);
+            if (index >= 0) {
+                found = true;
+                foundValue = leaf.values[index];
+                removeAt(leaf, index);
+            }
+            return;
+        }
+        final var branch = (Branch) node;
+        final int childIndex = childIndex(branch, key);
+        final var child = branch.children[childIndex];
+        remove(child, key);
+        if (found && child.size < minimumSize) {
+            rebalance(branch, childIndex);
+        }
+    }
+
+    protected void removeAt(final Leaf leaf, final int index) {
+        final int moved = leaf.size - index - 1;
+        System.arraycopy(leaf.keys, index + 1, leaf.keys, index, moved);
+        System.arraycopy(leaf.values, index + 1, leaf.values, index, moved);
+        leaf.size--;
+        leaf.values[leaf.size] = null;
+        clearKey(leaf.keys, leaf.size);
+    }
+
+    /**
+     * Release a key slot for garbage collection.
+     */
+    protected void clearKey(final Object keys, final int index) {
+        setKey(keys, index, null);
+    }
+
+    protected void rebalance(final Branch parent, final int childIndex) {
+        final var child = parent.children[childIndex];
+        if (childIndex > 0 && parent.children[childIndex - 1].size > minimumSize) {
+            borrowFromLeft(parent, childIndex, child, parent.children[childIndex - 1]);
+        } else if (childIndex < parent.size && parent.children[childIndex + 1].size > minimumSize) {
+            borrowFromRight(parent, childIndex, child, parent.children[childIndex + 1]);
+        } else if (childIndex > 0) {
+            merge(parent, childIndex - 1);
+        } else {
+            merge(parent, childIndex);
+        }
+    }
+
+    protected void borrowFromLeft(final Branch parent, final int childIndex, final Node child, final Node left) {
+        if (child instanceof Leaf) {
+            final var leaf = (Leaf) child;
+            final var leftLeaf = (Leaf) left;
+            shiftRight(leaf, 0);
+            System.arraycopy(leftLeaf.keys, leftLeaf.size - 1, leaf.keys, 0, 1);
+            leaf.values[0] = leftLeaf.values[leftLeaf.size - 1];
+            leaf.size++;
+            removeAt(leftLeaf, leftLeaf.size - 1);
+            setKey(parent.keys, childIndex - 1, keyAt(leaf.keys, 0));
+        } else {
+            final var branch = (Branch) child;
+            final var leftBranch = (Branch) left;
+            System.arraycopy(branch.keys, 0, branch.keys, 1, branch.size);
+            System.arraycopy(branch.children, 0, branch.children, 1, branch.size + 1);
+            System.arraycopy(parent.keys, childIndex - 1, branch.keys, 0, 1);
+            branch.children[0] = leftBranch.children[leftBranch.size];
+            branch.size++;
+            System.arraycopy(leftBranch.keys, leftBranch.size - 1, parent.keys, childIndex - 1, 1);
+            leftBranch.children[leftBranch.size] = null;
+            leftBranch.size--;
+            clearKey(leftBranch.keys, leftBranch.size);
+        }
+    }
+
+    protected void borrowFromRight(final Branch parent, final int childIndex, final Node child, final Node right) {
+        if (child instanceof Leaf) {
+            final var leaf = (Leaf) child;
+            final var rightLeaf = (Leaf) right;
+            System.arraycopy(rightLeaf.keys, 0, leaf.keys, leaf.size, 1);
+            leaf.values[leaf.size] = rightLeaf.values[0];
+            leaf.size++;
+            removeAt(rightLeaf, 0);
+            setKey(parent.keys, childIndex, keyAt(rightLeaf.keys, 0));
+        } else {
+            final var branch = (Branch) child;
+            final var rightBranch = (Branch) right;
+            System.arraycopy(parent.keys, childIndex, branch.keys, branch.size, 1);
+            branch.children[branch.size + 1] = rightBranch.children[0];
+            branch.size++;
+            System.arraycopy(rightBranch.keys, 0, parent.keys, childIndex, 1);
+            System.arraycopy(rightBranch.keys, 1, rightBranch.keys, 0, rightBranch.size - 1);
+            System.arraycopy(rightBranch.children, 1, rightBranch.children, 0, rightBranch.size);
+            rightBranch.children[rightBranch.size] = null;
+            rightBranch.size--;
+            clearKey(rightBranch.keys, rightBranch.size);
+        }
+    }
+
+    /**
+     * Merge <code>children[index + 1]</code> into <code>children[index]</code>.
+     */
+    protected void merge(final Branch parent, final int index) {
+        final var left = parent.children[index];
+        final var right = parent.children[index + 1];
+        if (left instanceof Leaf) {
+            final var leftLeaf = (Leaf) left;
+            final var rightLeaf = (Leaf) right;
+            System.arraycopy(rightLeaf.keys, 0, leftLeaf.keys, leftLeaf.size, rightLeaf.size);
+            System.arraycopy(rightLeaf.values, 0, leftLeaf.values, leftLeaf.size, rightLeaf.size);
+            leftLeaf.size += rightLeaf.size;
+            leftLeaf.next = rightLeaf.next;
+            if (rightLeaf.next != null) {
+                rightLeaf.next.previous = leftLeaf;
+            }
+        } else {
+            final var leftBranch = (Branch) left;
+            final var rightBranch = (Branch) right;
+            System.arraycopy(parent.keys, index, leftBranch.keys, leftBranch.size, 1);
+            System.arraycopy(rightBranch.keys, 0, leftBranch.keys, leftBranch.size + 1, rightBranch.size);
+            System.arraycopy(rightBranch.children, 0, leftBranch.children, leftBranch.size + 1,
+                    rightBranch.size + 1);
+            leftBranch.size += rightBranch.size + 1;
+        }
+        System.arraycopy(parent.keys, index + 1, parent.keys, index, parent.size - index - 1);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.size - index - 1);
+        parent.size--;
+        parent.children[parent.size + 1] = null;
+        clearKey(parent.keys, parent.size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = new Leaf(createKeys(nodeCapacity), nodeCapacity);
+        size = 0;
+        modCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        for (var leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.size; i++) {
+                action.accept(keyAt(leaf.keys, i), (V) leaf.values[i]);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    protected Leaf firstLeaf() {
+        var node = root;
+        while (node instanceof Branch) {
+            node = ((Branch) node).children[0];
+        }
+        return node.size == 0 ? null : (Leaf) node;
+    }
+
+    protected Leaf lastLeaf() {
+        var node = root;
+        while (node instanceof Branch) {
+            node = ((Branch) node).children[node.size];
+        }
+        return node.size == 0 ? null : (Leaf) node;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Entry<K, V> entryAt(final Leaf leaf, final int index) {
+        return snapshot(keyAt(leaf.keys, index), (V) leaf.values[index]);
+    }
+
+    protected Entry<K, V> ceiling(final K key, final boolean inclusive) {
+        final var leaf = findLeaf(key);
+        final int index = search(leaf.keys, leaf.size, key);
+        final int position = index >= 0 ? (inclusive ? index : index + 1) : -index - 1;
+        if (position < leaf.size) {
+            return entryAt(leaf, position);
+        }
+        return leaf.next == null ? null : entryAt(leaf.next, 0);
+    }
+
+    protected Entry<K, V> floor(final K key, final boolean inclusive) {
+        final var leaf = findLeaf(key);
+        final int index = search(leaf.keys, leaf.size, key);
+        final int position = index >= 0 ? (inclusive ? index : index - 1) : -index - 2;
+        if (position >= 0) {
+            return entryAt(leaf, position);
+        }
+        return leaf.previous == null ? null : entryAt(leaf.previous, leaf.previous.size - 1);
+    }
+
+    protected Entry<K, V> first() {
+        final var leaf = firstLeaf();
+        return leaf == null ? null : entryAt(leaf, 0);
+    }
+
+    protected Entry<K, V> last() {
+        final var leaf = lastLeaf();
+        return leaf == null ? null : entryAt(leaf, leaf.size - 1);
+    }
+
+    protected Cursor<K, V> cursor(final K from, final boolean inclusive) {
+        if (from == null) {
+            return new LeafCursor(firstLeaf(), 0);
+        }
+        final var leaf = findLeaf(from);
+        final int index = search(leaf.keys, leaf.size, from);
+        final int position = index >= 0 ? (inclusive ? index : index + 1) : -index - 1;
+        return position < leaf.size ? new LeafCursor(leaf, position) : new LeafCursor(leaf.next, 0);
+    }
+
+    /**
+     * Walks the linked leaves.
+     */
+    protected class LeafCursor implements Cursor<K, V> {
+
+        private Leaf leaf;
+        private int index;
+
+        protected LeafCursor(final Leaf leaf, final int index) {
+            this.leaf = leaf;
+            this.index = index;
+        }
+
+        public boolean isValid() {
+            return leaf != null;
+        }
+
+        public K getKey() {
+            return keyAt(leaf.keys, index);
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) leaf.values[index];
+        }
+
+        public void advance() {
+            if (++index >= leaf.size) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+    }
+
+    protected int getNodeCapacity() {
+        return nodeCapacity;
+    }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The measurements from a single benchmark invocation. Metrics are kept in
+ * the order in which they were added, which determines the column order
+ * of tabular output. A null metric means the measurement is unavailable.
+ */
+public class BenchmarkResult {
+
+    private final String keyLabel;
+    private final String testLabel;
+    private final String implementation;
+    private final long keyCount;
+    private final Map<String, Number> metrics = new LinkedHashMap<>();
+
+    public BenchmarkResult(final String keyLabel, final String testLabel, final String implementation,
+            final long keyCount) {
+        Objects.requireNonNull(keyLabel);
+        Objects.requireNonNull(testLabel);
+        Objects.requireNonNull(implementation);
+        this.keyLabel = keyLabel;
+        this.testLabel = testLabel;
+        this.implementation = implementation;
+        this.keyCount = keyCount;
+    }
+
+    /**
+     * @param name the metric name, used as a column name by structured output
+     * @param value the measurement or null if it is unavailable
+     * @return this result
+     */
+    public BenchmarkResult put(final String name, final Number value) {
+        Objects.requireNonNull(name);
+        metrics.put(name, value);
+        return this;
+    }
+
+    public String getKeyLabel() {
+        return keyLabel;
+    }
+
+    public String getTestLabel() {
+        return testLabel;
+    }
+
+    public String getImplementation() {
+        return implementation;
+    }
+
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * @return the metrics in the order they were added
+     */
+    public Map<String, Number> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A map that holds at most a fixed number of entries. Adding a key to a
+ * full cache evicts an entry chosen by the subclass's policy. Entries are
+ * found through a {@link HashMap}; subclasses only maintain the eviction
+ * order. Only {@link #get(Object)} and {@link #put(Object, Object)} count
+ * as accesses, {@link #containsKey(Object)} and iteration do not.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @param <E> the entry type, which carries the policy's bookkeeping
+ */
+public abstract class BoundedCache<K, V, E extends AbstractMap.SimpleEntry<K, V>> extends AbstractMap<K, V> {
+
+    private final int maximumSize;
+    private final Map<K, E> entries;
+
+    /**
+     * @param maximumSize the most entries the cache may hold
+     */
+    protected BoundedCache(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.maximumSize = maximumSize;
+        // the map briefly holds one extra entry before evicting
+        entries = new HashMap<>(JdkHashTables.initialCapacity(maximumSize + 1, 0.75f));
+    }
+
+    protected abstract E createEntry(K key, V value);
+
+    /**
+     * Record a read or update of an entry in the cache.
+     */
+    protected abstract void recordAccess(E entry);
+
+    /**
+     * Record a read of a key that is not in the cache.
+     */
+    protected void recordMiss(final Object key) {
+    }
+
+    /**
+     * Place a new entry in the eviction order, evicting another if the
+     * cache now holds more than {@link #getMaximumSize()} entries.
+     */
+    protected abstract void admit(E entry);
+
+    /**
+     * Remove an entry from the eviction order.
+     */
+    protected abstract void unlink(E entry);
+
+    /**
+     * Remove every entry from the eviction order.
+     */
+    protected abstract void unlinkAll();
+
+    protected void evict(final E entry) {
+        entries.remove(entry.getKey());
+        unlink(entry);
+    }
+
+    public V get(final Object key) {
+        final var entry = entries.get(key);
+        if (entry == null) {
+            recordMiss(key);
+            return null;
+        }
+        recordAccess(entry);
+        return entry.getValue();
+    }
+
+    public boolean containsKey(final Object key) {
+        return entries.containsKey(key);
+    }
+
+    public V put(final K key, final V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        final var existing = entries.get(key);
+        if (existing != null) {
+            final var retval = existing.setValue(value);
+            recordAccess(existing);
+            return retval;
+        }
+        final var entry = createEntry(key, value);
+        entries.put(key, entry);
+        admit(entry);
+        return null;
+    }
+
+    public V remove(final Object key) {
+        final var entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        unlink(entry);
+        return entry.getValue();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        unlinkAll();
+    }
+
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            public Iterator<Entry<K, V>> iterator() {
+                final var iterator = entries.values().iterator();
+                return new Iterator<>() {
+                    private E current;
+
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    public Entry<K, V> next() {
+                        return current = iterator.next();
+                    }
+
+                    public void remove() {
+                        iterator.remove();
+                        unlink(current);
+                        current = null;
+                    }
+                };
+            }
+
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    protected int getMaximumSize() {
+        return maximumSize;
+    }
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Map;
+
+/**
+ * Creates maps that hold at most a fixed number of entries, evicting
+ * others to make room for new ones.
+ */
+public interface BoundedCacheSupplier {
+
+    /**
+     * @param maximumSize the most entries the cache may hold, at least one
+     */
+    <K, V> Map<K, V> createCache(int maximumSize);
+
+    String name();
+
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public enum BoundedCaches implements BoundedCacheSupplier {
+    LRU_LINKED_HASH_MAP() {
+        public <K, V> Map<K, V> createCache(final int maximumSize) {
+            return new LinkedHashMap<K, V>(JdkHashTables.initialCapacity(maximumSize + 1, 0.75f), 0.75f, true) {
+                private static final long serialVersionUID = 1l;
+
+                protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                    return size() > maximumSize;
+                }
+            };
+        }
+    },
+    CLOCK_CACHE() {
+        public <K, V> Map<K, V> createCache(final int maximumSize) {
+            return new ClockCache<>(maximumSize);
+        }
+    },
+    SEGMENTED_LRU_CACHE() {
+        public <K, V> Map<K, V> createCache(final int maximumSize) {
+            return new SegmentedLruCache<>(maximumSize);
+        }
+    },
+    TINY_LFU_CACHE() {
+        public <K, V> Map<K, V> createCache(final int maximumSize) {
+            return new TinyLfuCache<>(maximumSize);
+        }
+    };
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Arrays;
+
+/**
+ * An immutable identifier backed by a byte array. The hash code is
+ * computed once, on construction, as <code>String</code> does, so hashing
+ * is cheap and equality checks on keys with different hash codes are
+ * rejected without comparing the bytes. Keys are ordered by unsigned
+ * lexicographic comparison of their bytes.
+ */
+public final class ByteSequenceKey implements Comparable<ByteSequenceKey> {
+
+    private final byte[] bytes;
+    private final int hashCode;
+
+    /**
+     * @param bytes the identifier, which is copied
+     */
+    public ByteSequenceKey(final byte[] bytes) {
+        this.bytes = bytes.clone();
+        this.hashCode = Arrays.hashCode(this.bytes);
+    }
+
+    public int hashCode() {
+        return hashCode;
+    }
+
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ByteSequenceKey)) {
+            return false;
+        }
+        final var other = (ByteSequenceKey) obj;
+        return hashCode == other.hashCode && Arrays.equals(bytes, other.bytes);
+    }
+
+    public int compareTo(final ByteSequenceKey other) {
+        return Arrays.compareUnsigned(bytes, other.bytes);
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    public String toString() {
+        final var builder = new StringBuilder(bytes.length * 2);
+        for (final var b : bytes) {
+            builder.append(Character.forDigit((b >>> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Replays a trace of reads against a bounded cache, cache-aside style: a
+ * read that misses is followed by a put of the key. Besides the usual
+ * metrics, the number of reads, reads per second, and the fraction of
+ * reads that hit are reported. A cheaper cache that misses more often may
+ * still be the slower choice once the cost of a miss is accounted for.
+ *
+ * @param <K> the cache's key type
+ */
+public abstract class CacheBenchmark<K> extends TimedBenchmark {
+
+    private final BoundedCacheSupplier implementation;
+    private final List<K> keys;
+    private final int[] trace;
+    private final int maximumSize;
+
+    private Map<K, Long> cache;
+    private long hits;
+
+    /**
+     * @param keys the distinct keys that may be read
+     * @param trace the indices of the keys to read, in order, shared
+     *        between implementations so that their hit ratios are comparable
+     * @param maximumSize the capacity of the cache
+     */
+    protected CacheBenchmark(final BoundedCacheSupplier implementation, final String keyLabel,
+            final String testLabel, final List<K> keys, final int[] trace, final int maximumSize) {
+        super(keyLabel, testLabel);
+        Objects.requireNonNull(implementation);
+        Objects.requireNonNull(keys);
+        Objects.requireNonNull(trace);
+        this.implementation = implementation;
+        this.keys = keys;
+        this.trace = trace;
+        this.maximumSize = maximumSize;
+    }
+
+    protected void init() {
+        cache = implementation.createCache(maximumSize);
+        hits = 0;
+    }
+
+    protected void destroy() {
+        cache.clear();
+        cache = null;
+    }
+
+    protected void runBenchmark() {
+        final var cache = this.cache;
+        final var keys = this.keys;
+        final var trace = this.trace;
+        long hits = 0;
+        for (int i = 0; i < trace.length; i++) {
+            final var key = keys.get(trace[i]);
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, (long) i);
+            }
+        }
+        this.hits = hits;
+    }
+
+    protected void addMetrics(final BenchmarkResult result, final long elapsedNanos) {
+        result.put("operations", trace.length)
+            .put("opsPerSecond", elapsedNanos > 0 ? (long) (trace.length * 1_000_000_000.0 / elapsedNanos) : null)
+            .put("hitRatio", trace.length > 0 ? (double) hits / trace.length : null);
+    }
+
+    protected String getImplementationName() {
+        return implementation.name();
+    }
+
+    protected int getKeyCount() {
+        return keys.size();
+    }
+
+    protected int getMaximumSize() {
+        return maximumSize;
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.NavigableMap;
+
+/**
+ * Ordered maps that keep many keys per node to reduce pointer chasing.
+ */
+public enum CacheConsciousSearchTrees implements NavigableMapSupplier {
+    B_PLUS_TREE_MAP() {
+        public NavigableMap<Long, Long> createLongMap() {
+            return new LongBPlusTreeMap<>();
+        }
+
+        public NavigableMap<String, Long> createStringMap() {
+            return new BPlusTreeMap<>();
+        }
+
+        public <K> NavigableMap<K, Long> createMap(final KeyType<K> keyType) {
+            return new BPlusTreeMap<>();
+        }
+
+        public boolean supports(final KeyType<?> keyType) {
+            return true;
+        }
+    },
+    ADAPTIVE_RADIX_TREE_MAP() {
+        public NavigableMap<Long, Long> createLongMap() {
+            return new AdaptiveRadixTreeMap<>(AdaptiveRadixTreeMap.KeyEncoding.LONG);
+        }
+
+        public NavigableMap<String, Long> createStringMap() {
+            return new AdaptiveRadixTreeMap<>(AdaptiveRadixTreeMap.KeyEncoding.STRING);
+        }
+    };
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+
+/**
+ * The CLOCK approximation of LRU. Entries occupy the slots of a ring and a
+ * read only sets the entry's reference bit, so reads never restructure
+ * anything. To evict, the hand sweeps the ring, clearing reference bits,
+ * until it reaches an entry that has not been read since its last pass.
+ * New entries start unreferenced.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ClockCache<K, V> extends BoundedCache<K, V, ClockCache.Slot<K, V>> {
+
+    protected static final class Slot<K, V> extends SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1l;
+
+        private int position;
+        private boolean referenced;
+
+        protected Slot(final K key, final V value) {
+            super(key, value);
+        }
+    }
+
+    private final Slot<K, V>[] ring;
+    private int hand;
+
+    @SuppressWarnings("unchecked")
+    public ClockCache(final int maximumSize) {
+        super(maximumSize);
+        ring = (Slot<K, V>[]) new Slot<?, ?>[maximumSize];
+    }
+
+    protected Slot<K, V> createEntry(final K key, final V value) {
+        return new Slot<>(key, value);
+    }
+
+    protected void recordAccess(final Slot<K, V> slot) {
+        slot.referenced = true;
+    }
+
+    protected void admit(final Slot<K, V> slot) {
+        if (size() > getMaximumSize()) {
+            // the ring is full, give each referenced entry a second chance
+            while (ring[hand].referenced) {
+                ring[hand].referenced = false;
+                hand = advance(hand);
+            }
+            evict(ring[hand]);
+        } else {
+            while (ring[hand] != null) {
+                hand = advance(hand);
+            }
+        }
+        ring[hand] = slot;
+        slot.position = hand;
+        hand = advance(hand);
+    }
+
+    protected void unlink(final Slot<K, V> slot) {
+        ring[slot.position] = null;
+    }
+
+    protected void unlinkAll() {
+        Arrays.fill(ring, null);
+        hand = 0;
+    }
+
+    protected int advance(final int position) {
+        return position + 1 == ring.length ? 0 : position + 1;
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A small composite key, written the way a record would generate it: the
+ * hash code is recomputed from every component on each call and equality
+ * compares every component, including the namespace's characters.
+ */
+public final class CompositeKey implements Comparable<CompositeKey> {
+
+    private static final Comparator<CompositeKey> ORDER = Comparator.comparingInt(CompositeKey::getTenant)
+            .thenComparing(CompositeKey::getNamespace)
+            .thenComparingLong(CompositeKey::getId);
+
+    private final int tenant;
+    private final String namespace;
+    private final long id;
+
+    public CompositeKey(final int tenant, final String namespace, final long id) {
+        Objects.requireNonNull(namespace);
+        this.tenant = tenant;
+        this.namespace = namespace;
+        this.id = id;
+    }
+
+    public int hashCode() {
+        return (31 * (31 * Integer.hashCode(tenant) + namespace.hashCode())) + Long.hashCode(id);
+    }
+
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CompositeKey)) {
+            return false;
+        }
+        final var other = (CompositeKey) obj;
+        return tenant == other.tenant && id == other.id && namespace.equals(other.namespace);
+    }
+
+    public int compareTo(final CompositeKey other) {
+        return ORDER.compare(this, other);
+    }
+
+    public int getTenant() {
+        return tenant;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String toString() {
+        return "CompositeKey[tenant=" + tenant + ", namespace=" + namespace + ", id=" + id + "]";
+    }
+
+}
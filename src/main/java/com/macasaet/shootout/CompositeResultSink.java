@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes every result to several sinks, for example tabular output for
+ * charting and structured output for aggregation.
+ */
+public class CompositeResultSink implements ResultSink {
+
+    private final List<ResultSink> sinks;
+
+    public CompositeResultSink(final ResultSink... sinks) {
+        this.sinks = Arrays.asList(sinks);
+    }
+
+    public void accept(final BenchmarkResult result) throws IOException {
+        for (final var sink : sinks) {
+            sink.accept(result);
+        }
+    }
+
+    public void flush() throws IOException {
+        for (final var sink : sinks) {
+            sink.flush();
+        }
+    }
+
+    public void close() throws IOException {
+        IOException failure = null;
+        for (final var sink : sinks) {
+            try {
+                sink.close();
+            } catch (final IOException ioe) {
+                if (failure == null) {
+                    failure = ioe;
+                } else {
+                    failure.addSuppressed(ioe);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+}
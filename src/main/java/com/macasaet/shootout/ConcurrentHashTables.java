@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public enum ConcurrentHashTables implements ConcurrentMapSupplier {
+    CONCURRENT_HASH_MAP() {
+
+        public Map<Long, Long> createLongMap() {
+            return new ConcurrentHashMap<>();
+        }
+
+        public Map<String, Long> createStringMap() {
+            return new ConcurrentHashMap<>();
+        }
+
+        /**
+         * Note that {@link ConcurrentHashMap} only uses the load factor to
+         * size the initial table, it always resizes at 0.75.
+         */
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return new ConcurrentHashMap<>(expectedSize, loadFactor);
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return new ConcurrentHashMap<>(expectedSize, loadFactor);
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+            return new ConcurrentHashMap<>();
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+            return new ConcurrentHashMap<>(expectedSize, loadFactor);
+        }
+
+    },
+    SYNCHRONIZED_HASH_MAP() {
+
+        public Map<Long, Long> createLongMap() {
+            return Collections.synchronizedMap(new HashMap<>());
+        }
+
+        public Map<String, Long> createStringMap() {
+            return Collections.synchronizedMap(new HashMap<>());
+        }
+
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return Collections.synchronizedMap(
+                    new HashMap<>(JdkHashTables.initialCapacity(expectedSize, loadFactor), loadFactor));
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return Collections.synchronizedMap(
+                    new HashMap<>(JdkHashTables.initialCapacity(expectedSize, loadFactor), loadFactor));
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+            return Collections.synchronizedMap(new HashMap<>());
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+            return Collections.synchronizedMap(
+                    new HashMap<>(JdkHashTables.initialCapacity(expectedSize, loadFactor), loadFactor));
+        }
+
+    },
+    LOCK_GUARDED_HASH_MAP() {
+
+        public Map<Long, Long> createLongMap() {
+            return new LockGuardedMap<>();
+        }
+
+        public Map<String, Long> createStringMap() {
+            return new LockGuardedMap<>();
+        }
+
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return new LockGuardedMap<>(expectedSize, loadFactor);
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return new LockGuardedMap<>(expectedSize, loadFactor);
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+            return new LockGuardedMap<>();
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+            return new LockGuardedMap<>(expectedSize, loadFactor);
+        }
+
+    },
+    STRIPED_LOCK_HASH_MAP() {
+
+        public Map<Long, Long> createLongMap() {
+            return new StripedLockMap<>();
+        }
+
+        public Map<String, Long> createStringMap() {
+            return new StripedLockMap<>();
+        }
+
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return new StripedLockMap<>(expectedSize, loadFactor);
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return new StripedLockMap<>(expectedSize, loadFactor);
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+            return new StripedLockMap<>();
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+            return new StripedLockMap<>(expectedSize, loadFactor);
+        }
+
+    };
+
+    public boolean isSizeable() {
+        return true;
+    }
+
+    public boolean supports(final KeyType<?> keyType) {
+        return true;
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.DynamicTest;
+
+/**
+ * A multi-threaded Map performance test that can be converted to a
+ * {@link DynamicTest}. A shared, pre-populated map is hammered by a fixed
+ * number of threads for a fixed duration. The aggregate throughput is
+ * reported along with how evenly the operations were distributed among the
+ * threads.
+ *
+ * @param <K> the Map's key type
+ */
+public abstract class ConcurrentMapBenchmark<K> {
+
+    private final ConcurrentMapSupplier implementation;
+    private final Supplier<Map<K, Long>> mapSupplier;
+    private final String keyLabel;
+    private final String testLabel;
+    private final List<K> keys;
+    private final int threads;
+    private final long durationMillis;
+
+    private Map<K, Long> map;
+    private volatile boolean running;
+
+    protected ConcurrentMapBenchmark(final ConcurrentMapSupplier implementation,
+            final Supplier<Map<K, Long>> mapSupplier, final String keyLabel, final String testLabel,
+            final List<K> keys, final int threads, final long durationMillis) {
+        Objects.requireNonNull(implementation);
+        Objects.requireNonNull(mapSupplier);
+        Objects.requireNonNull(keyLabel);
+        Objects.requireNonNull(testLabel);
+        Objects.requireNonNull(keys);
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.implementation = implementation;
+        this.mapSupplier = mapSupplier;
+        this.keyLabel = keyLabel;
+        this.testLabel = testLabel;
+        this.keys = keys;
+        this.threads = threads;
+        this.durationMillis = durationMillis;
+    }
+
+    public DynamicTest asDynamicTest() {
+        return dynamicTest(getTestLabel(), this::execute);
+    }
+
+    /**
+     * Create and populate the shared map. If your test requires additional
+     * fixtures, such as pre-generated operation streams, override this
+     * method and release them in {@link #destroy()}.
+     *
+     * @see #destroy()
+     */
+    protected void init() {
+        final var map = getMapSupplier().get();
+        getKeys().forEach(key -> map.put(key, 1l));
+        setMap(map);
+    }
+
+    /**
+     * Release memory to reduce the likelihood that garbage collection
+     * interferes with the next test.
+     *
+     * @see #init()
+     */
+    protected void destroy() {
+        getMap().clear();
+        setMap(null);
+    }
+
+    /**
+     * Prepares the test, starts all the worker threads at once, lets them
+     * run for the configured duration, then reports the results.
+     *
+     * @throws IOException if the results cannot be written
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    protected void execute() throws IOException, InterruptedException {
+        init();
+        // start from a clean heap so that a collection is less likely to
+        // interrupt the workers
+        MemoryProbe.getRetainedHeapBytes();
+
+        final var operations = new long[getThreads()];
+        final var ready = new CountDownLatch(getThreads());
+        final var start = new CountDownLatch(1);
+        final var done = new CountDownLatch(getThreads());
+        final var failure = new AtomicReference<Throwable>();
+        for (int i = 0; i < getThreads(); i++) {
+            final int threadIndex = i;
+            final var worker = createWorker(() -> {
+                try {
+                    ready.countDown();
+                    start.await();
+                    operations[threadIndex] = work(getMap(), threadIndex);
+                } catch (final Throwable t) {
+                    failure.compareAndSet(null, t);
+                    running = false;
+                } finally {
+                    done.countDown();
+                }
+            }, getTestLabel() + "-" + threadIndex);
+            worker.start();
+        }
+        ready.await();
+        running = true;
+        final var gc = GcProbe.start();
+        final var startNanos = System.nanoTime();
+        start.countDown();
+        done.await(getDurationMillis(), TimeUnit.MILLISECONDS);
+        running = false;
+        done.await();
+        final var endNanos = System.nanoTime();
+        gc.end();
+
+        destroy();
+        if (failure.get() != null) {
+            throw new IllegalStateException("Worker failed", failure.get());
+        }
+
+        final var elapsedNanos = endNanos - startNanos;
+        long total = 0;
+        double sumOfSquares = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (final var count : operations) {
+            total += count;
+            sumOfSquares += (double) count * count;
+            min = Math.min(min, count);
+            max = Math.max(max, count);
+        }
+        // Jain's fairness index: 1 when every thread completed the same
+        // number of operations, 1/n when one thread did all the work
+        final var fairness = sumOfSquares == 0 ? 1.0 : (double) total * total / (operations.length * sumOfSquares);
+        final var throughput = total * 1_000_000_000.0 / elapsedNanos;
+
+        final var result = new BenchmarkResult(getKeyLabel(), getTestLabel(), getImplementation().name(), getKeys().size())
+                .put("threads", getThreads())
+                .put("elapsedNanos", elapsedNanos)
+                .put("operations", total)
+                .put("opsPerSecond", Math.round(throughput))
+                .put("fairness", Math.round(fairness * 10_000) / 10_000.0)
+                .put("minThreadOperations", min)
+                .put("maxThreadOperations", max);
+        gc.addMetrics(result);
+        addMetrics(result, elapsedNanos);
+        getResultSink().accept(result);
+    }
+
+    /**
+     * @param task the work of one worker
+     * @param name a name identifying the worker
+     * @return an unstarted daemon platform thread that will run the task,
+     *         override to run the workers on a different kind of thread
+     */
+    protected Thread createWorker(final Runnable task, final String name) {
+        final var worker = new Thread(task, name);
+        worker.setDaemon(true);
+        return worker;
+    }
+
+    /**
+     * Add any test-specific metrics after the common ones. They are
+     * appended to the row in the order they are added.
+     *
+     * @param result the result of the test
+     * @param elapsedNanos the time the workers ran for
+     */
+    protected void addMetrics(final BenchmarkResult result, final long elapsedNanos) {
+    }
+
+    /**
+     * Perform operations against the shared map until {@link #isRunning()}
+     * returns false. Implementations should check the flag periodically
+     * rather than after every operation. This method must not allocate
+     * fixtures; do that in {@link #init()}.
+     *
+     * @param map the shared map under test
+     * @param threadIndex a number in [0, threads) identifying the caller
+     * @return the number of operations completed
+     */
+    protected abstract long work(Map<K, Long> map, int threadIndex);
+
+    protected boolean isRunning() {
+        return running;
+    }
+
+    protected ConcurrentMapSupplier getImplementation() {
+        return implementation;
+    }
+
+    protected Supplier<Map<K, Long>> getMapSupplier() {
+        return mapSupplier;
+    }
+
+    protected String getKeyLabel() {
+        return keyLabel;
+    }
+
+    protected String getTestLabel() {
+        return testLabel;
+    }
+
+    protected List<K> getKeys() {
+        return keys;
+    }
+
+    protected int getThreads() {
+        return threads;
+    }
+
+    protected long getDurationMillis() {
+        return durationMillis;
+    }
+
+    protected Map<K, Long> getMap() {
+        return map;
+    }
+
+    protected void setMap(final Map<K, Long> map) {
+        this.map = map;
+    }
+
+    protected abstract ResultSink getResultSink();
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.DynamicContainer.dynamicContainer;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.TestFactory;
+
+/**
+ * This class benchmarks thread-safe {@link Map} implementations under
+ * several read/write mixes across a range of thread counts. The thread
+ * counts are taken from the comma-separated system property
+ * "shootout.threads" and each test runs for "shootout.durationMillis"
+ * milliseconds.
+ */
+public class ConcurrentMapShootout {
+
+    private final KeyGenerator keyGenerator = new KeyGenerator();
+    private final List<ConcurrentMapSupplier> mapSuppliers;
+
+    private ResultSink resultSink;
+
+    /**
+     * @param mapSuppliers the thread-safe {@link Map} implementations to benchmark
+     */
+    public ConcurrentMapShootout(final List<ConcurrentMapSupplier> mapSuppliers) {
+        Objects.requireNonNull(mapSuppliers);
+        this.mapSuppliers = mapSuppliers;
+    }
+
+    public ConcurrentMapShootout() {
+        this(Stream.concat(Arrays.stream(ConcurrentHashTables.values()),
+                Arrays.stream(ConcurrentSearchTrees.values()))
+                .collect(Collectors.toList()));
+    }
+
+    @TestFactory
+    public Stream<DynamicNode> benchmarkConcurrentMapImplementations() {
+        final int smallStringLength = 16;
+        final int size = 1_000_000;
+
+        return Stream.of(
+                dynamicContainer("Small String Tests",
+                        Stream.of(createTests("smallString",
+                                keyGenerator.generateStringKeys(smallStringLength, size),
+                                implementation -> implementation::createStringMap))),
+                dynamicContainer("Integer Tests",
+                        Stream.of(createTests("int64",
+                                keyGenerator.generateIntegerKeys(Long.MIN_VALUE, size),
+                                implementation -> implementation::createLongMap)))
+        );
+    }
+
+    protected <K> DynamicContainer createTests(final String keyLabel, final List<K> keys,
+            final Function<ConcurrentMapSupplier, Supplier<Map<K, Long>>> mapSupplier) {
+        return dynamicContainer(keys.size() + " keys",
+                getMapSuppliers().stream()
+                .map(implementation -> dynamicContainer(implementation.name(),
+                        Arrays.stream(getThreadCounts())
+                        .mapToObj(threads -> dynamicContainer(threads + " threads",
+                                Stream.of(new ReadWriteMix<>(implementation, mapSupplier.apply(implementation), keyLabel, "readOnly", keys, threads, 0),
+                                        new ReadWriteMix<>(implementation, mapSupplier.apply(implementation), keyLabel, "readMostly", keys, threads, 5),
+                                        new ReadWriteMix<>(implementation, mapSupplier.apply(implementation), keyLabel, "balanced", keys, threads, 50),
+                                        new ReadWriteMix<>(implementation, mapSupplier.apply(implementation), keyLabel, "writeHeavy", keys, threads, 95))
+                                .map(ConcurrentMapBenchmark::asDynamicTest)))))
+        );
+    }
+
+    /**
+     * @return the thread counts to sweep, 1 through 32 by default
+     */
+    protected int[] getThreadCounts() {
+        return Arrays.stream(System.getProperty("shootout.threads", "1,2,4,8,16,32").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    protected long getDurationMillis() {
+        return Long.getLong("shootout.durationMillis", 2_000l);
+    }
+
+    /**
+     * Each thread cycles through its own pre-generated stream of operations
+     * on uniformly selected keys. A write replaces the value of an existing
+     * key so the map's size and the read hit ratio stay constant.
+     */
+    protected class ReadWriteMix<K> extends ConcurrentMapBenchmark<K> {
+
+        private static final int STREAM_LENGTH = 1 << 16;
+        private static final int BATCH_SIZE = 64;
+
+        private final int writePercentage;
+
+        private int[][] streams;
+        private long[] checksums;
+
+        /**
+         * @param writePercentage the percentage of operations, between 0 and
+         *        100, that are writes
+         */
+        public ReadWriteMix(final ConcurrentMapSupplier implementation, final Supplier<Map<K, Long>> mapSupplier,
+                final String keyLabel, final String testLabel, final List<K> keys, final int threads,
+                final int writePercentage) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys, threads, ConcurrentMapShootout.this.getDurationMillis());
+            if (writePercentage < 0 || writePercentage > 100) {
+                throw new IllegalArgumentException("writePercentage must be between 0 and 100");
+            }
+            this.writePercentage = writePercentage;
+        }
+
+        protected void init() {
+            super.init();
+            final var random = keyGenerator.split();
+            final var numKeys = getKeys().size();
+            streams = new int[getThreads()][STREAM_LENGTH];
+            for (final var stream : streams) {
+                for (int i = stream.length; --i >= 0;) {
+                    final int keyIndex = random.nextInt(numKeys);
+                    // writes are encoded as the complement of the key index
+                    stream[i] = random.nextInt(100) < writePercentage ? ~keyIndex : keyIndex;
+                }
+            }
+            // pad to avoid false sharing between neighbouring threads
+            checksums = new long[getThreads() * 16];
+        }
+
+        protected void destroy() {
+            streams = null;
+            checksums = null;
+            super.destroy();
+        }
+
+        protected long work(final Map<K, Long> map, final int threadIndex) {
+            final var keys = getKeys();
+            final var stream = streams[threadIndex];
+            long checksum = 0;
+            long operations = 0;
+            int cursor = 0;
+            while (isRunning()) {
+                for (int i = BATCH_SIZE; --i >= 0;) {
+                    final int operation = stream[cursor];
+                    if (operation < 0) {
+                        // a cached Long, so that writes do not allocate
+                        map.put(keys.get(~operation), 1l);
+                    } else {
+                        checksum += map.get(keys.get(operation));
+                    }
+                    cursor = (cursor + 1) & (STREAM_LENGTH - 1);
+                }
+                operations += BATCH_SIZE;
+            }
+            checksums[threadIndex * 16] = checksum;
+            return operations;
+        }
+
+        protected ResultSink getResultSink() {
+            return ConcurrentMapShootout.this.getResultSink();
+        }
+    }
+
+    protected List<ConcurrentMapSupplier> getMapSuppliers() {
+        return mapSuppliers;
+    }
+
+    /**
+     * @return where results are written, tab-separated values on stdout
+     *         unless otherwise specified
+     */
+    protected ResultSink getResultSink() {
+        if (resultSink == null) {
+            setResultSink(new TsvResultSink(new PrintWriter(System.out), true));
+        }
+        return resultSink;
+    }
+
+    protected void setResultSink(final ResultSink resultSink) {
+        Objects.requireNonNull(resultSink);
+        this.resultSink = resultSink;
+    }
+
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public enum ConcurrentSearchTrees implements ConcurrentMapSupplier, NavigableMapSupplier {
+    CONCURRENT_SKIP_LIST_MAP() {
+
+        public NavigableMap<Long, Long> createLongMap() {
+            return new ConcurrentSkipListMap<>();
+        }
+
+        public NavigableMap<String, Long> createStringMap() {
+            return new ConcurrentSkipListMap<>();
+        }
+
+        public <K> NavigableMap<K, Long> createMap(final KeyType<K> keyType) {
+            return new ConcurrentSkipListMap<>();
+        }
+
+    };
+
+    public boolean supports(final KeyType<?> keyType) {
+        return true;
+    }
+}
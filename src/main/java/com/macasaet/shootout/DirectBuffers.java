@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocates and explicitly frees direct {@link ByteBuffer}s. Direct buffers
+ * are normally only released once they become unreachable and the garbage
+ * collector runs their cleaner, which means off-heap maps would otherwise
+ * hold on to native memory long after they are cleared.
+ */
+public final class DirectBuffers {
+
+    private static final MethodHandle invokeCleaner = findCleaner();
+
+    private DirectBuffers() {
+    }
+
+    /**
+     * @param capacity the size of the buffer in bytes
+     * @return a new, zero-filled, direct buffer in native byte order
+     */
+    public static ByteBuffer allocate(final int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Release the native memory backing a buffer. The buffer must not be
+     * used afterwards. If the JVM does not permit explicit release, the
+     * memory will be released when the buffer is garbage collected.
+     *
+     * @param buffer a buffer obtained from {@link #allocate(int)}
+     */
+    public static void free(final ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || invokeCleaner == null) {
+            return;
+        }
+        try {
+            invokeCleaner.invokeExact(buffer);
+        } catch (final RuntimeException | Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t.getMessage(), t);
+        }
+    }
+
+    private static MethodHandle findCleaner() {
+        try {
+            final var unsafeClass = Class.forName("sun.misc.Unsafe");
+            final var field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            final var unsafe = field.get(null);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(unsafe);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Key sets and other read-only fixtures shared by the tests of a
+ * {@link MapShootout}. Each fixture is identified by a name and a number
+ * of keys, and is created the first time it is requested. It is kept
+ * until every fixture of that size is released, typically when the
+ * container of tests for that size is closed, so that fixtures for other
+ * sizes do not occupy the heap while a test is measured.
+ *
+ * <p>Fixtures are shared among implementations, so they must not be
+ * modified. Lists should be wrapped with
+ * {@link java.util.Collections#unmodifiableList(java.util.List)}.</p>
+ */
+public class FixtureCache {
+
+    private final Map<Long, Map<String, Object>> fixturesBySize = new HashMap<>();
+
+    /**
+     * @param name identifies the fixture among those of the same size
+     * @param size the number of keys in the fixture
+     * @param factory creates the fixture if it is not cached, it may
+     *        request other fixtures
+     * @return the cached fixture
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(final String name, final long size, final Supplier<T> factory) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(factory);
+        final var cached = fixturesBySize.get(size);
+        if (cached != null && cached.containsKey(name)) {
+            return (T) cached.get(name);
+        }
+        final var retval = Objects.requireNonNull(factory.get());
+        fixturesBySize.computeIfAbsent(size, key -> new HashMap<>()).put(name, retval);
+        return retval;
+    }
+
+    /**
+     * Release every fixture with the given number of keys.
+     */
+    public synchronized void release(final long size) {
+        fixturesBySize.remove(size);
+    }
+
+    /**
+     * @return the number of fixtures currently held
+     */
+    public synchronized int size() {
+        return fixturesBySize.values().stream().mapToInt(Map::size).sum();
+    }
+
+}
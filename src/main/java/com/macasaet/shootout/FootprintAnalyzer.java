@@ -0,0 +1,352 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Measures the memory a data structure holds by walking its object graph
+ * and summing the size of every object reachable from it. Unlike the
+ * difference between two heap readings, the result does not depend on
+ * when the garbage collector happens to run.
+ *
+ * <p>Object sizes are computed from the header size, reference size, and
+ * alignment of the running JVM, so the same structure measures differently
+ * with and without compressed oops. Fields are assumed to be packed densely
+ * across the class hierarchy, as they are on JDK 15 and later, so the
+ * result may be slightly low for classes with gaps between fields.</p>
+ *
+ * <p>The walk reads private fields of JDK classes, which requires the JVM
+ * to be started with, for example,
+ * <code>--add-opens java.base/java.util=ALL-UNNAMED</code> for each
+ * package involved. Classes, class loaders, threads, enum constants, and
+ * references (such as the cleaners of direct buffers) are shared with the
+ * rest of the JVM and are not counted.</p>
+ */
+public final class FootprintAnalyzer {
+
+    private static final boolean compressedOops = getBooleanOption("UseCompressedOops", true);
+    private static final boolean compressedClassPointers = getBooleanOption("UseCompressedClassPointers", compressedOops);
+    private static final int alignment = getIntOption("ObjectAlignmentInBytes", 8);
+    private static final int referenceSize = compressedOops ? 4 : 8;
+    private static final int headerSize = compressedClassPointers ? 12 : 16;
+    private static final int arrayHeaderSize = compressedClassPointers ? 16 : 24;
+
+    private static final List<String> openedPackages = List.of("java.lang", "java.util", "java.util.concurrent",
+            "java.util.concurrent.atomic", "java.util.concurrent.locks", "java.nio");
+
+    private static final Map<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<>();
+    private static final Field directBufferAttachment = findDirectBufferAttachment();
+
+    private FootprintAnalyzer() {
+    }
+
+    /**
+     * Measure everything reachable from a data structure. Objects for
+     * which <code>isKey</code> or <code>isValue</code> is true, along with
+     * everything reachable only through them, are counted as keys or
+     * values. The remainder is split into arrays, which are counted as the
+     * table, and other objects, which are counted as nodes.
+     *
+     * @param root the data structure to measure
+     * @param isKey identifies the key objects stored in the structure
+     * @param isValue identifies the value objects stored in the structure
+     * @return the memory held by <code>root</code>
+     * @throws IllegalStateException if a field could not be read because
+     *         its package is not open to this module
+     */
+    public static Footprint measure(final Object root, final Predicate<Object> isKey, final Predicate<Object> isValue) {
+        Objects.requireNonNull(root);
+        Objects.requireNonNull(isKey);
+        Objects.requireNonNull(isValue);
+        final var retval = new Footprint();
+        final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final var pending = new ArrayDeque<Object>();
+        final var categories = new ArrayDeque<Category>();
+        pending.push(root);
+        categories.push(Category.STRUCTURE);
+        while (!pending.isEmpty()) {
+            final var object = pending.pop();
+            var category = categories.pop();
+            if (isShared(object) || !visited.add(object)) {
+                continue;
+            }
+            if (category == Category.STRUCTURE) {
+                if (isKey.test(object)) {
+                    category = Category.KEY;
+                } else if (isValue.test(object)) {
+                    category = Category.VALUE;
+                }
+            }
+            final var type = object.getClass();
+            if (type.isArray()) {
+                final var length = Array.getLength(object);
+                retval.add(category, true, align(arrayHeaderSize + (long) length * sizeOf(type.getComponentType())));
+                if (!type.getComponentType().isPrimitive()) {
+                    for (final var element : (Object[]) object) {
+                        if (element != null) {
+                            pending.push(element);
+                            categories.push(category);
+                        }
+                    }
+                }
+                continue;
+            }
+            final var layout = layouts.computeIfAbsent(type, ClassLayout::new);
+            retval.add(category, false, layout.getSize());
+            if (object instanceof ByteBuffer && ((ByteBuffer) object).isDirect() && !isView((ByteBuffer) object)) {
+                retval.nativeBytes += ((ByteBuffer) object).capacity();
+            }
+            for (final var field : layout.getReferenceFields()) {
+                final var child = read(field, object);
+                if (child != null) {
+                    pending.push(child);
+                    categories.push(category);
+                }
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * @return the JVM options that open the packages of the JDK maps and
+     *         buffers to the analyzer
+     */
+    public static List<String> getJvmOptions() {
+        return openedPackages.stream()
+                .flatMap(name -> Stream.of("--add-opens", "java.base/" + name + "=ALL-UNNAMED"))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    private static boolean isShared(final Object object) {
+        return object instanceof Class
+                || object instanceof ClassLoader
+                || object instanceof Thread
+                || object instanceof Reference
+                || object instanceof Enum;
+    }
+
+    private static boolean isView(final ByteBuffer buffer) {
+        // slices and duplicates refer to the buffer that owns the memory
+        return directBufferAttachment != null && read(directBufferAttachment, buffer) != null;
+    }
+
+    private static Object read(final Field field, final Object object) {
+        try {
+            return field.get(object);
+        } catch (final IllegalAccessException iae) {
+            throw new IllegalStateException(iae.getMessage(), iae);
+        }
+    }
+
+    private static long align(final long size) {
+        return (size + alignment - 1) / alignment * alignment;
+    }
+
+    private static int sizeOf(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return referenceSize;
+    }
+
+    private static Field findDirectBufferAttachment() {
+        try {
+            final var field = Class.forName("java.nio.DirectByteBuffer").getDeclaredField("att");
+            return field.trySetAccessible() ? field : null;
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean getBooleanOption(final String name, final boolean defaultValue) {
+        final var value = getOption(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    private static int getIntOption(final String name, final int defaultValue) {
+        final var value = getOption(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static String getOption(final String name) {
+        try {
+            return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).getVMOption(name).getValue();
+        } catch (final RuntimeException e) {
+            // not a HotSpot JVM or the option does not exist
+            return null;
+        }
+    }
+
+    private enum Category {
+        STRUCTURE,
+        KEY,
+        VALUE;
+    }
+
+    /**
+     * The instance size and reference fields of a class.
+     */
+    private static class ClassLayout {
+
+        private final long size;
+        private final List<Field> referenceFields = new ArrayList<>();
+
+        public ClassLayout(final Class<?> type) {
+            long fieldBytes = 0;
+            for (var current = type; current != null; current = current.getSuperclass()) {
+                for (final var field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    fieldBytes += sizeOf(field.getType());
+                    if (!field.getType().isPrimitive()) {
+                        if (!field.trySetAccessible()) {
+                            throw new IllegalStateException("Cannot read " + field + ", run with --add-opens "
+                                    + current.getModule().getName() + "/" + current.getPackageName()
+                                    + "=ALL-UNNAMED");
+                        }
+                        referenceFields.add(field);
+                    }
+                }
+            }
+            size = align(headerSize + fieldBytes);
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public List<Field> getReferenceFields() {
+            return referenceFields;
+        }
+    }
+
+    /**
+     * The bytes held by a data structure, by category.
+     */
+    public static class Footprint {
+
+        private long tableBytes;
+        private long nodeBytes;
+        private long keyBytes;
+        private long valueBytes;
+        private long nativeBytes;
+
+        private void add(final Category category, final boolean array, final long bytes) {
+            switch (category) {
+            case KEY:
+                keyBytes += bytes;
+                break;
+            case VALUE:
+                valueBytes += bytes;
+                break;
+            default:
+                if (array) {
+                    tableBytes += bytes;
+                } else {
+                    nodeBytes += bytes;
+                }
+            }
+        }
+
+        /**
+         * @return the bytes in arrays that belong to the structure itself,
+         *         such as hash tables and primitive key or value arrays
+         */
+        public long getTableBytes() {
+            return tableBytes;
+        }
+
+        /**
+         * @return the bytes in non-array objects that belong to the
+         *         structure itself, such as entries and tree nodes
+         */
+        public long getNodeBytes() {
+            return nodeBytes;
+        }
+
+        /**
+         * @return the bytes in key objects and anything only they refer to
+         */
+        public long getKeyBytes() {
+            return keyBytes;
+        }
+
+        /**
+         * @return the bytes in value objects and anything only they refer to
+         */
+        public long getValueBytes() {
+            return valueBytes;
+        }
+
+        /**
+         * @return the capacity of the direct buffers the structure owns
+         */
+        public long getNativeBytes() {
+            return nativeBytes;
+        }
+
+        /**
+         * @return the heap and native bytes held by the structure
+         */
+        public long getTotalBytes() {
+            return tableBytes + nodeBytes + keyBytes + valueBytes + nativeBytes;
+        }
+
+        /**
+         * Add the bytes in each category and the total bytes per entry to
+         * a result.
+         *
+         * @param result the result of the test that populated the structure
+         * @param entries the number of entries in the structure
+         */
+        public void addMetrics(final BenchmarkResult result, final int entries) {
+            result.put("tableBytes", getTableBytes())
+                    .put("nodeBytes", getNodeBytes())
+                    .put("keyBytes", getKeyBytes())
+                    .put("valueBytes", getValueBytes())
+                    .put("nativeBytes", getNativeBytes())
+                    .put("bytesPerEntry", entries > 0 ? (double) getTotalBytes() / entries : null);
+        }
+    }
+
+}
@@ -0,0 +1,322 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DynamicContainer;
+import org.junit.jupiter.api.DynamicNode;
+import org.junit.jupiter.api.DynamicTest;
+import org.opentest4j.TestAbortedException;
+
+/**
+ * Runs every implementation &times; key family &times; size cell of the
+ * {@link MapShootout} in a fresh JVM, once for every combination of JVM
+ * options in a matrix, so that neither JIT profiles nor heap state carry
+ * over from one implementation to the next. The children's results are
+ * merged into <code>forked-data.tsv</code> and
+ * <code>forked-data.jsonl</code>, with the JVM options appended to the
+ * implementation name, e.g. <code>JDK_HASH_MAP (-XX:+UseG1GC
+ * -Xmx4g)</code>.
+ *
+ * <p>The matrix is read from the system property "shootout.jvmMatrix".
+ * Dimensions are separated by semicolons and the alternatives within a
+ * dimension by commas. Every combination of one alternative from each
+ * dimension is run. An alternative may hold several options separated by
+ * spaces, e.g. <code>-XX:+UnlockExperimentalVMOptions -XX:+UseZGC</code>,
+ * which ZGC needs before JDK 15 and so is left out of the default. The
+ * cells can be restricted with the comma-separated system properties
+ * "shootout.implementations", "shootout.keyFamilies", and
+ * "shootout.sizes". Any other "shootout.*" system property, such as
+ * the seed, is passed on to the children.</p>
+ *
+ * <p>The exit status is 1 if any child failed, the results of the others
+ * are still merged.</p>
+ */
+public class ForkedShootout {
+
+    private static final String CELL_ARGUMENT = "--cell";
+
+    private static final Map<String, MapSupplier> mapSuppliers = Stream.of(JdkHashTables.values(),
+            JdkSearchTrees.values(), OffHeapHashTables.values(), OpenAddressingHashTables.values(),
+            ConcurrentHashTables.values(), ConcurrentSearchTrees.values(), CacheConsciousSearchTrees.values())
+            .flatMap(Arrays::stream)
+            .collect(Collectors.toMap(MapSupplier::name, Function.identity(), (x, y) -> x, LinkedHashMap::new));
+    private static final Map<String, PrimitiveMapSupplier> primitiveMapSuppliers = Arrays
+            .stream(PrimitiveHashTables.values())
+            .collect(Collectors.toMap(PrimitiveMapSupplier::name, Function.identity(), (x, y) -> x, LinkedHashMap::new));
+
+    public static void main(final String... arguments) throws Throwable {
+        if (arguments.length > 0 && CELL_ARGUMENT.equals(arguments[0])) {
+            if (arguments.length != 5) {
+                throw new IllegalArgumentException(
+                        "Usage: " + CELL_ARGUMENT + " <implementation> <keyFamily> <size> <configuration>");
+            }
+            runCell(arguments[1], arguments[2], Integer.parseInt(arguments[3]), arguments[4]);
+            return;
+        }
+        final var output = Paths.get(System.getProperty("shootout.output", "forked-data.tsv"));
+        final var jsonOutput = Paths.get(System.getProperty("shootout.jsonOutput", "forked-data.jsonl"));
+        final var failures = new ForkedShootout().run(output, jsonOutput);
+        if (!failures.isEmpty()) {
+            System.err.println(failures.size() + " cells failed:");
+            failures.forEach(failure -> System.err.println("  " + failure));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run every cell with every combination of JVM options, one child JVM
+     * at a time.
+     *
+     * @param output where to write the merged tab-separated values
+     * @param jsonOutput where to write the merged JSON lines
+     * @return a description of each cell whose JVM failed
+     * @throws IOException if the results cannot be merged
+     * @throws InterruptedException if interrupted while waiting for a child
+     */
+    public List<String> run(final Path output, final Path jsonOutput) throws IOException, InterruptedException {
+        Files.write(output, new byte[0]);
+        Files.write(jsonOutput, new byte[0]);
+        final var failures = new ArrayList<String>();
+        final var cellOutput = Files.createTempFile("forked-shootout", ".tsv");
+        final var cellJsonOutput = Files.createTempFile("forked-shootout", ".jsonl");
+        try {
+            for (final var options : getJvmMatrix()) {
+                final var configuration = String.join(" ", options);
+                for (final var implementation : getImplementations()) {
+                    for (final var keyFamily : getKeyFamilies()) {
+                        if (!isSupported(implementation, keyFamily)) {
+                            continue;
+                        }
+                        for (final var size : getSizes()) {
+                            final var command = new ArrayList<String>();
+                            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+                            command.addAll(options);
+                            // always compact fully so that retained heap
+                            // measurements are not inflated by dead objects
+                            command.add("-XX:MarkSweepDeadRatio=0");
+                            command.addAll(FootprintAnalyzer.getJvmOptions());
+                            command.addAll(getForwardedProperties());
+                            command.add("-Dshootout.output=" + cellOutput);
+                            command.add("-Dshootout.jsonOutput=" + cellJsonOutput);
+                            command.add("-classpath");
+                            command.add(System.getProperty("java.class.path"));
+                            command.add(ForkedShootout.class.getName());
+                            command.add(CELL_ARGUMENT);
+                            command.add(implementation);
+                            command.add(keyFamily);
+                            command.add(String.valueOf(size));
+                            command.add(configuration);
+
+                            final var cell = implementation + " " + keyFamily + " " + size + " (" + configuration + ")";
+                            System.out.println("Running " + cell);
+                            final int exitStatus = new ProcessBuilder(command).inheritIO().start().waitFor();
+                            if (exitStatus != 0) {
+                                failures.add(cell + " exited with status " + exitStatus);
+                                continue;
+                            }
+                            Files.write(output, Files.readAllBytes(cellOutput), StandardOpenOption.APPEND);
+                            Files.write(jsonOutput, Files.readAllBytes(cellJsonOutput), StandardOpenOption.APPEND);
+                        }
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(cellOutput);
+            Files.deleteIfExists(cellJsonOutput);
+        }
+        return failures;
+    }
+
+    /**
+     * Run a single cell in this JVM and write its results to the files
+     * named by the "shootout.output" and "shootout.jsonOutput" system
+     * properties.
+     *
+     * @param configuration the JVM options, appended to the implementation name
+     */
+    protected static void runCell(final String implementation, final String keyFamily, final int size,
+            final String configuration) throws Throwable {
+        final var shootout = mapSuppliers.containsKey(implementation)
+                ? new MapShootout(Collections.singletonList(mapSuppliers.get(implementation)))
+                : new MapShootout(Collections.emptyList(),
+                        Collections.singletonList(getSupplier(primitiveMapSuppliers, implementation)));
+        final var tsv = new TsvResultSink(new FileWriter(System.getProperty("shootout.output"), UTF_8));
+        final var jsonLines = new JsonLinesResultSink(new FileWriter(System.getProperty("shootout.jsonOutput"), UTF_8),
+                RunMetadata.capture());
+        final var sink = new CompositeResultSink(tsv, jsonLines);
+        // owns the composite, so that closing it closes the files once
+        final var relabelling = new ResultSink() {
+            public void accept(final BenchmarkResult result) throws IOException {
+                final var relabelled = new BenchmarkResult(result.getKeyLabel(), result.getTestLabel(),
+                        result.getImplementation() + " (" + configuration + ")", result.getKeyCount());
+                result.getMetrics().forEach(relabelled::put);
+                sink.accept(relabelled);
+            }
+
+            public void flush() throws IOException {
+                sink.flush();
+            }
+
+            public void close() throws IOException {
+                sink.close();
+            }
+        };
+        try (relabelling) {
+            shootout.setResultSink(relabelling);
+            execute(shootout.createTests(keyFamily, size));
+        }
+    }
+
+    protected static void execute(final DynamicNode node) throws Throwable {
+        if (node instanceof DynamicContainer) {
+            // close the children, as JUnit does, to release their fixtures
+            try (var children = ((DynamicContainer) node).getChildren()) {
+                for (final var i = children.iterator(); i.hasNext();) {
+                    execute(i.next());
+                }
+            }
+        } else {
+            try {
+                ((DynamicTest) node).getExecutable().execute();
+            } catch (final TestAbortedException skipped) {
+                // as JUnit does, e.g. when a map cannot be inspected
+            }
+        }
+    }
+
+    /**
+     * @return whether the implementation can be benchmarked with the key family
+     */
+    protected boolean isSupported(final String implementation, final String keyFamily) {
+        if (primitiveMapSuppliers.containsKey(implementation)) {
+            return "int64".equals(keyFamily) || MapShootout.LOW_ENTROPY_INTEGER_KEY_FAMILIES.contains(keyFamily);
+        }
+        final var supplier = getSupplier(mapSuppliers, implementation);
+        return Stream.of(KeyType.RANDOM_UUID, KeyType.BYTE_SEQUENCE, KeyType.COMPOSITE)
+                .filter(keyType -> keyType.getLabel().equals(keyFamily))
+                .findFirst()
+                .map(supplier::supports)
+                .orElse(true);
+    }
+
+    /**
+     * @return every combination of one alternative from each dimension of
+     *         the "shootout.jvmMatrix" system property
+     */
+    protected List<List<String>> getJvmMatrix() {
+        List<List<String>> retval = Collections.singletonList(Collections.emptyList());
+        final var matrix = System.getProperty("shootout.jvmMatrix",
+                "-XX:+UseG1GC,-XX:+UseParallelGC;-Xmx4g;-XX:+UseCompressedOops,-XX:-UseCompressedOops");
+        for (final var dimension : matrix.split(";")) {
+            final var alternatives = split(dimension);
+            if (alternatives.isEmpty()) {
+                continue;
+            }
+            final var product = new ArrayList<List<String>>();
+            for (final var prefix : retval) {
+                for (final var alternative : alternatives) {
+                    final var options = new ArrayList<>(prefix);
+                    options.addAll(Arrays.asList(alternative.split("\\s+")));
+                    product.add(options);
+                }
+            }
+            retval = product;
+        }
+        return retval;
+    }
+
+    /**
+     * @return the implementations named by the "shootout.implementations"
+     *         system property or, by default, those of {@link MapShootout#MapShootout()}
+     */
+    protected List<String> getImplementations() {
+        final var retval = split(System.getProperty("shootout.implementations", ""));
+        if (!retval.isEmpty()) {
+            for (final var implementation : retval) {
+                if (!mapSuppliers.containsKey(implementation) && !primitiveMapSuppliers.containsKey(implementation)) {
+                    throw new IllegalArgumentException("Unknown implementation: " + implementation);
+                }
+            }
+            return retval;
+        }
+        final var defaults = new MapShootout();
+        return Stream.concat(defaults.getMapSuppliers().stream().map(MapSupplier::name),
+                defaults.getPrimitiveMapSuppliers().stream().map(PrimitiveMapSupplier::name))
+                .collect(Collectors.toList());
+    }
+
+    protected List<String> getKeyFamilies() {
+        final var retval = split(System.getProperty("shootout.keyFamilies", ""));
+        return retval.isEmpty()
+                ? Arrays.asList("int64", "smallString", "largeString", "uuid", "byteSequence", "composite")
+                : retval;
+    }
+
+    protected List<Integer> getSizes() {
+        return split(System.getProperty("shootout.sizes", "200000,1000000,3000000"))
+                .stream()
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the "shootout.*" system properties that configure the
+     *         benchmarks themselves, as JVM options
+     */
+    protected List<String> getForwardedProperties() {
+        return System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("shootout."))
+                .filter(name -> !Arrays.asList("shootout.output", "shootout.jsonOutput", "shootout.jvmMatrix",
+                        "shootout.implementations", "shootout.keyFamilies", "shootout.sizes").contains(name))
+                .sorted()
+                .map(name -> "-D" + name + "=" + System.getProperty(name))
+                .collect(Collectors.toList());
+    }
+
+    protected static List<String> split(final String list) {
+        return Arrays.stream(list.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    protected static <S> S getSupplier(final Map<String, S> suppliers, final String name) {
+        final var retval = suppliers.get(name);
+        if (retval == null) {
+            throw new IllegalArgumentException("Unknown implementation: " + name);
+        }
+        return retval;
+    }
+
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Garbage collection measurements for a region of code. The number of
+ * collections is read from the {@link GarbageCollectorMXBean}s when the
+ * region starts and ends. Pause time and promotion are taken from the
+ * collectors' notifications, which are delivered asynchronously, so they
+ * are only complete once every collection in the region has been
+ * reported.
+ *
+ * <p>The collectors report durations in milliseconds, so a region with
+ * only sub-millisecond pauses may report a pause time of zero. Collectors
+ * whose name ends in "Cycles", such as ZGC's and Shenandoah's, time
+ * mostly concurrent work, so they are counted but not included in the
+ * pause time.</p>
+ */
+public final class GcProbe {
+
+    private static final long NOTIFICATION_TIMEOUT_MILLIS = 1_000;
+
+    private static final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private static final Set<String> oldGenerationPools = ManagementFactory.getMemoryPoolMXBeans()
+            .stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .map(MemoryPoolMXBean::getName)
+            .filter(name -> name.endsWith("Old Gen") || name.equals("Tenured Gen"))
+            .collect(Collectors.toUnmodifiableSet());
+    private static final boolean[] notifying = new boolean[collectors.size()];
+    private static final List<Region> regions = new CopyOnWriteArrayList<>();
+
+    static {
+        for (int i = collectors.size(); --i >= 0;) {
+            final var collector = collectors.get(i);
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(GcProbe::handleNotification, null, null);
+                notifying[i] = true;
+            }
+        }
+    }
+
+    private GcProbe() {
+    }
+
+    /**
+     * @return a new region that starts now, it must be ended with
+     *         {@link Region#end()}
+     */
+    public static Region start() {
+        final var retval = new Region(getCollectionCounts());
+        regions.add(retval);
+        return retval;
+    }
+
+    private static long[] getCollectionCounts() {
+        final var retval = new long[collectors.size()];
+        for (int i = retval.length; --i >= 0;) {
+            retval[i] = collectors.get(i).getCollectionCount();
+        }
+        return retval;
+    }
+
+    private static void handleNotification(final Notification notification, final Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        final var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        for (int i = collectors.size(); --i >= 0;) {
+            if (collectors.get(i).getName().equals(info.getGcName())) {
+                for (final var region : regions) {
+                    region.record(i, info);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * The collections that started after {@link GcProbe#start()} and had
+     * completed by {@link #end()}.
+     */
+    public static class Region {
+
+        private final long[] startCounts;
+        private long[] endCounts;
+        private long expectedNotifications = -1;
+        private long notifications;
+        private long pauseMillis;
+        private long promotedBytes;
+
+        private Region(final long[] startCounts) {
+            this.startCounts = startCounts;
+        }
+
+        /**
+         * Mark the end of the region. This does not wait for the
+         * collectors' notifications.
+         */
+        public void end() {
+            final var counts = getCollectionCounts();
+            long expected = 0;
+            for (int i = counts.length; --i >= 0;) {
+                if (notifying[i] && counts[i] > 0) {
+                    expected += counts[i] - startCounts[i];
+                }
+            }
+            synchronized (this) {
+                endCounts = counts;
+                expectedNotifications = expected;
+            }
+        }
+
+        /**
+         * @return the number of collections in the region or -1 if the
+         *         collectors do not count them
+         */
+        public long getCollections() {
+            if (endCounts == null) {
+                throw new IllegalStateException("The region has not ended");
+            }
+            long retval = -1;
+            for (int i = endCounts.length; --i >= 0;) {
+                if (endCounts[i] >= 0) {
+                    retval = Math.max(retval, 0) + endCounts[i] - startCounts[i];
+                }
+            }
+            return retval;
+        }
+
+        /**
+         * @return the total duration of the collections' pauses
+         * @throws InterruptedException if interrupted while waiting for notifications
+         */
+        public synchronized long getPauseNanos() throws InterruptedException {
+            awaitNotifications();
+            return pauseMillis * 1_000_000l;
+        }
+
+        /**
+         * @return the growth of the old generation during young
+         *         collections or -1 if the heap is not generational
+         * @throws InterruptedException if interrupted while waiting for notifications
+         */
+        public synchronized long getPromotedBytes() throws InterruptedException {
+            awaitNotifications();
+            return oldGenerationPools.isEmpty() ? -1l : promotedBytes;
+        }
+
+        /**
+         * Add the number of collections, their pause time, the bytes
+         * promoted, and whether any collection overlapped the region (1 if
+         * so, 0 otherwise) to a result.
+         *
+         * @param result the result of the measured region
+         * @throws InterruptedException if interrupted while waiting for notifications
+         */
+        public void addMetrics(final BenchmarkResult result) throws InterruptedException {
+            final var collections = getCollections();
+            final var promoted = getPromotedBytes();
+            result.put("gcCount", collections < 0 ? null : collections)
+                    .put("gcPauseNanos", getPauseNanos())
+                    .put("promotedBytes", promoted < 0 ? null : promoted)
+                    .put("gcOverlap", collections < 0 ? null : collections > 0 ? 1 : 0);
+        }
+
+        private synchronized void awaitNotifications() throws InterruptedException {
+            if (endCounts == null) {
+                throw new IllegalStateException("The region has not ended");
+            }
+            final var deadline = System.nanoTime() + NOTIFICATION_TIMEOUT_MILLIS * 1_000_000l;
+            while (notifications < expectedNotifications) {
+                final var remainingMillis = (deadline - System.nanoTime()) / 1_000_000l;
+                if (remainingMillis <= 0) {
+                    break;
+                }
+                wait(remainingMillis);
+            }
+            regions.remove(this);
+        }
+
+        private synchronized void record(final int collector, final GarbageCollectionNotificationInfo info) {
+            // a collector's n-th collection has the id n
+            final var id = info.getGcInfo().getId();
+            if (id <= startCounts[collector]
+                    || endCounts != null && id > endCounts[collector]) {
+                return;
+            }
+            if (!info.getGcName().endsWith("Cycles")) {
+                pauseMillis += info.getGcInfo().getDuration();
+            }
+            if (info.getGcAction().equals("end of minor GC")) {
+                final var before = info.getGcInfo().getMemoryUsageBeforeGc();
+                final var after = info.getGcInfo().getMemoryUsageAfterGc();
+                for (final var pool : oldGenerationPools) {
+                    if (before.containsKey(pool) && after.containsKey(pool)) {
+                        promotedBytes += Math.max(0l, after.get(pool).getUsed() - before.get(pool).getUsed());
+                    }
+                }
+            }
+            notifications++;
+            notifyAll();
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How evenly a hash table's entries are spread over its buckets. A
+ * lookup's cost grows with the number of entries it must compare, so
+ * clustered or colliding keys show up as a long maximum probe length even
+ * when the mean is low.
+ *
+ * <p>For chained tables, {@link HashMap} and {@link ConcurrentHashMap}
+ * including the synchronised and lock-guarded wrappers, the probe length
+ * of an entry is its position in its bucket's chain, or its depth if the
+ * bin has been converted to a tree, and the treeified bins are counted.
+ * Their internals are read reflectively, which requires the packages
+ * listed by {@link FootprintAnalyzer#getJvmOptions()} to be opened. For an
+ * {@link OpenAddressingTable} it is one more than the distance from the
+ * entry's home slot. Entries kept outside of the table, such as a
+ * hopscotch map's overflow or a primitive map's free key, are not
+ * counted.</p>
+ */
+public final class HashDistribution {
+
+    private static final String HASH_MAP_TREE_NODE = "java.util.HashMap$TreeNode";
+    private static final String CONCURRENT_HASH_MAP_TREE_BIN = "java.util.concurrent.ConcurrentHashMap$TreeBin";
+    private static final String SYNCHRONIZED_MAP = "java.util.Collections$SynchronizedMap";
+
+    private static final Map<String, Field> fields = new ConcurrentHashMap<>();
+
+    private long buckets;
+    private long occupiedBuckets;
+    private long entries;
+    private long totalProbeLength;
+    private int maximumProbeLength;
+    private long treeifiedBins;
+
+    private HashDistribution() {
+    }
+
+    /**
+     * @param map a map, or a {@link LongLongMap}, to inspect
+     * @return true if {@link #analyze(Object)} can inspect the map
+     */
+    public static boolean supports(final Object map) {
+        return map instanceof OpenAddressingTable
+                || map instanceof HashMap
+                || map instanceof ConcurrentHashMap
+                || map instanceof LockGuardedMap
+                || map instanceof StripedLockMap
+                || SYNCHRONIZED_MAP.equals(map.getClass().getName())
+                        && supports(read(map.getClass(), "m", map));
+    }
+
+    /**
+     * @param map a map, or a {@link LongLongMap}, to inspect
+     * @return the distribution of the map's entries
+     * @throws IllegalArgumentException if the map is not supported
+     * @throws IllegalStateException if the map's internals cannot be read
+     * @see #supports(Object)
+     */
+    public static HashDistribution analyze(final Object map) {
+        final var retval = new HashDistribution();
+        retval.add(map);
+        return retval;
+    }
+
+    private void add(final Object map) {
+        if (map instanceof OpenAddressingTable) {
+            final var table = (OpenAddressingTable) map;
+            for (int slot = table.getCapacity(); --slot >= 0;) {
+                final int distance = table.getProbeDistance(slot);
+                addSlot(distance < 0 ? 0 : distance + 1);
+            }
+        } else if (map instanceof HashMap) {
+            addBins((Object[]) read(HashMap.class, "table", map), HASH_MAP_TREE_NODE);
+        } else if (map instanceof ConcurrentHashMap) {
+            addBins((Object[]) read(ConcurrentHashMap.class, "table", map), CONCURRENT_HASH_MAP_TREE_BIN);
+        } else if (map instanceof LockGuardedMap) {
+            add(((LockGuardedMap<?, ?>) map).getDelegate());
+        } else if (map instanceof StripedLockMap) {
+            for (final var stripe : ((StripedLockMap<?, ?>) map).getStripes()) {
+                add(stripe);
+            }
+        } else if (SYNCHRONIZED_MAP.equals(map.getClass().getName())) {
+            add(read(map.getClass(), "m", map));
+        } else {
+            throw new IllegalArgumentException("Unsupported map: " + map.getClass().getName());
+        }
+    }
+
+    private void addBins(final Object[] table, final String treeClass) {
+        if (table == null) {
+            return;
+        }
+        for (var bin : table) {
+            buckets++;
+            if (bin == null) {
+                continue;
+            }
+            final var treeified = bin.getClass().getName().equals(treeClass);
+            if (treeified) {
+                treeifiedBins++;
+                if (treeClass.equals(CONCURRENT_HASH_MAP_TREE_BIN)) {
+                    // the bin is a placeholder for a list of tree nodes
+                    bin = read(bin.getClass(), "first", bin);
+                }
+            }
+            occupiedBuckets++;
+            int position = 0;
+            for (var node = bin; node != null; node = read(node.getClass(), "next", node)) {
+                // a chain is searched in order, a tree from its root
+                final int probeLength = treeified ? getDepth(node) : ++position;
+                entries++;
+                totalProbeLength += probeLength;
+                maximumProbeLength = Math.max(maximumProbeLength, probeLength);
+            }
+        }
+    }
+
+    private static int getDepth(final Object treeNode) {
+        int retval = 1;
+        for (var parent = read(treeNode.getClass(), "parent", treeNode); parent != null;
+                parent = read(parent.getClass(), "parent", parent)) {
+            retval++;
+        }
+        return retval;
+    }
+
+    private void addSlot(final int probeLength) {
+        buckets++;
+        if (probeLength > 0) {
+            occupiedBuckets++;
+            entries++;
+            totalProbeLength += probeLength;
+            maximumProbeLength = Math.max(maximumProbeLength, probeLength);
+        }
+    }
+
+    private static Object read(final Class<?> type, final String name, final Object object) {
+        final var field = fields.computeIfAbsent(type.getName() + "." + name, key -> findField(type, name));
+        try {
+            return field.get(object);
+        } catch (final IllegalAccessException iae) {
+            throw new IllegalStateException(iae.getMessage(), iae);
+        }
+    }
+
+    private static Field findField(final Class<?> type, final String name) {
+        for (var current = type; current != null; current = current.getSuperclass()) {
+            final Field retval;
+            try {
+                retval = current.getDeclaredField(name);
+            } catch (final NoSuchFieldException nsfe) {
+                continue;
+            }
+            if (!retval.trySetAccessible()) {
+                throw new IllegalStateException("Cannot read " + retval + ", run with --add-opens "
+                        + current.getModule().getName() + "/" + current.getPackageName() + "=ALL-UNNAMED");
+            }
+            return retval;
+        }
+        throw new IllegalStateException("No field " + name + " in " + type.getName());
+    }
+
+    /**
+     * @return the number of buckets or slots
+     */
+    public long getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * @return the fraction of buckets or slots holding at least one entry
+     */
+    public double getOccupancy() {
+        return buckets == 0 ? 0 : (double) occupiedBuckets / buckets;
+    }
+
+    /**
+     * @return the mean number of entries compared to find an entry
+     */
+    public double getMeanProbeLength() {
+        return entries == 0 ? 0 : (double) totalProbeLength / entries;
+    }
+
+    /**
+     * @return the largest number of entries compared to find an entry
+     */
+    public int getMaximumProbeLength() {
+        return maximumProbeLength;
+    }
+
+    /**
+     * @return the number of chained bins that have been converted to trees
+     */
+    public long getTreeifiedBins() {
+        return treeifiedBins;
+    }
+
+    /**
+     * Add the number of buckets, their occupancy, the mean and maximum
+     * probe lengths, and the number of treeified bins to a result.
+     */
+    public void addMetrics(final BenchmarkResult result) {
+        result.put("buckets", getBuckets())
+                .put("occupancy", getOccupancy())
+                .put("meanProbeLength", getMeanProbeLength())
+                .put("maxProbeLength", getMaximumProbeLength())
+                .put("treeifiedBins", getTreeifiedBins());
+    }
+
+}
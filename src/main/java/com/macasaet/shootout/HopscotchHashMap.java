@@ -0,0 +1,276 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * A hopscotch hash map. Every entry is kept within a fixed-size
+ * neighbourhood of its home slot, and each home slot has a bitmap of which
+ * neighbourhood slots hold its entries, so a lookup inspects at most 32
+ * nearby slots regardless of load. An insertion that finds a free slot
+ * outside the neighbourhood moves other entries towards their own home
+ * slots until the free slot is in range. Removal simply frees the slot and
+ * clears its bit, so no tombstones accumulate.
+ *
+ * <p>If that fails the table is normally resized. However, many keys with
+ * the same hash cannot be separated by resizing, so when the table is
+ * sparse such entries are kept in an overflow map instead.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see https://tessil.github.io/2016/08/29/hopscotch-hashing.html
+ */
+public class HopscotchHashMap<K, V> extends OpenAddressingMap<K, V> {
+
+    public static final float DEFAULT_LOAD_FACTOR = 0.9f;
+    protected static final int NEIGHBOURHOOD_SIZE = Integer.SIZE;
+    /**
+     * The maximum distance from the home slot searched for a free slot
+     * before giving up and resizing
+     */
+    protected static final int ADD_RANGE = 512;
+    /**
+     * The load below which entries that do not fit are moved to the
+     * overflow map rather than resizing the table
+     */
+    protected static final float MINIMUM_LOAD_FACTOR_FOR_GROWTH = 0.1f;
+
+    private int[] hopInfo;
+    private HashMap<Object, Object> overflow;
+
+    public HopscotchHashMap() {
+        this(16, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HopscotchHashMap(final int expectedSize, final float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(final K key, final V value) {
+        final int hash = hash(key);
+        final int slot = find(hash, key);
+        if (slot >= 0) {
+            final var values = getValues();
+            final var retval = (V) values[slot];
+            values[slot] = value;
+            return retval;
+        }
+        if (overflow != null && overflow.containsKey(key)) {
+            return (V) overflow.put(key, value);
+        }
+        if (isFull()) {
+            grow();
+        }
+        while (!insertAbsent(hash, key, value)) {
+            grow();
+        }
+        return null;
+    }
+
+    public int size() {
+        return overflow == null ? super.size() : super.size() + overflow.size();
+    }
+
+    public boolean containsKey(final Object key) {
+        return super.containsKey(key) || overflow != null && overflow.containsKey(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final int slot = find(key);
+        if (slot >= 0) {
+            return (V) getValues()[slot];
+        }
+        return overflow == null ? null : (V) overflow.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        final int slot = find(key);
+        if (slot >= 0) {
+            final var retval = (V) getValues()[slot];
+            removeAt(slot);
+            return retval;
+        }
+        return overflow == null ? null : (V) overflow.remove(key);
+    }
+
+    public void clear() {
+        super.clear();
+        Arrays.fill(hopInfo, 0);
+        overflow = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        super.forEach(action);
+        if (overflow != null) {
+            overflow.forEach((key, value) -> action.accept((K) key, (V) value));
+        }
+    }
+
+    protected int find(final Object key) {
+        return find(hash(key), key);
+    }
+
+    protected int find(final int hash, final Object key) {
+        final var hashes = getHashes();
+        final var keys = getKeys();
+        final int mask = getMask();
+        final int home = home(hash);
+        for (int bits = hopInfo[home]; bits != 0; bits &= bits - 1) {
+            final int slot = (home + Integer.numberOfTrailingZeros(bits)) & mask;
+            if (hashes[slot] == hash && key.equals(keys[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    protected boolean insertAbsent(final int hash, final Object key, final Object value) {
+        final var hashes = getHashes();
+        final var keys = getKeys();
+        final var values = getValues();
+        final int mask = getMask();
+        final int home = home(hash);
+        final int range = Math.min(ADD_RANGE, getCapacity());
+        // small tables must not let a neighbourhood wrap onto itself
+        final int neighbourhoodSize = Math.min(NEIGHBOURHOOD_SIZE, getCapacity());
+
+        int distance = 0;
+        while (distance < range && hashes[(home + distance) & mask] != FREE) {
+            distance++;
+        }
+        if (distance >= range) {
+            return overflow(key, value);
+        }
+
+        while (distance >= neighbourhoodSize) {
+            // move the entry that is furthest from the free slot but still
+            // within its own neighbourhood if relocated there
+            final int free = (home + distance) & mask;
+            int hop = 0;
+            for (int back = neighbourhoodSize - 1; hop == 0 && back > 0; back--) {
+                final int bucket = (free - back) & mask;
+                final int candidates = hopInfo[bucket] & ((1 << back) - 1);
+                if (candidates != 0) {
+                    final int offset = Integer.numberOfTrailingZeros(candidates);
+                    final int from = (bucket + offset) & mask;
+                    hashes[free] = hashes[from];
+                    keys[free] = keys[from];
+                    values[free] = values[from];
+                    hashes[from] = FREE;
+                    keys[from] = null;
+                    values[from] = null;
+                    hopInfo[bucket] = (hopInfo[bucket] & ~(1 << offset)) | (1 << back);
+                    hop = back - offset;
+                }
+            }
+            if (hop == 0) {
+                return overflow(key, value);
+            }
+            distance -= hop;
+        }
+
+        final int slot = (home + distance) & mask;
+        hashes[slot] = hash;
+        keys[slot] = key;
+        values[slot] = value;
+        hopInfo[home] |= 1 << distance;
+        incrementSize();
+        return true;
+    }
+
+    /**
+     * @return false if the table should be resized instead
+     */
+    protected boolean overflow(final Object key, final Object value) {
+        if (super.size() >= getCapacity() * MINIMUM_LOAD_FACTOR_FOR_GROWTH) {
+            return false;
+        }
+        if (overflow == null) {
+            overflow = new HashMap<>();
+        }
+        overflow.put(key, value);
+        return true;
+    }
+
+    protected void grow() {
+        final var displaced = overflow;
+        overflow = null;
+        super.grow();
+        if (displaced != null) {
+            displaced.forEach((key, value) -> {
+                while (!insertAbsent(hash(key), key, value)) {
+                    grow();
+                }
+            });
+        }
+    }
+
+    protected Iterator<Entry<K, V>> entryIterator() {
+        final var slots = super.entryIterator();
+        if (overflow == null) {
+            return slots;
+        }
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        final Iterator<Entry<K, V>> overflowEntries = (Iterator) overflow.entrySet().iterator();
+        return new Iterator<>() {
+            private Iterator<Entry<K, V>> lastUsed = slots;
+
+            public boolean hasNext() {
+                return slots.hasNext() || overflowEntries.hasNext();
+            }
+
+            public Entry<K, V> next() {
+                if (slots.hasNext()) {
+                    lastUsed = slots;
+                } else if (overflowEntries.hasNext()) {
+                    lastUsed = overflowEntries;
+                } else {
+                    throw new NoSuchElementException();
+                }
+                return lastUsed.next();
+            }
+
+            public void remove() {
+                lastUsed.remove();
+            }
+        };
+    }
+
+    protected void removeAt(final int slot) {
+        final var hashes = getHashes();
+        final int home = home(hashes[slot]);
+        hopInfo[home] &= ~(1 << ((slot - home) & getMask()));
+        hashes[slot] = FREE;
+        getKeys()[slot] = null;
+        getValues()[slot] = null;
+        decrementSize();
+    }
+
+    protected void allocate(final int capacity) {
+        super.allocate(capacity);
+        hopInfo = new int[capacity];
+    }
+
+}
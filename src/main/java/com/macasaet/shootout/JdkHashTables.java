@@ -30,6 +30,22 @@ public enum JdkHashTables implements MapSupplier {
             return new HashMap<>();
         }
 
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return new HashMap<>(initialCapacity(expectedSize, loadFactor), loadFactor);
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return new HashMap<>(initialCapacity(expectedSize, loadFactor), loadFactor);
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+            return new HashMap<>();
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+            return new HashMap<>(initialCapacity(expectedSize, loadFactor), loadFactor);
+        }
+
     },
     JDK_LINKED_HASH_MAP() {
 
@@ -40,6 +56,42 @@ public enum JdkHashTables implements MapSupplier {
         public Map<String, Long> createStringMap() {
             return new LinkedHashMap<>();
         }
+
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return new LinkedHashMap<>(initialCapacity(expectedSize, loadFactor), loadFactor);
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return new LinkedHashMap<>(initialCapacity(expectedSize, loadFactor), loadFactor);
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+            return new LinkedHashMap<>();
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+            return new LinkedHashMap<>(initialCapacity(expectedSize, loadFactor), loadFactor);
+        }
         
     };
-}
\ No newline at end of file
+
+    public boolean isSizeable() {
+        return true;
+    }
+
+    public boolean supports(final KeyType<?> keyType) {
+        return true;
+    }
+
+    /**
+     * {@link HashMap}'s initial capacity is a number of buckets, not
+     * entries, so it must be scaled up by the load factor to avoid
+     * resizing.
+     *
+     * @return the initial capacity for a {@link HashMap} that will hold
+     *         <code>expectedSize</code> entries without resizing
+     */
+    static int initialCapacity(final int expectedSize, final float loadFactor) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(expectedSize / (double) loadFactor));
+    }
+}
@@ -15,17 +15,25 @@
  */
 package com.macasaet.shootout;
 
-import java.util.Map;
+import java.util.NavigableMap;
 import java.util.TreeMap;
 
-public enum JdkSearchTrees implements MapSupplier {
+public enum JdkSearchTrees implements NavigableMapSupplier {
     JDK_TREE_MAP() {
-        public Map<Long, Long> createLongMap() {
+        public NavigableMap<Long, Long> createLongMap() {
             return new TreeMap<>();
         }
 
-        public Map<String, Long> createStringMap() {
+        public NavigableMap<String, Long> createStringMap() {
+            return new TreeMap<>();
+        }
+
+        public <K> NavigableMap<K, Long> createMap(final KeyType<K> keyType) {
             return new TreeMap<>();
         }
     };
+
+    public boolean supports(final KeyType<?> keyType) {
+        return true;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,330 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH counterpart to the scenarios in {@link MapShootout}. Each benchmark
+ * method operates on the entire key set in a single invocation, so the
+ * reported score (nanoseconds per operation) is directly comparable to
+ * the elapsed time column in <code>data.tsv</code>.
+ *
+ * @see JmhShootout
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(3)
+public class JmhMapBenchmark {
+
+    /**
+     * The keys and map implementation under test. These are generated once
+     * per trial and shared by all iterations.
+     */
+    @State(Scope.Benchmark)
+    public static class Fixture {
+
+        @Param({"JDK_HASH_MAP", "JDK_LINKED_HASH_MAP", "JDK_TREE_MAP"})
+        public String implementation;
+
+        @Param({"int64", "int64NonNegative", "smallString", "largeString"})
+        public String keyFamily;
+
+        @Param({"200000", "1000000", "3000000"})
+        public int size;
+
+        private List<Object> keys;
+        private List<Object> differentKeys;
+        private Supplier<Map<Object, Long>> mapSupplier;
+        private Supplier<Map<Object, Long>> reservedMapSupplier;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final var keyGenerator = new KeyGenerator();
+            final var mapImplementation = getMapSupplier(implementation);
+            switch (keyFamily) {
+            case "int64":
+                keys = new ArrayList<>(keyGenerator.generateIntegerKeys(Long.MIN_VALUE, size));
+                differentKeys = new ArrayList<>(keyGenerator.generateIntegerKeys(Long.MIN_VALUE, size));
+                mapSupplier = () -> cast(mapImplementation.createLongMap());
+                break;
+            case "int64NonNegative":
+                keys = new ArrayList<>(keyGenerator.generateIntegerKeys(0, size));
+                differentKeys = new ArrayList<>(keyGenerator.generateIntegerKeys(0, size));
+                mapSupplier = () -> cast(mapImplementation.createLongMap());
+                break;
+            case "smallString":
+                keys = new ArrayList<>(keyGenerator.generateStringKeys(16, size));
+                differentKeys = new ArrayList<>(keyGenerator.generateStringKeys(16, size));
+                mapSupplier = () -> cast(mapImplementation.createStringMap());
+                break;
+            case "largeString":
+                keys = new ArrayList<>(keyGenerator.generateStringKeys(64, size));
+                differentKeys = new ArrayList<>(keyGenerator.generateStringKeys(64, size));
+                mapSupplier = () -> cast(mapImplementation.createStringMap());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown key family: " + keyFamily);
+            }
+            final float loadFactor = mapImplementation.getDefaultLoadFactor();
+            reservedMapSupplier = keyFamily.startsWith("int64")
+                    ? () -> cast(mapImplementation.createLongMap(size, loadFactor))
+                    : () -> cast(mapImplementation.createStringMap(size, loadFactor));
+        }
+
+        protected Map<Object, Long> createPopulatedMap() {
+            final var map = mapSupplier.get();
+            keys.forEach(key -> map.put(key, 1l));
+            return map;
+        }
+
+        protected List<Object> shuffledKeys() {
+            final var retval = new ArrayList<>(keys);
+            Collections.shuffle(retval);
+            return retval;
+        }
+
+        @SuppressWarnings("unchecked")
+        protected static Map<Object, Long> cast(final Map<?, Long> map) {
+            return (Map<Object, Long>) map;
+        }
+
+    }
+
+    /**
+     * A new, empty map for each iteration.
+     */
+    @State(Scope.Thread)
+    public static class EmptyMap {
+
+        private Map<Object, Long> map;
+
+        @Setup(Level.Iteration)
+        public void setUp(final Fixture fixture) {
+            map = fixture.mapSupplier.get();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            map.clear();
+            map = null;
+        }
+    }
+
+    /**
+     * A new map, pre-sized for every key, for each iteration.
+     */
+    @State(Scope.Thread)
+    public static class ReservedMap {
+
+        private Map<Object, Long> map;
+
+        @Setup(Level.Iteration)
+        public void setUp(final Fixture fixture) {
+            map = fixture.reservedMapSupplier.get();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            map.clear();
+            map = null;
+        }
+    }
+
+    /**
+     * A map containing every key and a shuffled copy of the keys for each
+     * iteration.
+     */
+    @State(Scope.Thread)
+    public static class PopulatedMap {
+
+        private Map<Object, Long> map;
+        private List<Object> shuffledKeys;
+
+        @Setup(Level.Iteration)
+        public void setUp(final Fixture fixture) {
+            map = fixture.createPopulatedMap();
+            shuffledKeys = fixture.shuffledKeys();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            map.clear();
+            map = null;
+            shuffledKeys = null;
+        }
+    }
+
+    /**
+     * A map from which a random half of the keys have been removed and a
+     * reshuffled copy of all the keys for each iteration.
+     */
+    @State(Scope.Thread)
+    public static class HalfDeletedMap {
+
+        private Map<Object, Long> map;
+        private List<Object> shuffledKeys;
+
+        @Setup(Level.Iteration)
+        public void setUp(final Fixture fixture) {
+            map = fixture.createPopulatedMap();
+            shuffledKeys = fixture.shuffledKeys();
+            shuffledKeys.subList(0, shuffledKeys.size() / 2).forEach(map::remove);
+            Collections.shuffle(shuffledKeys);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            map.clear();
+            map = null;
+            shuffledKeys = null;
+        }
+    }
+
+    @Benchmark
+    public Map<Object, Long> inserts(final Fixture fixture, final EmptyMap state) {
+        final var map = state.map;
+        for (final var key : fixture.keys) {
+            map.put(key, 1l);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<Object, Long> insertsWithReserve(final Fixture fixture, final ReservedMap state) {
+        final var map = state.map;
+        for (final var key : fixture.keys) {
+            map.put(key, 1l);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<Object, Long> deletes(final PopulatedMap state) {
+        final var map = state.map;
+        for (final var key : state.shuffledKeys) {
+            map.remove(key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public void reads(final PopulatedMap state, final Blackhole blackhole) {
+        final var map = state.map;
+        for (final var key : state.shuffledKeys) {
+            blackhole.consume(map.get(key));
+        }
+    }
+
+    @Benchmark
+    public void readMisses(final Fixture fixture, final PopulatedMap state, final Blackhole blackhole) {
+        final var map = state.map;
+        for (final var key : fixture.differentKeys) {
+            blackhole.consume(map.get(key));
+        }
+    }
+
+    @Benchmark
+    public void readsAfterDeletingHalf(final HalfDeletedMap state, final Blackhole blackhole) {
+        final var map = state.map;
+        for (final var key : state.shuffledKeys) {
+            blackhole.consume(map.get(key));
+        }
+    }
+
+    @Benchmark
+    public void fullIteration(final PopulatedMap state, final Blackhole blackhole) {
+        state.map.forEach((key, value) -> blackhole.consume(value));
+    }
+
+    /**
+     * @param name the name of a {@link MapSupplier} constant
+     * @return the matching implementation
+     * @throws IllegalArgumentException if no implementation has that name
+     */
+    protected static MapSupplier getMapSupplier(final String name) {
+        return getMapSuppliers()
+                .filter(candidate -> candidate.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown implementation: " + name + ", expected one of: "
+                        + getMapSuppliers().map(MapSupplier::name).collect(Collectors.joining(", "))));
+    }
+
+    protected static Stream<MapSupplier> getMapSuppliers() {
+        return Stream.of(JdkHashTables.values(), JdkSearchTrees.values(), OffHeapHashTables.values(),
+                OpenAddressingHashTables.values(), ConcurrentHashTables.values(), ConcurrentSearchTrees.values(),
+                CacheConsciousSearchTrees.values())
+                .flatMap(Arrays::stream);
+    }
+
+    /**
+     * @param keyFamily the value of the <code>keyFamily</code> parameter
+     * @return the key label used in <code>data.tsv</code>
+     */
+    protected static String getKeyLabel(final String keyFamily) {
+        return keyFamily.startsWith("int64") ? "int64" : keyFamily;
+    }
+
+    /**
+     * @param keyFamily the value of the <code>keyFamily</code> parameter
+     * @param scenario the name of the benchmark method
+     * @return the test label used for the equivalent {@link MapShootout} scenario
+     */
+    protected static String getTestLabel(final String keyFamily, final String scenario) {
+        switch (keyFamily) {
+        case "int64":
+            return "fullIteration".equals(scenario)
+                    ? "randomFullIteration"
+                    : "randomShuffleFull" + capitalise(scenario);
+        case "int64NonNegative":
+            return "fullIteration".equals(scenario)
+                    ? "randomIteration"
+                    : "randomShuffle" + capitalise(scenario);
+        default:
+            return scenario;
+        }
+    }
+
+    private static String capitalise(final String string) {
+        return Character.toUpperCase(string.charAt(0)) + string.substring(1);
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collection;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs {@link JmhMapBenchmark} and writes the mean score of each benchmark
+ * to <code>data.tsv</code> in the same format as {@link MapBenchmark} so
+ * that <code>analysis.R</code> can chart it. The full JMH results,
+ * including error bounds, are written to <code>jmh-result.json</code>.
+ * Any standard JMH command line option may be supplied, e.g. <code>-p
+ * size=3000000</code> to restrict the parameter space.
+ *
+ * <p>The scores are also written with the run metadata to
+ * <code>data.jsonl</code>. The output files can be changed with the
+ * <code>shootout.output</code> and <code>shootout.jsonOutput</code>
+ * system properties.</p>
+ */
+public class JmhShootout {
+
+    public static void main(final String... arguments)
+            throws CommandLineOptionException, RunnerException, IOException {
+        final var commandLineOptions = new CommandLineOptions(arguments);
+        final var builder = new OptionsBuilder().parent(commandLineOptions);
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            builder.include(JmhMapBenchmark.class.getName());
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+
+        final Collection<RunResult> results = new Runner(builder.build()).run();
+
+        final var tsv = new TsvResultSink(new FileWriter(System.getProperty("shootout.output", "data.tsv"), UTF_8));
+        // the forked benchmark JVMs use the same JVM and options unless
+        // overridden with -jvm or -jvmArgs, which are captured here too
+        final var jsonLines = new JsonLinesResultSink(
+                new FileWriter(System.getProperty("shootout.jsonOutput", "data.jsonl"), UTF_8), RunMetadata.capture());
+        try (var sink = new CompositeResultSink(tsv, jsonLines)) {
+            for (final var result : results) {
+                final var parameters = result.getParams();
+                final var benchmark = parameters.getBenchmark();
+                final var scenario = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+                final var keyFamily = parameters.getParam("keyFamily");
+
+                // JMH does not isolate the heap or native memory consumed
+                // by the map from that consumed by the iteration set up,
+                // nor does it time individual operations
+                sink.accept(new BenchmarkResult(JmhMapBenchmark.getKeyLabel(keyFamily),
+                        JmhMapBenchmark.getTestLabel(keyFamily, scenario),
+                        parameters.getParam("implementation"),
+                        Long.parseLong(parameters.getParam("size")))
+                        .put("timeNanos", Math.round(result.getPrimaryResult().getScore()))
+                        .put("allocatedBytes", null)
+                        .put("retainedBytes", null)
+                        .put("nativeMemory", null)
+                        .put("p50Nanos", null)
+                        .put("p90Nanos", null)
+                        .put("p99Nanos", null)
+                        .put("p999Nanos", null)
+                        .put("maxNanos", null)
+                        .put("gcCount", null)
+                        .put("gcPauseNanos", null)
+                        .put("promotedBytes", null)
+                        .put("gcOverlap", null));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes each result as a JSON object on its own line. Every line carries
+ * the run metadata so that results collected from many hosts can be
+ * concatenated and aggregated without any other context.
+ */
+public class JsonLinesResultSink implements ResultSink {
+
+    private final Writer writer;
+    private final String metadata;
+
+    public JsonLinesResultSink(final Writer writer, final RunMetadata metadata) {
+        Objects.requireNonNull(writer);
+        Objects.requireNonNull(metadata);
+        this.writer = writer;
+        this.metadata = toJson(metadata.asMap());
+    }
+
+    public void accept(final BenchmarkResult result) throws IOException {
+        final var line = new StringBuilder(1024);
+        line.append("{\"keyType\":");
+        appendString(line, result.getKeyLabel());
+        line.append(",\"test\":");
+        appendString(line, result.getTestLabel());
+        line.append(",\"implementation\":");
+        appendString(line, result.getImplementation());
+        line.append(",\"numKeys\":").append(result.getKeyCount());
+        line.append(",\"metrics\":{");
+        boolean first = true;
+        for (final var metric : result.getMetrics().entrySet()) {
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+            appendString(line, metric.getKey());
+            line.append(':');
+            appendNumber(line, metric.getValue());
+        }
+        line.append("},\"run\":").append(metadata).append('}').append('\n');
+        writer.write(line.toString());
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    protected static String toJson(final Map<String, String> map) {
+        final var retval = new StringBuilder(512);
+        retval.append('{');
+        boolean first = true;
+        for (final var entry : map.entrySet()) {
+            if (!first) {
+                retval.append(',');
+            }
+            first = false;
+            appendString(retval, entry.getKey());
+            retval.append(':');
+            if (entry.getValue() == null) {
+                retval.append("null");
+            } else {
+                appendString(retval, entry.getValue());
+            }
+        }
+        return retval.append('}').toString();
+    }
+
+    protected static void appendNumber(final StringBuilder builder, final Number value) {
+        if (value == null || value instanceof Double && !Double.isFinite((Double) value)
+                || value instanceof Float && !Float.isFinite((Float) value)) {
+            // JSON has no representation for NaN or infinity
+            builder.append("null");
+        } else {
+            builder.append(value);
+        }
+    }
+
+    protected static void appendString(final StringBuilder builder, final String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    builder.append(String.format("\\u%04x", (int) c));
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        builder.append('"');
+    }
+
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * A set of benchmark keys stored in a memory-mapped file so that a fixture
+ * can be captured once, for example from production traffic, and replayed
+ * on any machine.
+ *
+ * <p>All values are little-endian. The file starts with a 16 byte header:
+ * a magic number, the format version, the key type, and the number of
+ * keys, each as a 32-bit int. Integer keys follow as raw 64-bit values.
+ * String keys follow as an index of 32-bit file offsets, one per key, and
+ * then the keys themselves, each a 32-bit length followed by that many
+ * bytes of UTF-8. The index makes every key accessible in constant
+ * time.</p>
+ *
+ * <p>Integer keys can be read without copying via {@link #getLongBuffer()}.
+ * String keys must be decoded, which the <code>get*Keys</code> methods do
+ * up front so that the benchmarks themselves do not pay for it.</p>
+ */
+public class KeyCorpus implements AutoCloseable {
+
+    public static final int MAGIC = 0x4d534b43;
+    public static final int VERSION = 1;
+    public static final int INTEGER_KEYS = 1;
+    public static final int STRING_KEYS = 2;
+    protected static final int HEADER_SIZE = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int keyType;
+    private final int size;
+
+    protected KeyCorpus(final MappedByteBuffer buffer) throws IOException {
+        Objects.requireNonNull(buffer);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a key corpus");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported key corpus version: " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.keyType = buffer.getInt(8);
+        this.size = buffer.getInt(12);
+        if (keyType != INTEGER_KEYS && keyType != STRING_KEYS) {
+            throw new IOException("Unknown key type: " + keyType);
+        }
+    }
+
+    /**
+     * Map a corpus into memory. The file may be closed once mapped, but the
+     * corpus must be closed to release the mapping.
+     */
+    public static KeyCorpus open(final Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new KeyCorpus(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void writeIntegerKeys(final Path path, final Collection<Long> keys) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            writeHeader(buffer, INTEGER_KEYS, keys.size());
+            for (final long key : keys) {
+                if (buffer.remaining() < Long.BYTES) {
+                    drain(buffer, channel);
+                }
+                buffer.putLong(key);
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    public static void writeStringKeys(final Path path, final Collection<String> keys) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var offsets = new int[keys.size()];
+            // write the keys after space reserved for the header and index
+            long position = HEADER_SIZE + (long) Integer.BYTES * offsets.length;
+            channel.position(position);
+            final var buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            int i = 0;
+            for (final var key : keys) {
+                final var bytes = key.getBytes(StandardCharsets.UTF_8);
+                if (position > Integer.MAX_VALUE) {
+                    throw new IOException("Key corpus exceeds 2 GiB");
+                }
+                offsets[i++] = (int) position;
+                if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                    drain(buffer, channel);
+                }
+                if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                    throw new IOException("Key too large: " + bytes.length + " bytes");
+                }
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+                position += Integer.BYTES + bytes.length;
+            }
+            drain(buffer, channel);
+
+            channel.position(0);
+            writeHeader(buffer, STRING_KEYS, offsets.length);
+            for (final var offset : offsets) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    drain(buffer, channel);
+                }
+                buffer.putInt(offset);
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    /**
+     * Write the default key fixtures, generated from the configured seed,
+     * to a directory so that they can be loaded with
+     * <code>-Dshootout.corpus=&lt;directory&gt;</code>.
+     *
+     * @param arguments the output directory and, optionally, the number of keys
+     */
+    public static void main(final String... arguments) throws IOException {
+        if (arguments.length < 1) {
+            System.err.println("Usage: KeyCorpus <directory> [numKeys]");
+            System.exit(1);
+        }
+        final var directory = Paths.get(arguments[0]);
+        final int numKeys = arguments.length > 1 ? Integer.parseInt(arguments[1]) : 3_000_000;
+        Files.createDirectories(directory);
+
+        writeStringKeys(directory.resolve("largeString.keys"),
+                KeyGenerator.forKeySet("largeString").generateStringKeys(64, numKeys));
+        writeStringKeys(directory.resolve("largeStringMisses.keys"),
+                KeyGenerator.forKeySet("largeStringMisses").generateStringKeys(64, numKeys));
+        writeStringKeys(directory.resolve("smallStringMisses.keys"),
+                KeyGenerator.forKeySet("smallStringMisses").generateStringKeys(16, numKeys));
+        writeIntegerKeys(directory.resolve("int64NonNegative.keys"),
+                KeyGenerator.forKeySet("int64NonNegative").generateIntegerKeys(0, numKeys));
+        writeIntegerKeys(directory.resolve("int64.keys"),
+                KeyGenerator.forKeySet("int64").generateIntegerKeys(Long.MIN_VALUE, numKeys));
+        writeIntegerKeys(directory.resolve("int64Misses.keys"),
+                KeyGenerator.forKeySet("int64Misses").generateIntegerKeys(Long.MIN_VALUE, numKeys));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsStrings() {
+        return keyType == STRING_KEYS;
+    }
+
+    /**
+     * @return a read-only view of the integer keys backed by the mapped file
+     */
+    public LongBuffer getLongBuffer() {
+        requireKeyType(INTEGER_KEYS);
+        return buffer.duplicate()
+                .position(HEADER_SIZE)
+                .slice()
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asLongBuffer()
+                .limit(size);
+    }
+
+    public long getLong(final int index) {
+        requireKeyType(INTEGER_KEYS);
+        Objects.checkIndex(index, size);
+        return buffer.getLong(HEADER_SIZE + index * Long.BYTES);
+    }
+
+    public String getString(final int index) {
+        requireKeyType(STRING_KEYS);
+        Objects.checkIndex(index, size);
+        final int offset = buffer.getInt(HEADER_SIZE + index * Integer.BYTES);
+        final var bytes = new byte[buffer.getInt(offset)];
+        buffer.duplicate().position(offset + Integer.BYTES).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param numKeys the number of keys to read from the start of the corpus
+     * @return the keys in a primitive array
+     */
+    public long[] getPrimitiveIntegerKeys(final int numKeys) {
+        requireKeys(numKeys);
+        final var retval = new long[numKeys];
+        getLongBuffer().get(retval);
+        return retval;
+    }
+
+    /**
+     * @param numKeys the number of keys to read from the start of the corpus
+     * @return boxed copies of the keys
+     */
+    public List<Long> getIntegerKeys(final int numKeys) {
+        final var keys = getPrimitiveIntegerKeys(numKeys);
+        final var retval = new Long[numKeys];
+        IntStream.range(0, numKeys).parallel().forEach(i -> retval[i] = keys[i]);
+        return Arrays.asList(retval);
+    }
+
+    /**
+     * @param numKeys the number of keys to read from the start of the corpus
+     * @return the decoded keys
+     */
+    public List<String> getStringKeys(final int numKeys) {
+        requireKeys(numKeys);
+        final var retval = new String[numKeys];
+        IntStream.range(0, numKeys).parallel().forEach(i -> retval[i] = getString(i));
+        return Arrays.asList(retval);
+    }
+
+    /**
+     * Unmap the file. Keys already copied out of the corpus remain valid.
+     */
+    public void close() {
+        DirectBuffers.free(buffer);
+    }
+
+    protected void requireKeyType(final int expected) {
+        if (keyType != expected) {
+            throw new IllegalStateException(expected == INTEGER_KEYS ? "Corpus contains strings" : "Corpus contains integers");
+        }
+    }
+
+    protected void requireKeys(final int numKeys) {
+        if (numKeys < 0 || numKeys > size) {
+            throw new IllegalArgumentException("Requested " + numKeys + " keys, but the corpus contains " + size);
+        }
+    }
+
+    private static void writeHeader(final ByteBuffer buffer, final int keyType, final int size) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(keyType);
+        buffer.putInt(size);
+    }
+
+    private static void drain(final ByteBuffer buffer, final FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
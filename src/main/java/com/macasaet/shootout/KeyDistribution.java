@@ -0,0 +1,190 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.SplittableRandom;
+
+/**
+ * Selects which of a growing set of items an operation accesses. Items are
+ * identified by the order in which they were inserted, so
+ * <code>itemCount - 1</code> is the most recent.
+ *
+ * @see https://github.com/brianfrankcooper/YCSB/wiki/Core-Workloads
+ */
+public interface KeyDistribution {
+
+    /**
+     * @param random the source of randomness
+     * @param itemCount the number of items that currently exist, at least one
+     * @return the index of the item to access, in [0, itemCount)
+     */
+    int nextIndex(SplittableRandom random, int itemCount);
+
+    /**
+     * @return a short label for the distribution
+     */
+    String name();
+
+    static KeyDistribution uniform() {
+        return new Uniform();
+    }
+
+    /**
+     * @param theta the skew, in (0, 1), YCSB uses 0.99
+     */
+    static KeyDistribution zipfian(final double theta) {
+        return new Zipfian(theta);
+    }
+
+    /**
+     * @param hotSetFraction the fraction of items that are hot
+     * @param hotOperationFraction the fraction of operations that access a hot item
+     */
+    static KeyDistribution hotspot(final double hotSetFraction, final double hotOperationFraction) {
+        return new Hotspot(hotSetFraction, hotOperationFraction);
+    }
+
+    /**
+     * @param theta the skew towards the most recently inserted items, in (0, 1)
+     */
+    static KeyDistribution latest(final double theta) {
+        return new Latest(theta);
+    }
+
+    final class Uniform implements KeyDistribution {
+
+        public int nextIndex(final SplittableRandom random, final int itemCount) {
+            return random.nextInt(itemCount);
+        }
+
+        public String name() {
+            return "uniform";
+        }
+    }
+
+    /**
+     * Item 0 is the most popular, item 1 the next most popular, and so on.
+     * This uses the algorithm from Gray et al., "Quickly Generating
+     * Billion-Record Synthetic Databases", as YCSB does. The zeta constant
+     * is extended incrementally as items are added.
+     */
+    final class Zipfian implements KeyDistribution {
+
+        private final double theta;
+        private final double alpha;
+        private final double zeta2;
+
+        private int countForZeta;
+        private double zetaN;
+        private double eta;
+
+        Zipfian(final double theta) {
+            if (!(theta > 0 && theta < 1)) {
+                throw new IllegalArgumentException("theta must be in (0, 1)");
+            }
+            this.theta = theta;
+            this.alpha = 1.0 / (1.0 - theta);
+            this.zeta2 = 1.0 + Math.pow(0.5, theta);
+        }
+
+        public int nextIndex(final SplittableRandom random, final int itemCount) {
+            if (itemCount != countForZeta) {
+                resize(itemCount);
+            }
+            final var u = random.nextDouble();
+            final var uz = u * zetaN;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < zeta2) {
+                return Math.min(1, itemCount - 1);
+            }
+            final var index = (long) (itemCount * Math.pow(eta * u - eta + 1.0, alpha));
+            return (int) Math.min(itemCount - 1, index);
+        }
+
+        public String name() {
+            return "zipfian" + theta;
+        }
+
+        private void resize(final int itemCount) {
+            if (itemCount < countForZeta) {
+                countForZeta = 0;
+                zetaN = 0;
+            }
+            for (int i = countForZeta + 1; i <= itemCount; i++) {
+                zetaN += 1.0 / Math.pow(i, theta);
+            }
+            countForZeta = itemCount;
+            eta = (1.0 - Math.pow(2.0 / itemCount, 1.0 - theta)) / (1.0 - zeta2 / zetaN);
+        }
+    }
+
+    /**
+     * A fixed fraction of the items, those inserted first, receives a fixed
+     * fraction of the operations. Access within each set is uniform.
+     */
+    final class Hotspot implements KeyDistribution {
+
+        private final double hotSetFraction;
+        private final double hotOperationFraction;
+
+        Hotspot(final double hotSetFraction, final double hotOperationFraction) {
+            if (!(hotSetFraction > 0 && hotSetFraction <= 1)) {
+                throw new IllegalArgumentException("hotSetFraction must be in (0, 1]");
+            }
+            if (!(hotOperationFraction >= 0 && hotOperationFraction <= 1)) {
+                throw new IllegalArgumentException("hotOperationFraction must be in [0, 1]");
+            }
+            this.hotSetFraction = hotSetFraction;
+            this.hotOperationFraction = hotOperationFraction;
+        }
+
+        public int nextIndex(final SplittableRandom random, final int itemCount) {
+            final int hotCount = Math.max(1, (int) (itemCount * hotSetFraction));
+            if (hotCount >= itemCount || random.nextDouble() < hotOperationFraction) {
+                return random.nextInt(hotCount);
+            }
+            return hotCount + random.nextInt(itemCount - hotCount);
+        }
+
+        public String name() {
+            return "hotspot" + hotSetFraction + "-" + hotOperationFraction;
+        }
+    }
+
+    /**
+     * A zipfian distribution in which the most recently inserted item is
+     * the most popular.
+     */
+    final class Latest implements KeyDistribution {
+
+        private final Zipfian recency;
+
+        Latest(final double theta) {
+            recency = new Zipfian(theta);
+        }
+
+        public int nextIndex(final SplittableRandom random, final int itemCount) {
+            return itemCount - 1 - recency.nextIndex(random, itemCount);
+        }
+
+        public String name() {
+            return "latest" + recency.theta;
+        }
+    }
+
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Generates benchmark keys in parallel on the common fork-join pool. The
+ * keys are split into fixed-size chunks and each chunk draws from its own
+ * {@link SplittableRandom}, split from a master generator in a fixed
+ * order, so the keys depend only on the seed and the sequence of calls,
+ * not on the number of threads or how the work was scheduled.
+ *
+ * <p>The default seed can be changed with the system property
+ * "shootout.seed".</p>
+ */
+public class KeyGenerator {
+
+    public static final long DEFAULT_SEED = 0x6d61702d73686f6fl;
+    /**
+     * The number of colliding string keys that share a hash code, twice the
+     * chain length at which {@link java.util.HashMap} converts a bin to a
+     * tree
+     */
+    public static final int COLLIDING_GROUP_SIZE = 16;
+    private static final int CHUNK_SIZE = 1 << 14;
+    private static final int COLLIDING_BLOCK_COUNT = 4;
+    private static final String[] COLLIDING_BLOCKS = { "Aa", "BB" };
+    private static final String[] COLLIDING_MISS_BLOCKS = { "Aa", "BB", "C#" };
+
+    private final SplittableRandom master;
+
+    public KeyGenerator() {
+        this(getConfiguredSeed());
+    }
+
+    public KeyGenerator(final long seed) {
+        master = new SplittableRandom(seed);
+    }
+
+    /**
+     * @param name identifies the key set, e.g. "int64Misses"
+     * @return a generator, seeded from the configured seed and the name,
+     *         that is independent of which other key sets were generated
+     *         before it. The first <em>n</em> keys it generates are the
+     *         same however many are requested, so smaller key sets are
+     *         prefixes of larger ones.
+     */
+    public static KeyGenerator forKeySet(final String name) {
+        return new KeyGenerator(getConfiguredSeed() ^ name.hashCode() * 0x9e3779b97f4a7c15l);
+    }
+
+    /**
+     * @return the seed specified by the system property "shootout.seed" or
+     *         the default
+     */
+    public static long getConfiguredSeed() {
+        return Long.getLong("shootout.seed", DEFAULT_SEED);
+    }
+
+    /**
+     * @param stringLength the number of code points in each key
+     * @param numKeys the number of keys to generate
+     * @return random strings made of assigned, non-private-use code points
+     */
+    public List<String> generateStringKeys(final int stringLength, final int numKeys) {
+        final var retval = new String[numKeys];
+        final var chunkRandoms = splitChunks(numKeys);
+        IntStream.range(0, chunkRandoms.length).parallel().forEach(chunk -> {
+            final var random = chunkRandoms[chunk];
+            final var builder = new StringBuilder(stringLength * 2);
+            for (int i = chunk * CHUNK_SIZE, end = Math.min(numKeys, i + CHUNK_SIZE); i < end; i++) {
+                builder.setLength(0);
+                for (int codePoints = 0; codePoints < stringLength;) {
+                    final int codePoint = random.nextInt(Character.MIN_CODE_POINT, Character.MAX_CODE_POINT);
+                    if (isValidCodePoint(codePoint)) {
+                        builder.appendCodePoint(codePoint);
+                        codePoints++;
+                    }
+                }
+                retval[i] = builder.toString();
+            }
+        });
+        return Arrays.asList(retval);
+    }
+
+    /**
+     * @param minValue the smallest possible key
+     * @param numKeys the number of keys to generate
+     * @return random keys in [minValue, {@link Long#MAX_VALUE})
+     */
+    public List<Long> generateIntegerKeys(final long minValue, final int numKeys) {
+        final var keys = generatePrimitiveIntegerKeys(minValue, numKeys);
+        // box up front so that reading the keys does not allocate
+        final var retval = new Long[numKeys];
+        IntStream.range(0, numKeys).parallel().forEach(i -> retval[i] = keys[i]);
+        return Arrays.asList(retval);
+    }
+
+    /**
+     * @param minValue the smallest possible key
+     * @param numKeys the number of keys to generate
+     * @return random keys in [minValue, {@link Long#MAX_VALUE})
+     */
+    public long[] generatePrimitiveIntegerKeys(final long minValue, final int numKeys) {
+        final var retval = new long[numKeys];
+        final var chunkRandoms = splitChunks(numKeys);
+        IntStream.range(0, chunkRandoms.length).parallel().forEach(chunk -> {
+            final var random = chunkRandoms[chunk];
+            for (int i = chunk * CHUNK_SIZE, end = Math.min(numKeys, i + CHUNK_SIZE); i < end; i++) {
+                retval[i] = random.nextLong(minValue, Long.MAX_VALUE);
+            }
+        });
+        return retval;
+    }
+
+    /**
+     * @param first the first key
+     * @param stride the difference between consecutive keys
+     * @param numKeys the number of keys to generate
+     * @return ascending keys, like identifiers issued by a sequence, whose
+     *         bits are far from random
+     */
+    public static List<Long> generateSequentialKeys(final long first, final long stride, final int numKeys) {
+        final var retval = new Long[numKeys];
+        IntStream.range(0, numKeys).parallel().forEach(i -> retval[i] = first + i * stride);
+        return Arrays.asList(retval);
+    }
+
+    /**
+     * @param prefix the text that every key starts with
+     * @param firstId the number of the first key
+     * @param numKeys the number of keys to generate
+     * @return keys that differ only in a zero-padded, twelve digit suffix,
+     *         like URLs or file paths
+     */
+    public static List<String> generatePrefixedStringKeys(final String prefix, final long firstId,
+            final int numKeys) {
+        final var retval = new String[numKeys];
+        IntStream.range(0, numKeys).parallel().forEach(i -> retval[i] = prefix + String.format("%012d", firstId + i));
+        return Arrays.asList(retval);
+    }
+
+    /**
+     * @param numKeys the number of keys to generate
+     * @return strings in groups of {@link #COLLIDING_GROUP_SIZE} that share
+     *         a hash code. Each key is a group name followed by blocks of
+     *         "Aa" or "BB", which have the same hash code.
+     */
+    public static List<String> generateCollidingStringKeys(final int numKeys) {
+        return generateCollidingStrings(COLLIDING_BLOCKS, 0, numKeys);
+    }
+
+    /**
+     * @param numKeys the number of keys to generate
+     * @return strings that are not returned by
+     *         {@link #generateCollidingStringKeys(int)} but that share a
+     *         hash code with the key in the same position, so that looking
+     *         one up searches a full group of colliding keys. Each contains
+     *         at least one "C#" block, which has the same hash code as "Aa".
+     */
+    public static List<String> generateCollidingStringMisses(final int numKeys) {
+        return generateCollidingStrings(COLLIDING_MISS_BLOCKS, 1, numKeys);
+    }
+
+    protected static List<String> generateCollidingStrings(final String[] blocks, final int minMissBlocks,
+            final int numKeys) {
+        // enumerate the patterns of blocks, keeping those with enough "C#"
+        final var suffixes = new String[COLLIDING_GROUP_SIZE];
+        for (int pattern = 0, found = 0; found < suffixes.length; pattern++) {
+            final var builder = new StringBuilder();
+            int missBlocks = 0;
+            for (int block = 0, digits = pattern; block < COLLIDING_BLOCK_COUNT; block++, digits /= blocks.length) {
+                final int digit = digits % blocks.length;
+                missBlocks += digit >= COLLIDING_BLOCKS.length ? 1 : 0;
+                builder.append(blocks[digit]);
+            }
+            if (missBlocks >= minMissBlocks) {
+                suffixes[found++] = builder.toString();
+            }
+        }
+        final var retval = new String[numKeys];
+        IntStream.range(0, numKeys).parallel().forEach(i -> retval[i] = "group-" + i / COLLIDING_GROUP_SIZE
+                + suffixes[i % COLLIDING_GROUP_SIZE]);
+        return Arrays.asList(retval);
+    }
+
+    /**
+     * @param keyFactory creates a key from a source of randomness, e.g.
+     *        {@link KeyType#createKey(SplittableRandom)}
+     * @param numKeys the number of keys to generate
+     * @return the keys, in the order they were generated
+     */
+    public <K> List<K> generateKeys(final Function<SplittableRandom, K> keyFactory, final int numKeys) {
+        @SuppressWarnings("unchecked")
+        final var retval = (K[]) new Object[numKeys];
+        final var chunkRandoms = splitChunks(numKeys);
+        IntStream.range(0, chunkRandoms.length).parallel().forEach(chunk -> {
+            final var random = chunkRandoms[chunk];
+            for (int i = chunk * CHUNK_SIZE, end = Math.min(numKeys, i + CHUNK_SIZE); i < end; i++) {
+                retval[i] = keyFactory.apply(random);
+            }
+        });
+        return Arrays.asList(retval);
+    }
+
+    /**
+     * @return a new generator for other randomised fixtures, such as
+     *         shuffles, that is determined by the seed
+     */
+    public synchronized SplittableRandom split() {
+        return master.split();
+    }
+
+    protected synchronized SplittableRandom[] splitChunks(final int numKeys) {
+        final var retval = new SplittableRandom[(numKeys + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int i = 0; i < retval.length; i++) {
+            retval[i] = master.split();
+        }
+        return retval;
+    }
+
+    protected static boolean isValidCodePoint(final int codePoint) {
+        if (codePoint >= 0xe000 && codePoint <= 0xf8ff) {
+            // basic multilingual plane (6,400 code points)
+            return false;
+        } else if (codePoint >= 0xf0000 && codePoint <= 0xfffff) {
+            // Supplementary Private Use Area-A (65,534 code points)
+            return false;
+        } else if (codePoint >= 0x100000 && codePoint <= 0x10ffff) {
+            // Supplementary Private Use Area-B (65,534 code points)
+            return false;
+        } else if (codePoint >= 0xd800 && codePoint <= 0xdfff) {
+            // From jqwik DefaultCharacterArbitrary
+            // https://en.wikipedia.org/wiki/UTF-16#U+D800_to_U+DFFF
+            return false;
+        } else if (codePoint >= 0xfdd0 && codePoint <= 0xfdef) {
+            // From jqwik DefaultCharacterArbitrary
+            return false;
+        } else if (codePoint == 0xfffe || codePoint == 0xffff) {
+            // From jqwik DefaultCharacterArbitrary
+            return false;
+        }
+        return true;
+    }
+
+}
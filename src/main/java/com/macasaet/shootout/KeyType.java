@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * A family of benchmark keys other than the built-in int64 and string
+ * keys. Keys must implement {@link Comparable} consistently with
+ * <code>equals</code> so that ordered implementations can be benchmarked
+ * too. Implementations create maps for a key type with
+ * {@link MapSupplier#createMap(KeyType)}.
+ *
+ * @param <K> the key type
+ */
+public interface KeyType<K> {
+
+    /**
+     * Version 4 (random) UUIDs, whose hash code folds two longs and whose
+     * equality compares them.
+     */
+    KeyType<UUID> RANDOM_UUID = new KeyType<>() {
+        public String getLabel() {
+            return "uuid";
+        }
+
+        public UUID createKey(final SplittableRandom random) {
+            final long mostSignificantBits = (random.nextLong() & ~0xf000l) | 0x4000l;
+            final long leastSignificantBits = (random.nextLong() & 0x3fffffffffffffffl) | 0x8000000000000000l;
+            return new UUID(mostSignificantBits, leastSignificantBits);
+        }
+    };
+
+    /**
+     * 20-byte identifiers, the size of a SHA-1 digest, with cached hash
+     * codes.
+     */
+    KeyType<ByteSequenceKey> BYTE_SEQUENCE = new KeyType<>() {
+        public String getLabel() {
+            return "byteSequence";
+        }
+
+        public ByteSequenceKey createKey(final SplittableRandom random) {
+            final var bytes = new byte[20];
+            for (int i = 0; i < bytes.length; i += Long.BYTES) {
+                long bits = random.nextLong();
+                for (int j = i; j < Math.min(bytes.length, i + Long.BYTES); j++, bits >>>= 8) {
+                    bytes[j] = (byte) bits;
+                }
+            }
+            return new ByteSequenceKey(bytes);
+        }
+    };
+
+    /**
+     * Keys made of a tenant, a namespace, and an identifier whose hash code
+     * is recomputed on every call. Miss keys belong to tenants that the
+     * other keys do not.
+     */
+    KeyType<CompositeKey> COMPOSITE = new KeyType<>() {
+        private final String[] namespaces = { "account", "order", "invoice", "shipment", "session", "product" };
+        private final int tenants = 1_000;
+
+        public String getLabel() {
+            return "composite";
+        }
+
+        public CompositeKey createKey(final SplittableRandom random) {
+            return createKey(random, random.nextInt(tenants));
+        }
+
+        public CompositeKey createMissKey(final SplittableRandom random) {
+            return createKey(random, tenants + random.nextInt(tenants));
+        }
+
+        private CompositeKey createKey(final SplittableRandom random, final int tenant) {
+            // copy the namespace so that equal keys do not share it and
+            // equals() has to compare the characters
+            final var namespace = new String(namespaces[random.nextInt(namespaces.length)].toCharArray());
+            return new CompositeKey(tenant, namespace, random.nextLong());
+        }
+    };
+
+    /**
+     * @return a short label for the key type, used as the key label of
+     *         the results
+     */
+    String getLabel();
+
+    /**
+     * @return a random key, distinct from the previous keys with high
+     *         probability
+     */
+    K createKey(SplittableRandom random);
+
+    /**
+     * Key types whose keys could collide should override this to draw from
+     * a disjoint set of keys.
+     *
+     * @return a random key that is not expected to equal any key returned
+     *         by {@link #createKey(SplittableRandom)}
+     */
+    default K createMissKey(final SplittableRandom random) {
+        return createKey(random);
+    }
+
+}
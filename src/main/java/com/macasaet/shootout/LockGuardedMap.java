@@ -0,0 +1,237 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A thread-safe {@link HashMap} guarded by a single {@link ReentrantLock},
+ * the {@link java.util.concurrent.locks.Lock} equivalent of
+ * {@link java.util.Collections#synchronizedMap(java.util.Map)}. Unlike a
+ * monitor, a virtual thread that blocks while holding or waiting for the
+ * lock releases its carrier thread.
+ *
+ * <p>The compound operations, such as
+ * {@link #computeIfAbsent(Object, Function)}, hold the lock while the
+ * function is applied. Iterators operate on a snapshot.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LockGuardedMap<K, V> extends AbstractMap<K, V> {
+
+    private final HashMap<K, V> map;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Set<Entry<K, V>> entrySet;
+
+    public LockGuardedMap() {
+        this(new HashMap<>());
+    }
+
+    /**
+     * @param expectedSize the number of entries the map should hold without resizing
+     * @param loadFactor the load factor of the underlying map
+     */
+    public LockGuardedMap(final int expectedSize, final float loadFactor) {
+        this(new HashMap<>(JdkHashTables.initialCapacity(expectedSize, loadFactor), loadFactor));
+    }
+
+    protected LockGuardedMap(final HashMap<K, V> map) {
+        Objects.requireNonNull(map);
+        this.map = map;
+    }
+
+    public V get(final Object key) {
+        lock.lock();
+        try {
+            return map.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean containsKey(final Object key) {
+        lock.lock();
+        try {
+            return map.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V put(final K key, final V value) {
+        lock.lock();
+        try {
+            return map.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V remove(final Object key) {
+        lock.lock();
+        try {
+            return map.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        lock.lock();
+        try {
+            return map.computeIfAbsent(key, mappingFunction);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V compute(final K key, final BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        lock.lock();
+        try {
+            return map.compute(key, remappingFunction);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V merge(final K key, final V value,
+            final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        lock.lock();
+        try {
+            return map.merge(key, value, remappingFunction);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        lock.lock();
+        try {
+            map.forEach(action);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the map the lock guards, for diagnostics
+     */
+    protected HashMap<K, V> getDelegate() {
+        return map;
+    }
+
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                public int size() {
+                    return LockGuardedMap.this.size();
+                }
+
+                public void clear() {
+                    LockGuardedMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Iterates over a snapshot of the map. Removal and value updates are
+     * written through to the map.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private final Iterator<Entry<K, V>> snapshot;
+        private Entry<K, V> lastReturned;
+
+        public EntryIterator() {
+            final ArrayList<Entry<K, V>> entries;
+            lock.lock();
+            try {
+                entries = new ArrayList<>(map.size());
+                for (final var entry : map.entrySet()) {
+                    entries.add(new SimpleEntry<>(entry) {
+                        private static final long serialVersionUID = 1l;
+
+                        public V setValue(final V value) {
+                            put(getKey(), value);
+                            return super.setValue(value);
+                        }
+                    });
+                }
+            } finally {
+                lock.unlock();
+            }
+            snapshot = entries.iterator();
+        }
+
+        public boolean hasNext() {
+            return snapshot.hasNext();
+        }
+
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return lastReturned = snapshot.next();
+        }
+
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            LockGuardedMap.this.remove(lastReturned.getKey());
+            lastReturned = null;
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+/**
+ * A {@link BPlusTreeMap} that stores its keys in <code>long[]</code>s, so
+ * that a node's keys are contiguous in memory and are compared without
+ * dereferencing a {@link Long}. Keys are boxed when returned.
+ *
+ * @param <V> the value type
+ */
+public class LongBPlusTreeMap<V> extends BPlusTreeMap<Long, V> {
+
+    public LongBPlusTreeMap() {
+        this(DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * @param nodeCapacity the maximum number of keys per node, at least 4
+     */
+    public LongBPlusTreeMap(final int nodeCapacity) {
+        super(null, nodeCapacity);
+    }
+
+    protected Object createKeys(final int length) {
+        return new long[length];
+    }
+
+    protected int search(final Object keys, final int size, final Object key) {
+        final var array = (long[]) keys;
+        final long target = (Long) key;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long current = array[middle];
+            if (current < target) {
+                low = middle + 1;
+            } else if (current > target) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    protected Long keyAt(final Object keys, final int index) {
+        return ((long[]) keys)[index];
+    }
+
+    protected void setKey(final Object keys, final int index, final Long key) {
+        ((long[]) keys)[index] = key;
+    }
+
+    protected void clearKey(final Object keys, final int index) {
+    }
+
+}
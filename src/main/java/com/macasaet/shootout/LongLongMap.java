@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+/**
+ * A map from primitive <code>long</code> keys to primitive
+ * <code>long</code> values. Unlike a {@link java.util.Map Map&lt;Long,
+ * Long&gt;}, none of the operations require boxing. Since there is no
+ * <code>null</code>, absent entries are signalled with a configurable
+ * sentinel value.
+ */
+public interface LongLongMap {
+
+    /**
+     * @param key the key to look up
+     * @return the value associated with the key or
+     *         {@link #getNoEntryValue()} if there is none
+     */
+    long get(long key);
+
+    boolean containsKey(long key);
+
+    /**
+     * @param key the key with which to associate the value
+     * @param value the value to store
+     * @return the value previously associated with the key or
+     *         {@link #getNoEntryValue()} if there was none
+     */
+    long put(long key, long value);
+
+    /**
+     * @param key the key to remove
+     * @return the value previously associated with the key or
+     *         {@link #getNoEntryValue()} if there was none
+     */
+    long remove(long key);
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    void clear();
+
+    void forEach(LongLongConsumer action);
+
+    /**
+     * @return the value returned by {@link #get(long)},
+     *         {@link #put(long, long)}, and {@link #remove(long)} when
+     *         there is no entry for a key
+     */
+    long getNoEntryValue();
+
+    @FunctionalInterface
+    interface LongLongConsumer {
+
+        void accept(long key, long value);
+
+    }
+
+}
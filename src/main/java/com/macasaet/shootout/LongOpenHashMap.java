@@ -0,0 +1,285 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An open-addressing {@link LongLongMap} that uses linear probing. Keys
+ * and values are stored in parallel primitive arrays so a lookup touches
+ * at most a few adjacent cache lines and never allocates. Deletion shifts
+ * subsequent entries in the probe sequence backward rather than leaving
+ * tombstones, so probe sequences stay short after heavy removal.
+ *
+ * <p>The key <code>0</code> marks an empty slot, so that key is stored
+ * separately.</p>
+ */
+public class LongOpenHashMap implements LongLongMap, OpenAddressingTable {
+
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final long FREE = 0l;
+
+    private final float loadFactor;
+    private final long noEntryValue;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    private boolean containsFreeKey;
+    private long freeKeyValue;
+
+    public LongOpenHashMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR, 0l);
+    }
+
+    public LongOpenHashMap(final int expectedSize, final float loadFactor) {
+        this(expectedSize, loadFactor, 0l);
+    }
+
+    /**
+     * @param expectedSize the number of entries the map should hold without resizing
+     * @param loadFactor the maximum ratio of entries to slots, must be in (0, 1)
+     * @param noEntryValue the value to return when a key is not present
+     */
+    public LongOpenHashMap(final int expectedSize, final float loadFactor, final long noEntryValue) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be non-negative");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be between 0 and 1 (exclusive)");
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(capacityFor(expectedSize, loadFactor));
+    }
+
+    public long get(final long key) {
+        if (key == FREE) {
+            return containsFreeKey ? freeKeyValue : noEntryValue;
+        }
+        final var keys = this.keys;
+        final var mask = this.mask;
+        long current;
+        for (int index = index(key); (current = keys[index]) != FREE; index = (index + 1) & mask) {
+            if (current == key) {
+                return values[index];
+            }
+        }
+        return noEntryValue;
+    }
+
+    public boolean containsKey(final long key) {
+        if (key == FREE) {
+            return containsFreeKey;
+        }
+        final var keys = this.keys;
+        final var mask = this.mask;
+        long current;
+        for (int index = index(key); (current = keys[index]) != FREE; index = (index + 1) & mask) {
+            if (current == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long put(final long key, final long value) {
+        if (key == FREE) {
+            final var previous = containsFreeKey ? freeKeyValue : noEntryValue;
+            if (!containsFreeKey) {
+                containsFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return previous;
+        }
+        final var keys = this.keys;
+        final var mask = this.mask;
+        int index = index(key);
+        long current;
+        while ((current = keys[index]) != FREE) {
+            if (current == key) {
+                final var previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold) {
+            rehash(keys.length * 2);
+        }
+        return noEntryValue;
+    }
+
+    public long remove(final long key) {
+        if (key == FREE) {
+            if (!containsFreeKey) {
+                return noEntryValue;
+            }
+            containsFreeKey = false;
+            size--;
+            return freeKeyValue;
+        }
+        final var keys = this.keys;
+        final var mask = this.mask;
+        long current;
+        for (int index = index(key); (current = keys[index]) != FREE; index = (index + 1) & mask) {
+            if (current == key) {
+                final var previous = values[index];
+                size--;
+                shiftKeys(index);
+                return previous;
+            }
+        }
+        return noEntryValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        size = 0;
+        containsFreeKey = false;
+        Arrays.fill(keys, FREE);
+    }
+
+    public void forEach(final LongLongConsumer action) {
+        Objects.requireNonNull(action);
+        if (containsFreeKey) {
+            action.accept(FREE, freeKeyValue);
+        }
+        final var keys = this.keys;
+        final var values = this.values;
+        for (int index = 0; index < keys.length; index++) {
+            final var key = keys[index];
+            if (key != FREE) {
+                action.accept(key, values[index]);
+            }
+        }
+    }
+
+    public long getNoEntryValue() {
+        return noEntryValue;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * The free key is stored outside of the table, so it is not counted.
+     */
+    public int getProbeDistance(final int slot) {
+        final var key = keys[slot];
+        return key == FREE ? -1 : (slot - index(key)) & mask;
+    }
+
+    /**
+     * Close the gap left by a removed entry by moving back any subsequent
+     * entries in the same cluster whose home slot is not between the gap
+     * and their current position (Knuth, Algorithm R).
+     *
+     * @param gap the slot that was just vacated
+     */
+    protected void shiftKeys(int gap) {
+        final var keys = this.keys;
+        final var values = this.values;
+        final var mask = this.mask;
+        while (true) {
+            int slot = (gap + 1) & mask;
+            long current;
+            while (true) {
+                if ((current = keys[slot]) == FREE) {
+                    keys[gap] = FREE;
+                    return;
+                }
+                final int home = index(current);
+                if (gap <= slot ? gap >= home || home > slot : gap >= home && home > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[gap] = current;
+            values[gap] = values[slot];
+            gap = slot;
+        }
+    }
+
+    protected void rehash(final int capacity) {
+        final var oldKeys = keys;
+        final var oldValues = values;
+        allocate(capacity);
+        final var keys = this.keys;
+        final var mask = this.mask;
+        for (int i = oldKeys.length; --i >= 0;) {
+            final var key = oldKeys[i];
+            if (key != FREE) {
+                int index = index(key);
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    protected int index(final long key) {
+        return (int) mix(key) & mask;
+    }
+
+    /**
+     * The MurmurHash3 64-bit finaliser, so that keys which differ only in
+     * their high bits do not cluster.
+     */
+    protected static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdl;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53l;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    protected static int capacityFor(final int expectedSize, final float loadFactor) {
+        final var minimum = (long) Math.ceil(Math.max(expectedSize, 1) / (double) loadFactor) + 1;
+        if (minimum >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Math.max(2, Integer.highestOneBit((int) minimum - 1) << 1);
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+}
@@ -15,13 +15,10 @@
  */
 package com.macasaet.shootout;
 
-import static org.junit.jupiter.api.DynamicTest.dynamicTest;
-
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.junit.jupiter.api.DynamicTest;
@@ -31,34 +28,25 @@ import org.junit.jupiter.api.DynamicTest;
  *
  * @param <K> the Map's key type
  */
-public abstract class MapBenchmark<K> {
+public abstract class MapBenchmark<K> extends TimedBenchmark {
 
     private final MapSupplier implementation;
     private final Supplier<Map<K, Long>> mapSupplier;
-    private final String keyLabel;
-    private final String testLabel;
     private final Collection<K> keys;
 
     private Map<K, Long> map;
 
     protected MapBenchmark(final MapSupplier implementation, final Supplier<Map<K, Long>> mapSupplier,
             final String keyLabel, final String testLabel, final Collection<K> keys) {
+        super(keyLabel, testLabel);
         Objects.requireNonNull(implementation);
         Objects.requireNonNull(mapSupplier);
-        Objects.requireNonNull(keyLabel);
-        Objects.requireNonNull(testLabel);
         Objects.requireNonNull(keys);
         this.implementation = implementation;
         this.mapSupplier = mapSupplier;
-        this.keyLabel = keyLabel;
-        this.testLabel = testLabel;
         this.keys = keys;
     }
 
-    public DynamicTest asDynamicTest() {
-        return dynamicTest(getTestLabel(), this::execute);
-    }
-
     /**
      * Create a new map and perform any other test setup. If your metric
      * requires more preparation other than instantiating a map, then
@@ -71,50 +59,6 @@ public abstract class MapBenchmark<K> {
         setMap(getMapSupplier().get());
     }
 
-    /**
-     * Prepares the test, runs the test, then cleans up resources. The test
-     * invocation is also timed and memory consumption is measured. Finally,
-     * the results are emitted to stdout.
-     * @throws IOException 
-     */
-    protected void execute() throws IOException {
-        init();
-        final var runtime = Runtime.getRuntime();
-
-        // make a best effort to proactively garbage collect resources to
-        // reduce, but not eliminate, the likelihood that garbage collection
-        // affects test performance
-        runtime.gc();
-
-        final var startMemory = runtime.totalMemory() - runtime.freeMemory();
-        final var startNanos = System.nanoTime();
-        benchmark(getMap());
-        final var endNanos = System.nanoTime();
-        final var endMemory = runtime.totalMemory() - runtime.freeMemory();
-
-        // release memory references to improve the likelihood that GC will
-        // happen before the next benchmark
-        destroy();
-
-        final var elapsedNanos = endNanos - startNanos;
-        final var consumedMemory = endMemory - startMemory;
-
-        final var out = getWriter();
-        out.write(keyLabel);
-        out.append('\t');
-        out.write(testLabel);
-        out.append('\t');
-        out.write(getImplementation().name());
-        out.append('\t');
-        out.write(String.valueOf(getKeys().size()));
-        out.append('\t');
-        out.write(String.valueOf(elapsedNanos));
-        out.append('\t');
-        out.write(String.valueOf(consumedMemory));
-        out.println();
-        out.flush();
-    }
-
     /**
      * Release memory to reduce the likelihood that garbage collection
      * interferes with the next test. If your test allocates additional
@@ -127,6 +71,10 @@ public abstract class MapBenchmark<K> {
         setMap(null);
     }
 
+    protected void runBenchmark() {
+        benchmark(getMap());
+    }
+
     /**
      * Perform the actual test. This method will automatically be timed and
      * memory consumption before and after will be measured. This method
@@ -137,16 +85,38 @@ public abstract class MapBenchmark<K> {
      */
     protected abstract void benchmark(Map<K, Long> map);
 
-    protected Supplier<Map<K, Long>> getMapSupplier() {
-        return mapSupplier;
-    }
-
-    protected String getKeyLabel() {
-        return keyLabel;
+    /**
+     * Apply an operation to each key. If latency recording is enabled, the
+     * time taken by each batch of operations is recorded as well.
+     *
+     * @param keys the keys, or other operands, to operate on, in order
+     * @param operation the map operation to perform on each key
+     */
+    protected <T> void forEach(final Iterable<T> keys, final Consumer<? super T> operation) {
+        final var histogram = getLatencyHistogram();
+        if (histogram == null) {
+            keys.forEach(operation);
+            return;
+        }
+        final int batchSize = getLatencyBatchSize();
+        int remaining = batchSize;
+        long batchStart = System.nanoTime();
+        for (final var key : keys) {
+            operation.accept(key);
+            if (--remaining == 0) {
+                final var batchEnd = System.nanoTime();
+                histogram.record(batchEnd - batchStart);
+                batchStart = batchEnd;
+                remaining = batchSize;
+            }
+        }
+        if (remaining != batchSize) {
+            histogram.record(System.nanoTime() - batchStart);
+        }
     }
 
-    protected String getTestLabel() {
-        return testLabel;
+    protected Supplier<Map<K, Long>> getMapSupplier() {
+        return mapSupplier;
     }
 
     protected Map<K, Long> getMap() {
@@ -161,9 +131,16 @@ public abstract class MapBenchmark<K> {
         return implementation;
     }
 
+    protected String getImplementationName() {
+        return getImplementation().name();
+    }
+
     protected Collection<K> getKeys() {
         return keys;
     }
 
-    protected abstract PrintWriter getWriter();
-}
\ No newline at end of file
+    protected int getKeyCount() {
+        return getKeys().size();
+    }
+
+}
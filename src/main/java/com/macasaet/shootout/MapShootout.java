@@ -15,18 +15,32 @@
  */
 package com.macasaet.shootout;
 
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.junit.jupiter.api.DynamicContainer.dynamicContainer;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
-import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -48,142 +62,794 @@ import org.junit.jupiter.api.TestFactory;
  */
 public class MapShootout {
 
-    private final Random random = new Random();
+    /**
+     * The number of <code>headMap</code> or <code>tailMap</code> views
+     * iterated per test
+     */
+    protected static final int RANGE_ITERATION_PIVOTS = 10;
+
+    protected static final int SMALL_STRING_LENGTH = 16;
+    protected static final int LARGE_STRING_LENGTH = 64;
+
+    /**
+     * Key families whose keys are far from random, to show how each
+     * implementation copes with poorly distributed hash codes
+     */
+    protected static final List<String> LOW_ENTROPY_INTEGER_KEY_FAMILIES = List.of("sequentialInt64", "stridedInt64");
+    protected static final List<String> LOW_ENTROPY_STRING_KEY_FAMILIES = List.of("prefixedString", "collidingString");
+    /**
+     * The difference between consecutive "stridedInt64" keys, which leaves
+     * their low bits zero
+     */
+    protected static final long INTEGER_KEY_STRIDE = 1l << 16;
+    protected static final String STRING_KEY_PREFIX = "https://example.com/api/v1/accounts/transactions/";
+
+    private final KeyGenerator keyGenerator = new KeyGenerator();
+    private final SplittableRandom random = keyGenerator.split();
+    private final String corpusDirectory = System.getProperty("shootout.corpus");
+    private final List<Float> loadFactors = Arrays.stream(System.getProperty("shootout.loadFactors", "0.5,0.75,0.9").split(","))
+            .map(String::trim)
+            .filter(loadFactor -> !loadFactor.isEmpty())
+            .map(Float::valueOf)
+            .collect(Collectors.toList());
+    private final List<Integer> scanWidths = Arrays.stream(System.getProperty("shootout.scanWidths", "10,100,1000").split(","))
+            .map(String::trim)
+            .filter(width -> !width.isEmpty())
+            .map(Integer::valueOf)
+            .collect(Collectors.toList());
+    private final List<Double> cacheRatios = Arrays.stream(System.getProperty("shootout.cacheRatios", "0.01,0.05,0.1").split(","))
+            .map(String::trim)
+            .filter(ratio -> !ratio.isEmpty())
+            .map(Double::valueOf)
+            .collect(Collectors.toList());
+    private final List<Integer> parallelism = Arrays.stream(System.getProperty("shootout.parallelism",
+            getDefaultParallelism()).split(","))
+            .map(String::trim)
+            .filter(threads -> !threads.isEmpty())
+            .map(Integer::valueOf)
+            .collect(Collectors.toList());
+    private final double theta = Double.parseDouble(System.getProperty("shootout.theta", String.valueOf(Workload.DEFAULT_THETA)));
+    private final Set<String> selectedKeyFamilies = Arrays.stream(System.getProperty("shootout.keyFamilies", "").split(","))
+            .map(String::trim)
+            .filter(keyFamily -> !keyFamily.isEmpty())
+            .collect(Collectors.toSet());
+    private final Set<String> selectedImplementations = Arrays.stream(System.getProperty("shootout.implementations", "").split(","))
+            .map(String::trim)
+            .filter(implementation -> !implementation.isEmpty())
+            .collect(Collectors.toSet());
+    private final Pattern selectedScenarios = Pattern.compile(System.getProperty("shootout.scenarios", ""));
+    private final int minKeys = Integer.getInteger("shootout.minKeys", 0);
+    private final int maxKeys = Integer.getInteger("shootout.maxKeys", Integer.MAX_VALUE);
+    private final FixtureCache fixtures = new FixtureCache();
     private final List<MapSupplier> mapSuppliers;
+    private final List<PrimitiveMapSupplier> primitiveMapSuppliers;
+    private final List<BoundedCacheSupplier> cacheSuppliers;
+    private final List<KeyType<?>> keyTypes = Arrays.asList(KeyType.RANDOM_UUID, KeyType.BYTE_SEQUENCE,
+            KeyType.COMPOSITE);
+
+    private ResultSink resultSink;
+
+    /**
+     * @param mapSuppliers the {@link Map} implementations to benchmark
+     * @param primitiveMapSuppliers the {@link LongLongMap} implementations
+     *        to benchmark against the same int64 keys
+     * @param cacheSuppliers the bounded caches to replay access traces against
+     */
+    public MapShootout(final List<MapSupplier> mapSuppliers, final List<PrimitiveMapSupplier> primitiveMapSuppliers,
+            final List<BoundedCacheSupplier> cacheSuppliers) {
+        Objects.requireNonNull(mapSuppliers);
+        Objects.requireNonNull(primitiveMapSuppliers);
+        Objects.requireNonNull(cacheSuppliers);
+        this.mapSuppliers = mapSuppliers.stream()
+                .filter(supplier -> isImplementationSelected(supplier.name()))
+                .collect(Collectors.toList());
+        this.primitiveMapSuppliers = primitiveMapSuppliers.stream()
+                .filter(supplier -> isImplementationSelected(supplier.name()))
+                .collect(Collectors.toList());
+        this.cacheSuppliers = cacheSuppliers.stream()
+                .filter(supplier -> isImplementationSelected(supplier.name()))
+                .collect(Collectors.toList());
+    }
 
-    private PrintWriter outputSink;
+    public MapShootout(final List<MapSupplier> mapSuppliers, final List<PrimitiveMapSupplier> primitiveMapSuppliers) {
+        this(mapSuppliers, primitiveMapSuppliers, Collections.emptyList());
+    }
 
     public MapShootout(final List<MapSupplier> mapSuppliers) {
-        Objects.requireNonNull(mapSuppliers);
-        this.mapSuppliers = mapSuppliers;
+        this(mapSuppliers, Collections.emptyList());
     }
 
     public MapShootout() {
         this(Arrays.asList(JdkHashTables.JDK_HASH_MAP,
-                JdkHashTables.JDK_LINKED_HASH_MAP, JdkSearchTrees.JDK_TREE_MAP));
+                JdkHashTables.JDK_LINKED_HASH_MAP, JdkSearchTrees.JDK_TREE_MAP,
+                OffHeapHashTables.OFF_HEAP_HASH_MAP,
+                OpenAddressingHashTables.ROBIN_HOOD_HASH_MAP,
+                OpenAddressingHashTables.HOPSCOTCH_HASH_MAP,
+                ConcurrentSearchTrees.CONCURRENT_SKIP_LIST_MAP,
+                CacheConsciousSearchTrees.B_PLUS_TREE_MAP,
+                CacheConsciousSearchTrees.ADAPTIVE_RADIX_TREE_MAP),
+                Arrays.asList(PrimitiveHashTables.values()),
+                Arrays.asList(BoundedCaches.values()));
     }
 
+    /**
+     * Create every test, grouped by key family and number of keys. Keys
+     * are generated lazily, shared by every implementation, and released
+     * once the tests for that number of keys are done. The tests can be
+     * restricted with the following system properties:
+     * <ul>
+     * <li>"shootout.keyFamilies", a comma-separated list of key families,
+     * e.g. "int64,uuid"</li>
+     * <li>"shootout.implementations", a comma-separated list of
+     * implementation names</li>
+     * <li>"shootout.scenarios", a regular expression that must be found in
+     * the test label, e.g. "Reads"</li>
+     * <li>"shootout.minKeys" and "shootout.maxKeys", the range of key
+     * counts, inclusive</li>
+     * </ul>
+     */
     @TestFactory
     public Stream<DynamicNode> benchmarkMapImplementations() {
-        final int smallStringLength = 16;
-        final int largeStringLength = 64;
-
-        final List<String> largeStringKeys = generateStringKeys(largeStringLength, 3_000_000);
-
         return Stream.of(
-                dynamicContainer("Large String Tests",
-                        IntStream.iterate(3_000_000, size -> size > 0, size -> size - 200_000)
-                        .mapToObj(size -> largeStringKeys.subList(0, size))
-                        .map(keys -> createStringTests(keys, "largeString", largeStringLength))),
-                dynamicContainer("Small String Tests",
-                    IntStream.iterate(3_000_000, size -> size > 0, size -> size - 200_000)
-                        .mapToObj(size -> largeStringKeys
-                                .subList(0, size)
-                                .stream()
-                                .map(largeString -> largeString.substring(0, smallStringLength))
-                                .collect(Collectors.toList()))
-                        .map(keys -> createStringTests(keys, "smallString", smallStringLength))),
-                dynamicContainer("Integer Tests",
-                    IntStream.iterate(3_000_000, size -> size > 0, size -> size - 200_000).mapToObj(size -> {
-                        final var nonNegativeKeys = generateIntegerKeys(0, size);
-                        final var fullKeys = generateIntegerKeys(Long.MIN_VALUE, size);
-                        return createIntegerTests(nonNegativeKeys, fullKeys);
-                    }))
+                dynamicContainer("Large String Tests", createSizeTests("largeString", 3_000_000)),
+                dynamicContainer("Small String Tests", createSizeTests("smallString", 3_000_000)),
+                dynamicContainer("Integer Tests", createSizeTests("int64", 3_000_000)),
+                dynamicContainer("Key Type Tests", getKeyTypes().stream()
+                        .map(KeyType::getLabel)
+                        .filter(this::isKeyFamilySelected)
+                        .map(keyFamily -> dynamicContainer(keyFamily, createSizeTests(keyFamily, 1_000_000)))),
+                dynamicContainer("Low-Entropy Key Tests", Stream.concat(LOW_ENTROPY_INTEGER_KEY_FAMILIES.stream(),
+                            LOW_ENTROPY_STRING_KEY_FAMILIES.stream())
+                        .filter(this::isKeyFamilySelected)
+                        .map(keyFamily -> dynamicContainer(keyFamily, createSizeTests(keyFamily, 1_000_000)))),
+                dynamicContainer("Workload Tests", getSizes("int64", IntStream.of(1_000_000))
+                        .mapToObj(numRecords -> releasingFixtures(numRecords, createWorkloadTests("int64",
+                                getIntegerKeys("int64", Long.MIN_VALUE, numRecords),
+                                getIntegerKeys("int64Misses", Long.MIN_VALUE, numRecords),
+                                MapSupplier::createLongMap)))),
+                dynamicContainer("Cache Tests", getSizes("int64", IntStream.of(1_000_000))
+                        .mapToObj(numKeys -> releasingFixtures(numKeys, createCacheTests("int64",
+                                getIntegerKeys("int64", Long.MIN_VALUE, numKeys)))))
         );
     }
 
-    protected List<String> generateStringKeys(final int stringLength, final int numKeys) {
-        return IntStream.range(0, numKeys).mapToObj(ignore -> {
-            final var builder = new StringBuilder(stringLength);
-            random.ints(Character.MIN_CODE_POINT, Character.MAX_CODE_POINT)
-                .filter(this::isValidCodePoint)
-                .limit(stringLength)
-                .forEach(builder::appendCodePoint);
-            return builder.toString();
-        }).collect(Collectors.toList());
-    }
-
-    protected boolean isValidCodePoint(final int codePoint) {
-        if (codePoint >= 0xe000 && codePoint <= 0xf8ff) {
-            // basic multilingual plane (6,400 code points)
-            return false;
-        } else if (codePoint >= 0xf0000 && codePoint <= 0xfffff) {
-            // Supplementary Private Use Area-A (65,534 code points)
-            return false;
-        } else if (codePoint >= 0x100000 && codePoint <= 0x10ffff) {
-            // Supplementary Private Use Area-B (65,534 code points)
-            return false;
-        } else if (codePoint >= 0xd800 && codePoint <= 0xdfff) {
-            // From jqwik DefaultCharacterArbitrary
-            // https://en.wikipedia.org/wiki/UTF-16#U+D800_to_U+DFFF
-            return false;
-        } else if (codePoint >= 0xfdd0 && codePoint <= 0xfdef) {
-            // From jqwik DefaultCharacterArbitrary
-            return false;
-        } else if (codePoint == 0xfffe || codePoint == 0xffff) {
-            // From jqwik DefaultCharacterArbitrary
-            return false;
-        }
-        return true;
-    }
-
-    protected List<Long> generateIntegerKeys(final long minValue, final int size) {
-        return random.longs(size, minValue, Long.MAX_VALUE)
-                .collect(() -> new ArrayList<Long>(size),
-                        (list, key) -> list.add(key),
-                        (x, y) -> x.addAll(y));
-    }
-
-    protected DynamicContainer createIntegerTests(final Collection<Long> nonNegativeKeys, final Collection<Long> fullKeys) {
+    /**
+     * @param maxKeys the largest number of keys, the tests are repeated
+     *        with 200,000 fewer keys each time
+     * @return a container of tests for each selected number of keys
+     */
+    protected Stream<DynamicNode> createSizeTests(final String keyFamily, final int maxKeys) {
+        return getSizes(keyFamily, IntStream.iterate(maxKeys, size -> size > 0, size -> size - 200_000))
+                .mapToObj(size -> releasingFixtures(size, createTests(keyFamily, size)));
+    }
+
+    /**
+     * Create the tests of a single key family and size, as run by
+     * {@link #benchmarkMapImplementations()}, without generating the keys
+     * of any other size. This is used to run one cell of the
+     * {@link ForkedShootout} matrix per JVM.
+     *
+     * @param keyFamily "int64", "smallString", "largeString", one of the
+     *        low-entropy key families, or the label of one of
+     *        {@link #getKeyTypes()}
+     * @param size the number of keys
+     * @throws IllegalArgumentException if the key family is not recognised
+     */
+    protected DynamicContainer createTests(final String keyFamily, final int size) {
+        switch (keyFamily) {
+        case "int64":
+            return createIntegerTests(getIntegerKeys("int64NonNegative", 0, size),
+                    getIntegerKeys("int64", Long.MIN_VALUE, size),
+                    getIntegerKeys("int64Misses", Long.MIN_VALUE, size));
+        case "largeString":
+            return createStringTests(getStringKeys("largeString", LARGE_STRING_LENGTH, size), keyFamily,
+                    LARGE_STRING_LENGTH);
+        case "smallString":
+            return createStringTests(getSmallStringKeys(size), keyFamily, SMALL_STRING_LENGTH);
+        case "sequentialInt64":
+            return createSequentialIntegerTests(keyFamily, 1l, size);
+        case "stridedInt64":
+            return createSequentialIntegerTests(keyFamily, INTEGER_KEY_STRIDE, size);
+        case "prefixedString":
+            return createStringTests(keyFamily,
+                    getDeterministicKeys(keyFamily, size,
+                            () -> KeyGenerator.generatePrefixedStringKeys(STRING_KEY_PREFIX, 0, size)),
+                    getDeterministicKeys(keyFamily + "Misses", size,
+                            () -> KeyGenerator.generatePrefixedStringKeys(STRING_KEY_PREFIX, size, size)));
+        case "collidingString":
+            return createStringTests(keyFamily,
+                    getDeterministicKeys(keyFamily, size, () -> KeyGenerator.generateCollidingStringKeys(size)),
+                    getDeterministicKeys(keyFamily + "Misses", size,
+                            () -> KeyGenerator.generateCollidingStringMisses(size)));
+        default:
+            return createKeyTypeTests(getKeyTypes().stream()
+                    .filter(keyType -> keyType.getLabel().equals(keyFamily))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown key family: " + keyFamily)), size);
+        }
+    }
+
+    /**
+     * @return the given numbers of keys that are selected for the key
+     *         family, none if the key family is not selected
+     */
+    protected IntStream getSizes(final String keyFamily, final IntStream sizes) {
+        return isKeyFamilySelected(keyFamily) ? sizes.filter(this::isSizeSelected) : IntStream.empty();
+    }
+
+    /**
+     * @return a copy of the container that releases the fixtures with the
+     *         given number of keys once its tests are done
+     */
+    protected DynamicContainer releasingFixtures(final int numKeys, final DynamicContainer container) {
+        return dynamicContainer(container.getDisplayName(),
+                container.getChildren().onClose(() -> fixtures.release(numKeys)));
+    }
+
+    protected boolean isKeyFamilySelected(final String keyFamily) {
+        return selectedKeyFamilies.isEmpty() || selectedKeyFamilies.contains(keyFamily);
+    }
+
+    protected boolean isImplementationSelected(final String implementation) {
+        return selectedImplementations.isEmpty() || selectedImplementations.contains(implementation);
+    }
+
+    protected boolean isSizeSelected(final int numKeys) {
+        return numKeys >= minKeys && numKeys <= maxKeys;
+    }
+
+    protected boolean isScenarioSelected(final TimedBenchmark benchmark) {
+        return isScenarioSelected(benchmark.getTestLabel());
+    }
+
+    protected boolean isScenarioSelected(final String testLabel) {
+        return selectedScenarios.matcher(testLabel).find();
+    }
+
+    /**
+     * Load keys from a {@link KeyCorpus} if a corpus directory was specified
+     * with the system property "shootout.corpus", otherwise generate them.
+     * Either way, the keys are cached until the fixtures of that size are
+     * released.
+     *
+     * @param corpusName the name of the corpus file, without the ".keys" extension
+     */
+    protected List<String> getStringKeys(final String corpusName, final int stringLength, final int numKeys) {
+        return fixtures.get(corpusName, numKeys, () -> {
+            if (corpusDirectory == null) {
+                return Collections.unmodifiableList(
+                        KeyGenerator.forKeySet(corpusName).generateStringKeys(stringLength, numKeys));
+            }
+            try (var corpus = KeyCorpus.open(Paths.get(corpusDirectory, corpusName + ".keys"))) {
+                return Collections.unmodifiableList(corpus.getStringKeys(numKeys));
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException(ioe.getMessage(), ioe);
+            }
+        });
+    }
+
+    /**
+     * @return the prefixes of the large string keys
+     */
+    protected List<String> getSmallStringKeys(final int numKeys) {
+        return fixtures.get("smallString", numKeys, () -> getStringKeys("largeString", LARGE_STRING_LENGTH, numKeys)
+                .stream()
+                .map(largeString -> largeString.substring(0, SMALL_STRING_LENGTH))
+                .collect(Collectors.toUnmodifiableList()));
+    }
+
+    /**
+     * Load keys from a {@link KeyCorpus} if a corpus directory was specified
+     * with the system property "shootout.corpus", otherwise generate them.
+     * Either way, the keys are cached until the fixtures of that size are
+     * released.
+     *
+     * @param corpusName the name of the corpus file, without the ".keys" extension
+     */
+    protected List<Long> getIntegerKeys(final String corpusName, final long minValue, final int numKeys) {
+        return fixtures.get(corpusName, numKeys, () -> {
+            if (corpusDirectory == null) {
+                return Collections.unmodifiableList(
+                        KeyGenerator.forKeySet(corpusName).generateIntegerKeys(minValue, numKeys));
+            }
+            try (var corpus = KeyCorpus.open(Paths.get(corpusDirectory, corpusName + ".keys"))) {
+                return Collections.unmodifiableList(corpus.getIntegerKeys(numKeys));
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException(ioe.getMessage(), ioe);
+            }
+        });
+    }
+
+    /**
+     * @param name identifies the key set, e.g. "uuidMisses"
+     * @return generated keys, cached until the fixtures of that size are
+     *         released
+     */
+    protected <K> List<K> getKeys(final String name, final Function<SplittableRandom, K> keyFactory, final int numKeys) {
+        return fixtures.get(name, numKeys,
+                () -> Collections.unmodifiableList(KeyGenerator.forKeySet(name).generateKeys(keyFactory, numKeys)));
+    }
+
+    /**
+     * @param name identifies the key set, e.g. "collidingStringMisses"
+     * @param generator creates the keys, which do not depend on the seed
+     * @return the keys, cached until the fixtures of that size are released
+     */
+    protected <K> List<K> getDeterministicKeys(final String name, final int numKeys,
+            final Supplier<List<K>> generator) {
+        return fixtures.get(name, numKeys, () -> Collections.unmodifiableList(generator.get()));
+    }
+
+    /**
+     * @param name identifies the key set, e.g. "int64Misses"
+     * @return the keys as an array, cached with the keys
+     */
+    protected long[] getPrimitiveKeys(final String name, final Collection<Long> keys) {
+        return fixtures.get(name + "Array", keys.size(), () -> toArray(keys));
+    }
+
+    /**
+     * @param nonNegativeKeys random keys in [0, {@link Long#MAX_VALUE})
+     * @param fullKeys random keys across the whole range of long
+     * @param differentKeys random keys across the whole range of long that
+     *        are not expected to be in <code>fullKeys</code>
+     */
+    protected DynamicContainer createIntegerTests(final Collection<Long> nonNegativeKeys, final Collection<Long> fullKeys,
+            final Collection<Long> differentKeys) {
         return dynamicContainer(nonNegativeKeys.size() + " keys",
-                getMapSuppliers().stream()
-                .map(mapImplementation -> createIntegerTests(nonNegativeKeys, fullKeys, mapImplementation))
+                Stream.concat(getMapSuppliers().stream()
+                        .map(mapImplementation -> createIntegerTests(nonNegativeKeys, fullKeys, differentKeys, mapImplementation)),
+                    getPrimitiveMapSuppliers().stream()
+                        .map(mapImplementation -> createPrimitiveIntegerTests(nonNegativeKeys, fullKeys, differentKeys, mapImplementation)))
         );
     }
 
-    protected DynamicContainer createIntegerTests(final Collection<Long> nonNegativeKeys, Collection<Long> fullKeys, final MapSupplier mapImplementation) {
-        final int size = nonNegativeKeys.size();
+    protected DynamicContainer createIntegerTests(final Collection<Long> nonNegativeKeys, Collection<Long> fullKeys,
+            final Collection<Long> differentKeys, final MapSupplier mapImplementation) {
         final String keyLabel = "int64";
         final Supplier<Map<Long, Long>> mapSupplier = mapImplementation::createLongMap;
-        final List<Long> differentKeys = generateIntegerKeys(Long.MIN_VALUE, size);
 
         return dynamicContainer(mapImplementation.name(),
-                Stream.of(new Inserts<>(mapImplementation, mapSupplier, keyLabel, "randomShuffleInserts", nonNegativeKeys),
+                Stream.of(Stream.<MapBenchmark<Long>>of(new Inserts<>(mapImplementation, mapSupplier, keyLabel, "randomShuffleInserts", nonNegativeKeys),
                         new Inserts<>(mapImplementation, mapSupplier, keyLabel, "randomShuffleFullInserts", fullKeys),
                         new Deletes<>(mapImplementation, mapSupplier, keyLabel, "randomShuffleFullDeletes", fullKeys),
                         new Reads<>(mapImplementation, mapSupplier, keyLabel, "randomShuffleReads", nonNegativeKeys),
                         new Reads<>(mapImplementation, mapSupplier, keyLabel, "randomShuffleFullReads", fullKeys),
                         new ReadMisses<>(mapImplementation, mapSupplier, keyLabel, "randomShuffleFullReadMisses", fullKeys, differentKeys),
                         new ReadsAfterDeletingHalf<>(mapImplementation, mapSupplier, keyLabel, "randomShuffleFullReadsAfterDeletingHalf", fullKeys),
-                        new FullIteration<>(mapImplementation, mapSupplier, keyLabel, "randomFullIteration", fullKeys)
-                )
+                        new FullIteration<>(mapImplementation, mapSupplier, keyLabel, "randomFullIteration", fullKeys),
+                        new InsertFootprint<>(mapImplementation, mapSupplier, keyLabel, "footprint", fullKeys)
+                    ),
+                    createHashDistributionTests(mapImplementation, mapSupplier, keyLabel, fullKeys),
+                    createCapacityTests(mapImplementation, mapImplementation::createLongMap, keyLabel, "randomShuffleFull",
+                            fullKeys, differentKeys),
+                    createBulkTests(mapImplementation, mapSupplier, keyLabel, "randomShuffleFull", fullKeys,
+                            differentKeys),
+                    createIterationTests(mapImplementation, mapSupplier, keyLabel, "randomFull", fullKeys),
+                    createNavigableTests(mapImplementation, NavigableMapSupplier::createLongMap, keyLabel, fullKeys,
+                            differentKeys))
+                .flatMap(Function.identity())
+                .filter(this::isScenarioSelected)
                 .map(MapBenchmark::asDynamicTest)
         );
     }
 
+    /**
+     * Create int64 tests for a primitive map. The test labels match those of
+     * {@link #createIntegerTests(Collection, Collection, Collection, MapSupplier)}
+     * so the boxed implementations serve as a baseline.
+     */
+    protected DynamicContainer createPrimitiveIntegerTests(final Collection<Long> nonNegativeKeys, final Collection<Long> fullKeys,
+            final Collection<Long> differentKeys, final PrimitiveMapSupplier mapImplementation) {
+        final String keyLabel = "int64";
+        final long[] nonNegativeKeyArray = getPrimitiveKeys("int64NonNegative", nonNegativeKeys);
+        final long[] fullKeyArray = getPrimitiveKeys("int64", fullKeys);
+        final long[] differentKeyArray = getPrimitiveKeys("int64Misses", differentKeys);
+
+        return dynamicContainer(mapImplementation.name(),
+                Stream.concat(Stream.<PrimitiveMapBenchmark>of(new PrimitiveInserts(mapImplementation, keyLabel, "randomShuffleInserts", nonNegativeKeyArray),
+                        new PrimitiveInserts(mapImplementation, keyLabel, "randomShuffleFullInserts", fullKeyArray),
+                        new PrimitiveDeletes(mapImplementation, keyLabel, "randomShuffleFullDeletes", fullKeyArray),
+                        new PrimitiveReads(mapImplementation, keyLabel, "randomShuffleReads", nonNegativeKeyArray),
+                        new PrimitiveReads(mapImplementation, keyLabel, "randomShuffleFullReads", fullKeyArray),
+                        new PrimitiveReadMisses(mapImplementation, keyLabel, "randomShuffleFullReadMisses", fullKeyArray, differentKeyArray),
+                        new PrimitiveReadsAfterDeletingHalf(mapImplementation, keyLabel, "randomShuffleFullReadsAfterDeletingHalf", fullKeyArray),
+                        new PrimitiveFullIteration(mapImplementation, keyLabel, "randomFullIteration", fullKeyArray),
+                        new PrimitiveInsertFootprint(mapImplementation, keyLabel, "footprint", fullKeyArray)
+                    ),
+                    Stream.concat(mapImplementation.isSizeable()
+                            ? Stream.of(new PrimitiveInsertsWithReserve(mapImplementation, keyLabel, "randomShuffleFullInsertsWithReserve", fullKeyArray))
+                            : Stream.empty(),
+                        createPrimitiveHashDistributionTests(mapImplementation, keyLabel, fullKeyArray)))
+                .filter(this::isScenarioSelected)
+                .map(TimedBenchmark::asDynamicTest)
+        );
+    }
+
+    /**
+     * Create YCSB-style tests. Each workload is run with uniform, hotspot,
+     * and its default skewed request distribution. The zipfian skew can be
+     * set with the system property "shootout.theta". The operations of each
+     * workload and distribution are generated once, from a seed derived
+     * from the test label, and replayed against every implementation.
+     *
+     * @param records the keys with which to preload each map
+     * @param insertKeys keys absent from the records, used for inserts
+     */
+    protected <K> DynamicContainer createWorkloadTests(final String keyLabel, final List<K> records,
+            final List<K> insertKeys, final Function<MapSupplier, Map<K, Long>> mapFactory) {
+        final int operationCount = records.size();
+        return dynamicContainer(records.size() + " keys",
+                Arrays.stream(Workload.values()).flatMap(workload -> Stream.<Supplier<KeyDistribution>>of(
+                        KeyDistribution::uniform,
+                        () -> workload.createDefaultDistribution(theta),
+                        () -> KeyDistribution.hotspot(0.2, 0.8))
+                    .map(Supplier::get)
+                    .map(distribution -> new SimpleImmutableEntry<>(
+                            "workload" + workload.name() + "-" + distribution.name(), distribution))
+                    .filter(scenario -> isScenarioSelected(scenario.getKey()))
+                    .map(scenario -> {
+                        // every implementation replays the same trace, which
+                        // depends only on the seed and the scenario
+                        final var label = scenario.getKey();
+                        final var trace = new WorkloadBenchmark.Trace(workload, scenario.getValue(), records.size(),
+                                operationCount, KeyGenerator.forKeySet(label).split());
+                        return dynamicContainer(label, getMapSuppliers().stream()
+                                .map(mapImplementation -> new MixedWorkload<>(mapImplementation,
+                                        () -> mapFactory.apply(mapImplementation), keyLabel, label, records,
+                                        insertKeys, trace))
+                                .map(MapBenchmark::asDynamicTest));
+                    }))
+        );
+    }
+
+    /**
+     * Create bounded cache tests. A trace of twice as many reads as there
+     * are keys is drawn from each of a zipfian, hotspot, and uniform
+     * distribution, then replayed against each cache with each capacity in
+     * the system property "shootout.cacheRatios" (default "0.01,0.05,0.1"),
+     * expressed as a fraction of the number of keys. The distribution and
+     * capacity are appended to the test label, e.g. "cache-zipfian0.99-c0.05".
+     *
+     * @param keys the distinct keys that may be read
+     */
+    protected <K> DynamicContainer createCacheTests(final String keyLabel, final List<K> keys) {
+        final int accessCount = 2 * keys.size();
+        return dynamicContainer(keys.size() + " keys",
+                Stream.<Supplier<KeyDistribution>>of(() -> KeyDistribution.zipfian(theta),
+                        () -> KeyDistribution.hotspot(0.2, 0.8),
+                        KeyDistribution::uniform)
+                    .map(Supplier::get)
+                    .map(distribution -> {
+                        // every cache replays the same trace
+                        final var trace = new int[accessCount];
+                        for (int i = 0; i < accessCount; i++) {
+                            trace[i] = distribution.nextIndex(random, keys.size());
+                        }
+                        return dynamicContainer(distribution.name(), cacheRatios.stream().flatMap(ratio -> {
+                            final int maximumSize = Math.max(1, (int) (keys.size() * ratio));
+                            final var label = String.format(Locale.ROOT, "cache-%s-c%.2f", distribution.name(), ratio);
+                            return getCacheSuppliers().stream()
+                                    .<CacheBenchmark<K>>map(implementation -> new CacheReplay<>(implementation, keyLabel, label, keys,
+                                            trace, maximumSize));
+                        }).filter(this::isScenarioSelected).map(TimedBenchmark::asDynamicTest));
+                    }));
+    }
+
+    /**
+     * @return the powers of two up to the number of processors, and the
+     *         number of processors itself
+     */
+    protected static String getDefaultParallelism() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        return IntStream.concat(IntStream.iterate(1, threads -> threads < processors, threads -> threads * 2),
+                IntStream.of(processors))
+            .mapToObj(String::valueOf)
+            .collect(Collectors.joining(","));
+    }
+
+    /**
+     * @return <code>count</code> keys chosen at random, with replacement
+     */
+    protected <K> List<K> randomKeys(final Collection<K> keys, final int count) {
+        final var candidates = new ArrayList<>(keys);
+        return random.ints(count, 0, candidates.size())
+                .mapToObj(candidates::get)
+                .collect(Collectors.toList());
+    }
+
+    protected long[] toArray(final Collection<Long> keys) {
+        return keys.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * @param keys the keys to shuffle, these are not modified
+     * @return a shuffled copy of the keys
+     */
+    protected long[] shuffle(final long[] keys) {
+        final var retval = Arrays.copyOf(keys, keys.length);
+        for (int i = retval.length; --i > 0;) {
+            final int j = random.nextInt(i + 1);
+            final var swap = retval[i];
+            retval[i] = retval[j];
+            retval[j] = swap;
+        }
+        return retval;
+    }
+
     protected DynamicContainer createStringTests(final Collection<String> keys, final String keyLabel, final int stringKeyLength) {
+        return createStringTests(keyLabel, keys, getStringKeys(keyLabel + "Misses", stringKeyLength, keys.size()));
+    }
+
+    /**
+     * @param differentKeys keys that are not expected to be in <code>keys</code>
+     */
+    protected DynamicContainer createStringTests(final String keyLabel, final Collection<String> keys,
+            final Collection<String> differentKeys) {
         return dynamicContainer(keys.size() + " keys",
                 getMapSuppliers().stream()
-                .map(implementation -> createStringTests(keyLabel, keys, implementation, stringKeyLength))
+                .map(implementation -> createStringTests(keyLabel, keys, differentKeys, implementation))
+        );
+    }
+
+    protected DynamicContainer createStringTests(final String keyLabel, final Collection<String> keys,
+            final Collection<String> differentKeys, final MapSupplier mapImplementation) {
+        return createOperationTests(mapImplementation, mapImplementation::createStringMap,
+                mapImplementation::createStringMap, NavigableMapSupplier::createStringMap, keyLabel, keys,
+                differentKeys);
+    }
+
+    /**
+     * Create tests for keys in ascending order, whose hash codes are far
+     * from random. The misses are the keys that would follow them. Primitive
+     * maps are included, with the same tests as boxed maps where they have
+     * an equivalent.
+     *
+     * @param stride the difference between consecutive keys
+     */
+    protected DynamicContainer createSequentialIntegerTests(final String keyLabel, final long stride, final int size) {
+        final var keys = getDeterministicKeys(keyLabel, size,
+                () -> KeyGenerator.generateSequentialKeys(stride, stride, size));
+        final var differentKeys = getDeterministicKeys(keyLabel + "Misses", size,
+                () -> KeyGenerator.generateSequentialKeys((size + 1l) * stride, stride, size));
+        return dynamicContainer(size + " keys", Stream.concat(getMapSuppliers().stream()
+                    .map(mapImplementation -> createOperationTests(mapImplementation, mapImplementation::createLongMap,
+                            mapImplementation::createLongMap, NavigableMapSupplier::createLongMap, keyLabel, keys,
+                            differentKeys)),
+                getPrimitiveMapSuppliers().stream()
+                    .map(mapImplementation -> createPrimitiveSequentialIntegerTests(keyLabel, keys, differentKeys,
+                            mapImplementation))));
+    }
+
+    protected DynamicContainer createPrimitiveSequentialIntegerTests(final String keyLabel, final Collection<Long> keys,
+            final Collection<Long> differentKeys, final PrimitiveMapSupplier mapImplementation) {
+        final long[] keyArray = getPrimitiveKeys(keyLabel, keys);
+        final long[] differentKeyArray = getPrimitiveKeys(keyLabel + "Misses", differentKeys);
+
+        return dynamicContainer(mapImplementation.name(),
+                Stream.concat(Stream.<PrimitiveMapBenchmark>of(new PrimitiveInserts(mapImplementation, keyLabel, "inserts", keyArray),
+                        new PrimitiveDeletes(mapImplementation, keyLabel, "deletes", keyArray),
+                        new PrimitiveReads(mapImplementation, keyLabel, "reads", keyArray),
+                        new PrimitiveReadMisses(mapImplementation, keyLabel, "readMisses", keyArray, differentKeyArray),
+                        new PrimitiveReadsAfterDeletingHalf(mapImplementation, keyLabel, "readsAfterDeletingHalf", keyArray),
+                        new PrimitiveInsertFootprint(mapImplementation, keyLabel, "footprint", keyArray)
+                    ),
+                    createPrimitiveHashDistributionTests(mapImplementation, keyLabel, keyArray))
+                .filter(this::isScenarioSelected)
+                .map(TimedBenchmark::asDynamicTest)
         );
     }
 
-    protected DynamicContainer createStringTests(final String keyLabel, final Collection<String> keys, final MapSupplier mapImplementation, final int stringKeyLength) {
-        final int size = keys.size();
-        final Supplier<Map<String, Long>> supplier = mapImplementation::createStringMap;
-        final List<String> differentKeys = generateStringKeys(stringKeyLength, size);
+    /**
+     * Create tests for a {@link KeyType} with the same operations as the
+     * string tests, run against every implementation that supports it. The
+     * key type's label is used as the key label.
+     */
+    protected <K> DynamicContainer createKeyTypeTests(final KeyType<K> keyType, final int size) {
+        final var keys = getKeys(keyType.getLabel(), keyType::createKey, size);
+        final var differentKeys = getKeys(keyType.getLabel() + "Misses", keyType::createMissKey, size);
+        return dynamicContainer(size + " keys", getMapSuppliers().stream()
+                .filter(mapImplementation -> mapImplementation.supports(keyType))
+                .map(mapImplementation -> createKeyTypeTests(keyType, keys, differentKeys, mapImplementation)));
+    }
+
+    protected <K> DynamicContainer createKeyTypeTests(final KeyType<K> keyType, final Collection<K> keys,
+            final Collection<K> differentKeys, final MapSupplier mapImplementation) {
+        return createOperationTests(mapImplementation, () -> mapImplementation.createMap(keyType),
+                (expectedSize, loadFactor) -> mapImplementation.createMap(keyType, expectedSize, loadFactor),
+                implementation -> implementation.createMap(keyType), keyType.getLabel(), keys, differentKeys);
+    }
 
+    /**
+     * Create the tests that every key family other than int64 runs against
+     * a map implementation.
+     *
+     * @param supplier creates an empty map with the default capacity
+     * @param sizedMapFactory creates a map given an expected size and load factor
+     * @param navigableMapFactory creates a map if the implementation is a
+     *        {@link NavigableMapSupplier}
+     * @param differentKeys keys that are not expected to be in <code>keys</code>
+     */
+    protected <K> DynamicContainer createOperationTests(final MapSupplier mapImplementation,
+            final Supplier<Map<K, Long>> supplier, final BiFunction<Integer, Float, Map<K, Long>> sizedMapFactory,
+            final Function<NavigableMapSupplier, NavigableMap<K, Long>> navigableMapFactory, final String keyLabel,
+            final Collection<K> keys, final Collection<K> differentKeys) {
         return dynamicContainer(mapImplementation.name(),
-                Stream.of(new Inserts<>(mapImplementation, supplier, keyLabel, "inserts", keys),
+                Stream.of(Stream.<MapBenchmark<K>>of(new Inserts<>(mapImplementation, supplier, keyLabel, "inserts", keys),
                     new Deletes<>(mapImplementation, supplier, keyLabel, "deletes", keys),
                     new Reads<>(mapImplementation, supplier, keyLabel, "reads", keys),
                     new ReadMisses<>(mapImplementation, supplier, keyLabel, "readMisses", keys, differentKeys),
-                    new ReadsAfterDeletingHalf<>(mapImplementation, supplier, keyLabel, "readsAfterDeletingHalf", keys)
-                )
+                    new ReadsAfterDeletingHalf<>(mapImplementation, supplier, keyLabel, "readsAfterDeletingHalf", keys),
+                    new InsertFootprint<>(mapImplementation, supplier, keyLabel, "footprint", keys)
+                ),
+                createHashDistributionTests(mapImplementation, supplier, keyLabel, keys),
+                createCapacityTests(mapImplementation, sizedMapFactory, keyLabel, "", keys, differentKeys),
+                createBulkTests(mapImplementation, supplier, keyLabel, "", keys, differentKeys),
+                createIterationTests(mapImplementation, supplier, keyLabel, "", keys),
+                createNavigableTests(mapImplementation, navigableMapFactory, keyLabel, keys, differentKeys))
+                .flatMap(Function.identity())
+                .filter(this::isScenarioSelected)
                 .map(MapBenchmark::asDynamicTest)
         );
     }
 
+    /**
+     * Create a test that reports how the keys are spread over the map's
+     * buckets. The test is skipped if {@link HashDistribution} cannot
+     * inspect the implementation. The test label is "hashDistribution".
+     */
+    protected <K> Stream<MapBenchmark<K>> createHashDistributionTests(final MapSupplier mapImplementation,
+            final Supplier<Map<K, Long>> supplier, final String keyLabel, final Collection<K> keys) {
+        return Stream.of(new InsertHashDistribution<>(mapImplementation, supplier, keyLabel, "hashDistribution", keys));
+    }
+
+    /**
+     * @see #createHashDistributionTests(MapSupplier, Supplier, String, Collection)
+     */
+    protected Stream<PrimitiveMapBenchmark> createPrimitiveHashDistributionTests(
+            final PrimitiveMapSupplier mapImplementation, final String keyLabel, final long[] keys) {
+        return Stream.of(new PrimitiveInsertHashDistribution(mapImplementation, keyLabel, "hashDistribution", keys));
+    }
+
+    /**
+     * Create tests that show what resizing costs and how the load factor
+     * trades memory for probe length: inserts into a map pre-sized for all
+     * of the keys, then inserts, reads, and read misses with each load
+     * factor in the system property "shootout.loadFactors" (default
+     * "0.5,0.75,0.9"). The load factor is appended to the test label, e.g.
+     * "inserts-lf0.50". Implementations that cannot be sized get no tests.
+     *
+     * @param mapFactory creates a map given an expected size and load factor
+     * @param labelPrefix prepended to the test labels, the first letter of
+     *        the operation is capitalised if this is not empty
+     */
+    protected <K> Stream<MapBenchmark<K>> createCapacityTests(final MapSupplier mapImplementation,
+            final BiFunction<Integer, Float, Map<K, Long>> mapFactory, final String keyLabel, final String labelPrefix,
+            final Collection<K> keys, final Collection<K> differentKeys) {
+        if (!mapImplementation.isSizeable()) {
+            return Stream.empty();
+        }
+        final Function<String, String> label = operation -> labelPrefix.isEmpty()
+                ? operation
+                : labelPrefix + Character.toUpperCase(operation.charAt(0)) + operation.substring(1);
+        final float defaultLoadFactor = mapImplementation.getDefaultLoadFactor();
+        return Stream.concat(
+                Stream.of(new InsertsWithReserve<>(mapImplementation,
+                        () -> mapFactory.apply(keys.size(), defaultLoadFactor), keyLabel,
+                        label.apply("insertsWithReserve"), keys)),
+                loadFactors.stream().flatMap(loadFactor -> {
+                    // start empty so that the map grows, and its final load
+                    // varies, with the number of keys as it does in practice
+                    final Supplier<Map<K, Long>> supplier = () -> mapFactory.apply(0, loadFactor);
+                    final var suffix = String.format(Locale.ROOT, "-lf%.2f", loadFactor);
+                    return Stream.of(
+                            new Inserts<>(mapImplementation, supplier, keyLabel, label.apply("inserts") + suffix, keys),
+                            new Reads<>(mapImplementation, supplier, keyLabel, label.apply("reads") + suffix, keys),
+                            new ReadMisses<>(mapImplementation, supplier, keyLabel,
+                                    label.apply("readMisses") + suffix, keys, differentKeys));
+                }));
+    }
+
+    /**
+     * Create tests of the bulk and compound operations that batch loads and
+     * counter aggregation rely on: <code>putAll</code> from a
+     * {@link LinkedHashMap}, copying a map of the same implementation,
+     * counting with <code>merge</code> and <code>compute</code>,
+     * <code>getOrDefault</code> with half of the keys missing,
+     * <code>replaceAll</code>, and removing half of the entries with
+     * <code>entrySet().removeIf</code>.
+     *
+     * @param differentKeys keys that are not expected to be in <code>keys</code>
+     * @param labelPrefix prepended to the test labels, the first letter of
+     *        the operation is capitalised if this is not empty
+     */
+    protected <K> Stream<MapBenchmark<K>> createBulkTests(final MapSupplier mapImplementation,
+            final Supplier<Map<K, Long>> supplier, final String keyLabel, final String labelPrefix,
+            final Collection<K> keys, final Collection<K> differentKeys) {
+        final Function<String, String> label = operation -> labelPrefix.isEmpty()
+                ? operation
+                : labelPrefix + Character.toUpperCase(operation.charAt(0)) + operation.substring(1);
+        // each key is counted twice on average, some not at all
+        final List<K> counterKeys = fixtures.get(keyLabel + "Counters", keys.size(),
+                () -> Collections.unmodifiableList(randomKeys(keys, 2 * keys.size())));
+        return Stream.of(
+                new PutAll<>(mapImplementation, supplier, keyLabel, label.apply("putAll"), keys),
+                new Copies<>(mapImplementation, supplier, keyLabel, label.apply("copies"), keys),
+                new MergeCounts<>(mapImplementation, supplier, keyLabel, label.apply("mergeCounts"), keys, counterKeys),
+                new ComputeCounts<>(mapImplementation, supplier, keyLabel, label.apply("computeCounts"), keys,
+                        counterKeys),
+                new ReadsOrDefault<>(mapImplementation, supplier, keyLabel, label.apply("getOrDefault"), keys,
+                        differentKeys),
+                new ReplaceAll<>(mapImplementation, supplier, keyLabel, label.apply("replaceAll"), keys),
+                new RemoveIf<>(mapImplementation, supplier, keyLabel, label.apply("removeIf"), keys));
+    }
+
+    /**
+     * Create tests that scan the <code>keySet</code>, <code>values</code>,
+     * and <code>entrySet</code> views of a populated map with an iterator,
+     * with <code>forEach</code>, and with a parallel stream reduction at
+     * each level of fork-join parallelism in the system property
+     * "shootout.parallelism" (default: powers of two up to the number of
+     * processors). Every element is hashed so that it is actually read.
+     * The labels combine the view and the mode, e.g. "keySetIterator" or
+     * "entrySetParallel-p4".
+     *
+     * @param labelPrefix prepended to the test labels, the first letter of
+     *        the view is capitalised if this is not empty
+     */
+    protected <K> Stream<MapBenchmark<K>> createIterationTests(final MapSupplier mapImplementation,
+            final Supplier<Map<K, Long>> supplier, final String keyLabel, final String labelPrefix,
+            final Collection<K> keys) {
+        final Function<String, String> label = view -> labelPrefix.isEmpty()
+                ? view
+                : labelPrefix + Character.toUpperCase(view.charAt(0)) + view.substring(1);
+        final Map<String, Function<Map<K, Long>, Collection<?>>> views = new LinkedHashMap<>();
+        views.put("keySet", Map::keySet);
+        views.put("values", Map::values);
+        views.put("entrySet", Map::entrySet);
+        return views.entrySet().stream().flatMap(entry -> Stream.concat(
+                Stream.of(new ViewIterator<>(mapImplementation, supplier, keyLabel,
+                                label.apply(entry.getKey()) + "Iterator", keys, entry.getValue()),
+                        new ViewForEach<>(mapImplementation, supplier, keyLabel,
+                                label.apply(entry.getKey()) + "ForEach", keys, entry.getValue())),
+                parallelism.stream()
+                    .map(threads -> new ParallelViewReduction<>(mapImplementation, supplier, keyLabel,
+                            label.apply(entry.getKey()) + "Parallel-p" + threads, keys, entry.getValue(), threads))));
+    }
+
+    /**
+     * Create range query tests for ordered implementations: floor and
+     * ceiling lookups of absent keys, bounded <code>subMap</code> scans of
+     * each width in the system property "shootout.scanWidths" (default
+     * "10,100,1000"), <code>headMap</code> and <code>tailMap</code>
+     * iteration, and draining with <code>pollFirstEntry</code>. Unordered
+     * implementations get no tests.
+     *
+     * @param differentKeys keys that are not expected to be in <code>keys</code>
+     */
+    protected <K> Stream<MapBenchmark<K>> createNavigableTests(final MapSupplier mapImplementation,
+            final Function<NavigableMapSupplier, NavigableMap<K, Long>> mapFactory, final String keyLabel,
+            final Collection<K> keys, final Collection<K> differentKeys) {
+        if (!(mapImplementation instanceof NavigableMapSupplier)) {
+            return Stream.empty();
+        }
+        final var implementation = (NavigableMapSupplier) mapImplementation;
+        final Supplier<NavigableMap<K, Long>> supplier = () -> mapFactory.apply(implementation);
+        return Stream.of(
+                Stream.<MapBenchmark<K>>of(
+                    new FloorKeys<>(implementation, supplier, keyLabel, "floorKeys", keys, differentKeys),
+                    new CeilingKeys<>(implementation, supplier, keyLabel, "ceilingKeys", keys, differentKeys)),
+                scanWidths.stream()
+                    .filter(width -> width < keys.size())
+                    .map(width -> new SubMapScans<>(implementation, supplier, keyLabel, "subMapScans-w" + width, keys,
+                            width)),
+                Stream.<MapBenchmark<K>>of(
+                    new HeadMapIteration<>(implementation, supplier, keyLabel, "headMapIteration", keys),
+                    new TailMapIteration<>(implementation, supplier, keyLabel, "tailMapIteration", keys),
+                    new PollFirstEntries<>(implementation, supplier, keyLabel, "pollFirstEntries", keys)))
+            .flatMap(Function.identity());
+    }
+
     protected class Inserts<K> extends MapBenchmark<K> {
 
         public Inserts(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
@@ -192,15 +858,104 @@ public class MapShootout {
         }
 
         protected void benchmark(final Map<K, Long> map) {
-            getKeys().forEach(key -> map.put(key, 1l));
+            forEach(getKeys(), key -> map.put(key, 1l));
         }
 
-        protected PrintWriter getWriter() {
-            return MapShootout.this.getWriter();
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
         }
         
     }
 
+    /**
+     * Inserts into a map sized for all of the keys. The map is created while
+     * being measured so that the up-front allocation is counted, just as
+     * <code>reserve(n)</code> would be.
+     */
+    protected class InsertsWithReserve<K> extends Inserts<K> {
+
+        public InsertsWithReserve(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+        }
+
+        protected void runBenchmark() {
+            setMap(getMapSupplier().get());
+            super.runBenchmark();
+        }
+
+    }
+
+    /**
+     * Inserts, then measures the memory the populated map holds with
+     * {@link FootprintAnalyzer}. The measurement happens after timing so
+     * it does not affect the other metrics.
+     */
+    protected class InsertFootprint<K> extends Inserts<K> {
+
+        private FootprintAnalyzer.Footprint footprint;
+
+        public InsertFootprint(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void destroy() {
+            final Set<Object> keys = Collections.newSetFromMap(new IdentityHashMap<>(getKeyCount()));
+            keys.addAll(getKeys());
+            // every entry shares the same boxed value
+            final Object value = 1l;
+            footprint = FootprintAnalyzer.measure(getMap(), keys::contains, candidate -> candidate == value);
+            keys.clear();
+
+            super.destroy();
+        }
+
+        protected void addMetrics(final BenchmarkResult result, final long elapsedNanos) {
+            footprint.addMetrics(result, getKeyCount());
+        }
+
+    }
+
+    /**
+     * Inserts, then reports how the keys are spread over the map's buckets
+     * with {@link HashDistribution}. Like {@link InsertFootprint}, the
+     * analysis happens after timing. The test is skipped if the map cannot
+     * be inspected.
+     */
+    protected class InsertHashDistribution<K> extends Inserts<K> {
+
+        private HashDistribution distribution;
+
+        public InsertHashDistribution(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+            final boolean supported = HashDistribution.supports(getMap());
+            if (!supported) {
+                super.destroy();
+            }
+            assumeTrue(supported, "HashDistribution cannot inspect the map");
+        }
+
+        protected void destroy() {
+            distribution = HashDistribution.analyze(getMap());
+
+            super.destroy();
+        }
+
+        protected void addMetrics(final BenchmarkResult result, final long elapsedNanos) {
+            distribution.addMetrics(result);
+        }
+
+    }
+
     protected class Deletes<K> extends MapBenchmark<K> {
 
         private List<K> deletionKeys;
@@ -211,7 +966,7 @@ public class MapShootout {
         }
 
         protected void benchmark(final Map<K, Long> map) {
-            deletionKeys.forEach(map::remove);
+            forEach(deletionKeys, map::remove);
         }
 
         protected void init() {
@@ -230,8 +985,8 @@ public class MapShootout {
             super.destroy();
         }
 
-        protected PrintWriter getWriter() {
-            return MapShootout.this.getWriter();
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
         }
         
     }
@@ -262,11 +1017,11 @@ public class MapShootout {
         }
 
         protected void benchmark(final Map<K, Long> map) {
-            readKeys.forEach(map::get);
+            forEach(readKeys, map::get);
         }
 
-        protected PrintWriter getWriter() {
-            return MapShootout.this.getWriter();
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
         }
         
     }
@@ -292,11 +1047,11 @@ public class MapShootout {
         }
 
         protected void benchmark(final Map<K, Long> map) {
-            differentKeys.forEach(map::get);
+            forEach(differentKeys, map::get);
         }
 
-        protected PrintWriter getWriter() {
-            return MapShootout.this.getWriter();
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
         }
         
     }
@@ -327,11 +1082,11 @@ public class MapShootout {
         }
 
         protected void benchmark(final Map<K, Long> map) {
-            readKeys.forEach(map::get);
+            forEach(readKeys, map::get);
         }
 
-        protected PrintWriter getWriter() {
-            return MapShootout.this.getWriter();
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
         }
 
     }
@@ -349,31 +1104,860 @@ public class MapShootout {
             getKeys().forEach(key -> getMap().put(key, 1l));
         }
 
-        protected void benchmark(Map<K, Long> map) {
-            getMap().forEach((key, value) -> {
+        protected void benchmark(final Map<K, Long> map) {
+            map.forEach((key, value) -> {
             });
         }
 
-        protected PrintWriter getWriter() {
-            return MapShootout.this.getWriter();
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
         }
         
     }
 
-    protected List<MapSupplier> getMapSuppliers() {
-        return mapSuppliers;
+    /**
+     * Loads the keys from a {@link LinkedHashMap} with a single
+     * <code>putAll</code>, which some implementations use to resize once
+     * up front.
+     */
+    protected class PutAll<K> extends MapBenchmark<K> {
+
+        private Map<K, Long> source;
+
+        public PutAll(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+
+            source = createSource();
+            getKeys().forEach(key -> source.put(key, 1l));
+        }
+
+        protected Map<K, Long> createSource() {
+            return new LinkedHashMap<>(getKeyCount() * 2);
+        }
+
+        protected void destroy() {
+            source.clear();
+            source = null;
+
+            super.destroy();
+        }
+
+        protected void benchmark(final Map<K, Long> map) {
+            map.putAll(source);
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * Copies a map of the same implementation into an empty one, which is
+     * what the JDK maps' copy constructors do. Sorted maps can build the
+     * copy without comparing keys.
+     */
+    protected class Copies<K> extends PutAll<K> {
+
+        public Copies(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected Map<K, Long> createSource() {
+            return getMapSupplier().get();
+        }
+
+    }
+
+    /**
+     * Counts occurrences of keys, starting from an empty map, with
+     * <code>merge</code>.
+     */
+    protected class MergeCounts<K> extends MapBenchmark<K> {
+
+        private final List<K> counterKeys;
+
+        public MergeCounts(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys, final List<K> counterKeys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+            Objects.requireNonNull(counterKeys);
+            this.counterKeys = counterKeys;
+        }
+
+        protected void benchmark(final Map<K, Long> map) {
+            forEach(getCounterKeys(), key -> map.merge(key, 1l, Long::sum));
+        }
+
+        protected List<K> getCounterKeys() {
+            return counterKeys;
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * @see MergeCounts
+     */
+    protected class ComputeCounts<K> extends MergeCounts<K> {
+
+        public ComputeCounts(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys, final List<K> counterKeys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys, counterKeys);
+        }
+
+        protected void benchmark(final Map<K, Long> map) {
+            forEach(getCounterKeys(), key -> map.compute(key, (k, count) -> count == null ? 1l : count + 1l));
+        }
+
+    }
+
+    /**
+     * Reads with <code>getOrDefault</code>, half of which miss.
+     */
+    protected class ReadsOrDefault<K> extends MapBenchmark<K> {
+
+        private final Collection<K> differentKeys;
+        private List<K> readKeys;
+
+        public ReadsOrDefault(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys, final Collection<K> differentKeys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+            Objects.requireNonNull(differentKeys);
+            this.differentKeys = differentKeys;
+        }
+
+        protected void init() {
+            super.init();
+
+            getKeys().forEach(key -> getMap().put(key, 1l));
+
+            readKeys = new ArrayList<>(getKeys());
+            Collections.shuffle(readKeys);
+            readKeys.subList(readKeys.size() / 2, readKeys.size()).clear();
+            differentKeys.stream().limit(getKeyCount() - readKeys.size()).forEach(readKeys::add);
+            Collections.shuffle(readKeys);
+        }
+
+        protected void destroy() {
+            readKeys.clear();
+            readKeys = null;
+
+            super.destroy();
+        }
+
+        protected void benchmark(final Map<K, Long> map) {
+            forEach(readKeys, key -> map.getOrDefault(key, 0l));
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class ReplaceAll<K> extends MapBenchmark<K> {
+
+        public ReplaceAll(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+
+            getKeys().forEach(key -> getMap().put(key, 1l));
+        }
+
+        protected void benchmark(final Map<K, Long> map) {
+            map.replaceAll((key, value) -> value + 1l);
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * Removes the half of the entries whose key has an even hash code with
+     * <code>entrySet().removeIf</code>.
+     */
+    protected class RemoveIf<K> extends MapBenchmark<K> {
+
+        public RemoveIf(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+
+            getKeys().forEach(key -> getMap().put(key, 1l));
+        }
+
+        protected void benchmark(final Map<K, Long> map) {
+            map.entrySet().removeIf(entry -> (entry.getKey().hashCode() & 1) == 0);
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * Scans a view of a populated map and hashes every element. The
+     * result is kept so that the scan cannot be optimised away.
+     */
+    protected abstract class ViewIteration<K> extends MapBenchmark<K> {
+
+        private final Function<Map<K, Long>, Collection<?>> view;
+        private long checksum;
+
+        protected ViewIteration(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys, final Function<Map<K, Long>, Collection<?>> view) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+            Objects.requireNonNull(view);
+            this.view = view;
+        }
+
+        protected void init() {
+            super.init();
+
+            getKeys().forEach(key -> getMap().put(key, 1l));
+        }
+
+        protected void benchmark(final Map<K, Long> map) {
+            checksum += reduce(view.apply(map));
+        }
+
+        /**
+         * @param elements the view to scan
+         * @return the sum of the elements' hash codes
+         */
+        protected abstract long reduce(Collection<?> elements);
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class ViewIterator<K> extends ViewIteration<K> {
+
+        public ViewIterator(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys, final Function<Map<K, Long>, Collection<?>> view) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys, view);
+        }
+
+        protected long reduce(final Collection<?> elements) {
+            long retval = 0;
+            for (final var element : elements) {
+                retval += element.hashCode();
+            }
+            return retval;
+        }
+
+    }
+
+    protected class ViewForEach<K> extends ViewIteration<K> {
+
+        public ViewForEach(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys, final Function<Map<K, Long>, Collection<?>> view) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys, view);
+        }
+
+        protected long reduce(final Collection<?> elements) {
+            final var retval = new long[1];
+            elements.forEach(element -> retval[0] += element.hashCode());
+            return retval[0];
+        }
+
+    }
+
+    /**
+     * Sums the hash codes of a view's elements with a parallel stream run
+     * in a dedicated {@link ForkJoinPool}, so the speed-up depends on how
+     * evenly the view's {@link java.util.Spliterator} splits.
+     */
+    protected class ParallelViewReduction<K> extends ViewIteration<K> {
+
+        private final int parallelism;
+        private ForkJoinPool pool;
+
+        public ParallelViewReduction(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys, final Function<Map<K, Long>, Collection<?>> view,
+                final int parallelism) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys, view);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+        }
+
+        protected void init() {
+            super.init();
+
+            pool = new ForkJoinPool(parallelism);
+        }
+
+        protected void destroy() {
+            pool.shutdown();
+            pool = null;
+
+            super.destroy();
+        }
+
+        protected long reduce(final Collection<?> elements) {
+            return pool.submit(() -> elements.parallelStream().mapToLong(Object::hashCode).sum()).join();
+        }
+
+    }
+
+    protected class FloorKeys<K> extends NavigableMapBenchmark<K> {
+
+        private final Collection<K> differentKeys;
+
+        public FloorKeys(NavigableMapSupplier implementation, Supplier<NavigableMap<K, Long>> mapSupplier,
+                String keyLabel, String testLabel, Collection<K> keys, final Collection<K> differentKeys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+            Objects.requireNonNull(differentKeys);
+            this.differentKeys = differentKeys;
+        }
+
+        protected void benchmark(final NavigableMap<K, Long> map) {
+            forEach(differentKeys, map::floorKey);
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class CeilingKeys<K> extends NavigableMapBenchmark<K> {
+
+        private final Collection<K> differentKeys;
+
+        public CeilingKeys(NavigableMapSupplier implementation, Supplier<NavigableMap<K, Long>> mapSupplier,
+                String keyLabel, String testLabel, Collection<K> keys, final Collection<K> differentKeys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+            Objects.requireNonNull(differentKeys);
+            this.differentKeys = differentKeys;
+        }
+
+        protected void benchmark(final NavigableMap<K, Long> map) {
+            forEach(differentKeys, map::ceilingKey);
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * Scans ranges of exactly <code>width</code> entries starting at random
+     * keys. The number of scans is chosen so that about as many entries are
+     * visited as there are keys, regardless of the width.
+     */
+    protected class SubMapScans<K> extends NavigableMapBenchmark<K> {
+
+        private final int width;
+        private List<Map.Entry<K, K>> ranges;
+        private long checksum;
+
+        public SubMapScans(NavigableMapSupplier implementation, Supplier<NavigableMap<K, Long>> mapSupplier,
+                String keyLabel, String testLabel, Collection<K> keys, final int width) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+            if (width < 1 || width >= keys.size()) {
+                throw new IllegalArgumentException("width must be between 1 and the number of keys (exclusive)");
+            }
+            this.width = width;
+        }
+
+        protected void init() {
+            super.init();
+
+            final var sortedKeys = new ArrayList<>(getMap().keySet());
+            final int scans = Math.max(1, sortedKeys.size() / width);
+            ranges = new ArrayList<>(scans);
+            for (int i = scans; --i >= 0;) {
+                final int start = random.nextInt(sortedKeys.size() - width);
+                ranges.add(new SimpleImmutableEntry<>(sortedKeys.get(start), sortedKeys.get(start + width)));
+            }
+        }
+
+        protected void destroy() {
+            ranges.clear();
+            ranges = null;
+
+            super.destroy();
+        }
+
+        protected void benchmark(final NavigableMap<K, Long> map) {
+            forEach(ranges, range -> {
+                long sum = 0l;
+                for (final var value : map.subMap(range.getKey(), true, range.getValue(), false).values()) {
+                    sum += value;
+                }
+                checksum += sum;
+            });
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * Iterates the entries before each of several random keys, visiting
+     * half of the map on average per key.
+     */
+    protected class HeadMapIteration<K> extends NavigableMapBenchmark<K> {
+
+        private List<K> pivots;
+        private long checksum;
+
+        public HeadMapIteration(NavigableMapSupplier implementation, Supplier<NavigableMap<K, Long>> mapSupplier,
+                String keyLabel, String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+
+            pivots = randomKeys(getKeys(), RANGE_ITERATION_PIVOTS);
+        }
+
+        protected void destroy() {
+            pivots = null;
+
+            super.destroy();
+        }
+
+        protected void benchmark(final NavigableMap<K, Long> map) {
+            forEach(pivots, pivot -> {
+                long sum = 0l;
+                for (final var value : map.headMap(pivot, false).values()) {
+                    sum += value;
+                }
+                checksum += sum;
+            });
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * Iterates the entries from each of several random keys onwards,
+     * visiting half of the map on average per key.
+     */
+    protected class TailMapIteration<K> extends NavigableMapBenchmark<K> {
+
+        private List<K> pivots;
+        private long checksum;
+
+        public TailMapIteration(NavigableMapSupplier implementation, Supplier<NavigableMap<K, Long>> mapSupplier,
+                String keyLabel, String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+
+            pivots = randomKeys(getKeys(), RANGE_ITERATION_PIVOTS);
+        }
+
+        protected void destroy() {
+            pivots = null;
+
+            super.destroy();
+        }
+
+        protected void benchmark(final NavigableMap<K, Long> map) {
+            forEach(pivots, pivot -> {
+                long sum = 0l;
+                for (final var value : map.tailMap(pivot, true).values()) {
+                    sum += value;
+                }
+                checksum += sum;
+            });
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * Removes every entry in key order with <code>pollFirstEntry</code>, as
+     * a priority queue would.
+     */
+    protected class PollFirstEntries<K> extends NavigableMapBenchmark<K> {
+
+        public PollFirstEntries(NavigableMapSupplier implementation, Supplier<NavigableMap<K, Long>> mapSupplier,
+                String keyLabel, String testLabel, Collection<K> keys) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        }
+
+        protected void benchmark(final NavigableMap<K, Long> map) {
+            forEach(getKeys(), key -> map.pollFirstEntry());
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class MixedWorkload<K> extends WorkloadBenchmark<K> {
+
+        public MixedWorkload(MapSupplier implementation, Supplier<Map<K, Long>> mapSupplier, String keyLabel,
+                String testLabel, Collection<K> keys, List<K> insertKeys, WorkloadBenchmark.Trace trace) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys, insertKeys, trace);
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class CacheReplay<K> extends CacheBenchmark<K> {
+
+        public CacheReplay(final BoundedCacheSupplier implementation, final String keyLabel, final String testLabel,
+                final List<K> keys, final int[] trace, final int maximumSize) {
+            super(implementation, keyLabel, testLabel, keys, trace, maximumSize);
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class PrimitiveInserts extends PrimitiveMapBenchmark {
+
+        public PrimitiveInserts(PrimitiveMapSupplier implementation, String keyLabel, String testLabel, long[] keys) {
+            super(implementation, keyLabel, testLabel, keys);
+        }
+
+        protected void benchmark(final LongLongMap map) {
+            for (final var key : getKeys()) {
+                map.put(key, 1l);
+            }
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    /**
+     * @see InsertsWithReserve
+     */
+    protected class PrimitiveInsertsWithReserve extends PrimitiveInserts {
+
+        public PrimitiveInsertsWithReserve(PrimitiveMapSupplier implementation, String keyLabel, String testLabel,
+                long[] keys) {
+            super(implementation, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+        }
+
+        protected void runBenchmark() {
+            setMap(getImplementation().createLongLongMap(getKeyCount(), getImplementation().getDefaultLoadFactor()));
+            super.runBenchmark();
+        }
+
+    }
+
+    /**
+     * @see InsertFootprint
+     */
+    protected class PrimitiveInsertFootprint extends PrimitiveInserts {
+
+        private FootprintAnalyzer.Footprint footprint;
+
+        public PrimitiveInsertFootprint(PrimitiveMapSupplier implementation, String keyLabel, String testLabel,
+                long[] keys) {
+            super(implementation, keyLabel, testLabel, keys);
+        }
+
+        protected void destroy() {
+            footprint = FootprintAnalyzer.measure(getMap(), candidate -> false, candidate -> false);
+
+            super.destroy();
+        }
+
+        protected void addMetrics(final BenchmarkResult result, final long elapsedNanos) {
+            footprint.addMetrics(result, getKeyCount());
+        }
+
+    }
+
+    /**
+     * @see InsertHashDistribution
+     */
+    protected class PrimitiveInsertHashDistribution extends PrimitiveInserts {
+
+        private HashDistribution distribution;
+
+        public PrimitiveInsertHashDistribution(PrimitiveMapSupplier implementation, String keyLabel, String testLabel,
+                long[] keys) {
+            super(implementation, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+            final boolean supported = HashDistribution.supports(getMap());
+            if (!supported) {
+                super.destroy();
+            }
+            assumeTrue(supported, "HashDistribution cannot inspect the map");
+        }
+
+        protected void destroy() {
+            distribution = HashDistribution.analyze(getMap());
+
+            super.destroy();
+        }
+
+        protected void addMetrics(final BenchmarkResult result, final long elapsedNanos) {
+            distribution.addMetrics(result);
+        }
+
+    }
+
+    protected class PrimitiveDeletes extends PrimitiveMapBenchmark {
+
+        private long[] deletionKeys;
+
+        public PrimitiveDeletes(PrimitiveMapSupplier implementation, String keyLabel, String testLabel, long[] keys) {
+            super(implementation, keyLabel, testLabel, keys);
+        }
+
+        protected void benchmark(final LongLongMap map) {
+            for (final var key : deletionKeys) {
+                map.remove(key);
+            }
+        }
+
+        protected void init() {
+            super.init();
+
+            deletionKeys = shuffle(getKeys());
+
+            for (final var key : getKeys()) {
+                getMap().put(key, 1l);
+            }
+        }
+
+        protected void destroy() {
+            deletionKeys = null;
+
+            super.destroy();
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class PrimitiveReads extends PrimitiveMapBenchmark {
+
+        private long[] readKeys;
+        // accumulate the values read so the lookups cannot be optimised away
+        private long checksum;
+
+        public PrimitiveReads(PrimitiveMapSupplier implementation, String keyLabel, String testLabel, long[] keys) {
+            super(implementation, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+
+            readKeys = shuffle(getKeys());
+
+            for (final var key : getKeys()) {
+                getMap().put(key, 1l);
+            }
+        }
+
+        protected void destroy() {
+            readKeys = null;
+
+            super.destroy();
+        }
+
+        protected void benchmark(final LongLongMap map) {
+            long sum = 0l;
+            for (final var key : readKeys) {
+                sum += map.get(key);
+            }
+            checksum = sum;
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class PrimitiveReadMisses extends PrimitiveMapBenchmark {
+
+        private final long[] differentKeys;
+        private long checksum;
+
+        public PrimitiveReadMisses(PrimitiveMapSupplier implementation, String keyLabel, String testLabel, long[] keys,
+                final long[] differentKeys) {
+            super(implementation, keyLabel, testLabel, keys);
+            Objects.requireNonNull(differentKeys);
+            if (differentKeys.length != keys.length) {
+                throw new IllegalArgumentException("key count mismatch");
+            }
+            this.differentKeys = differentKeys;
+        }
+
+        protected void init() {
+            super.init();
+
+            for (final var key : getKeys()) {
+                getMap().put(key, 1l);
+            }
+        }
+
+        protected void benchmark(final LongLongMap map) {
+            long sum = 0l;
+            for (final var key : differentKeys) {
+                sum += map.get(key);
+            }
+            checksum = sum;
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class PrimitiveReadsAfterDeletingHalf extends PrimitiveMapBenchmark {
+
+        private long[] readKeys;
+        private long checksum;
+
+        public PrimitiveReadsAfterDeletingHalf(PrimitiveMapSupplier implementation, String keyLabel, String testLabel,
+                long[] keys) {
+            super(implementation, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+
+            for (final var key : getKeys()) {
+                getMap().put(key, 1l);
+            }
+            final var deletionKeys = shuffle(getKeys());
+            for (int i = deletionKeys.length / 2; --i >= 0;) {
+                getMap().remove(deletionKeys[i]);
+            }
+            readKeys = shuffle(getKeys());
+        }
+
+        protected void destroy() {
+            readKeys = null;
+
+            super.destroy();
+        }
+
+        protected void benchmark(final LongLongMap map) {
+            long sum = 0l;
+            for (final var key : readKeys) {
+                sum += map.get(key);
+            }
+            checksum = sum;
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected class PrimitiveFullIteration extends PrimitiveMapBenchmark {
+
+        public PrimitiveFullIteration(PrimitiveMapSupplier implementation, String keyLabel, String testLabel,
+                long[] keys) {
+            super(implementation, keyLabel, testLabel, keys);
+        }
+
+        protected void init() {
+            super.init();
+
+            for (final var key : getKeys()) {
+                getMap().put(key, 1l);
+            }
+        }
+
+        protected void benchmark(final LongLongMap map) {
+            map.forEach((key, value) -> {
+            });
+        }
+
+        protected ResultSink getResultSink() {
+            return MapShootout.this.getResultSink();
+        }
+
+    }
+
+    protected List<MapSupplier> getMapSuppliers() {
+        return mapSuppliers;
+    }
+
+    protected List<PrimitiveMapSupplier> getPrimitiveMapSuppliers() {
+        return primitiveMapSuppliers;
+    }
+
+    protected List<BoundedCacheSupplier> getCacheSuppliers() {
+        return cacheSuppliers;
+    }
+
+    protected List<KeyType<?>> getKeyTypes() {
+        return keyTypes;
     }
 
-    protected PrintWriter getWriter() {
-        if (outputSink == null) {
-            setWriter(new PrintWriter(System.out));
+    /**
+     * @return where results are written, tab-separated values on stdout
+     *         unless otherwise specified
+     */
+    protected ResultSink getResultSink() {
+        if (resultSink == null) {
+            setResultSink(new TsvResultSink(new PrintWriter(System.out), true));
         }
-        return outputSink;
+        return resultSink;
     }
 
-    protected void setWriter(final PrintWriter outputSink) {
-        Objects.requireNonNull(outputSink);
-        this.outputSink = outputSink;
+    protected void setResultSink(final ResultSink resultSink) {
+        Objects.requireNonNull(resultSink);
+        this.resultSink = resultSink;
     }
 
 }
\ No newline at end of file
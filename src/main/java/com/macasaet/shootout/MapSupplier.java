@@ -23,6 +23,69 @@ public interface MapSupplier {
 
     Map<String, Long> createStringMap();
 
+    /**
+     * Create a map pre-sized for the expected number of entries, the
+     * equivalent of calling <code>reserve(n)</code> in C++. Implementations
+     * that cannot be pre-sized ignore the hints.
+     *
+     * @param expectedSize the number of entries the map should hold without resizing
+     * @param loadFactor the maximum ratio of entries to slots
+     * @see #isSizeable()
+     */
+    default Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+        return createLongMap();
+    }
+
+    /**
+     * @see #createLongMap(int, float)
+     */
+    default Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+        return createStringMap();
+    }
+
+    /**
+     * @return true if and only if the maps honour the expected size and
+     *         load factor passed to {@link #createLongMap(int, float)}
+     */
+    default boolean isSizeable() {
+        return false;
+    }
+
+    /**
+     * Create a map for keys other than {@link Long} and {@link String}.
+     *
+     * @throws UnsupportedOperationException if the implementation does not
+     *         support the key type
+     * @see #supports(KeyType)
+     */
+    default <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+        throw new UnsupportedOperationException(name() + " does not support " + keyType.getLabel() + " keys");
+    }
+
+    /**
+     * @see #createLongMap(int, float)
+     * @see #createMap(KeyType)
+     */
+    default <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+        return createMap(keyType);
+    }
+
+    /**
+     * @return true if and only if {@link #createMap(KeyType)} can create
+     *         maps for the key type, which implementations that specialise
+     *         on {@link Long} and {@link String} keys cannot
+     */
+    default boolean supports(final KeyType<?> keyType) {
+        return false;
+    }
+
+    /**
+     * @return the load factor of the maps created without hints
+     */
+    default float getDefaultLoadFactor() {
+        return 0.75f;
+    }
+
     String name();
 
 }
\ No newline at end of file
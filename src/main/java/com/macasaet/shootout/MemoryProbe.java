@@ -0,0 +1,123 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+/**
+ * Memory measurements that, unlike the difference between
+ * {@link Runtime#totalMemory()} and {@link Runtime#freeMemory()}, are not
+ * distorted by garbage collections or TLAB refills that happen to land
+ * between two readings.
+ */
+public final class MemoryProbe {
+
+    private static final int MAXIMUM_COLLECTION_ATTEMPTS = 8;
+    private static final long COLLECTION_TIMEOUT_MILLIS = 1_000;
+
+    private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private static final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private static final com.sun.management.ThreadMXBean threads = getAllocationTrackingThreadMXBean();
+
+    private static final BufferPoolMXBean directBufferPool = ManagementFactory
+            .getPlatformMXBeans(BufferPoolMXBean.class)
+            .stream()
+            .filter(pool -> "direct".equals(pool.getName()))
+            .findFirst()
+            .orElse(null);
+
+    private MemoryProbe() {
+    }
+
+    /**
+     * @return the number of bytes of native memory currently held by
+     *         direct buffers or -1 if this cannot be determined
+     */
+    public static long getNativeMemoryUsed() {
+        return directBufferPool == null ? -1l : directBufferPool.getMemoryUsed();
+    }
+
+    /**
+     * @return the cumulative number of bytes allocated on the heap by the
+     *         current thread or -1 if the JVM does not track this
+     */
+    public static long getAllocatedBytes() {
+        return threads == null ? -1l : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Force garbage collection until heap usage stops decreasing, then
+     * report the bytes still in use. Each collection is verified by
+     * checking that the collectors' counts advance, so a concurrent or
+     * disabled {@link System#gc()} is not mistaken for a completed one.
+     *
+     * @return the heap bytes retained after a full collection or -1 if a
+     *         collection could not be verified
+     * @throws InterruptedException if interrupted while waiting for a collection
+     */
+    public static long getRetainedHeapBytes() throws InterruptedException {
+        long previous = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < MAXIMUM_COLLECTION_ATTEMPTS; attempt++) {
+            if (!collect()) {
+                return -1l;
+            }
+            final var used = memory.getHeapMemoryUsage().getUsed();
+            if (used >= previous) {
+                return previous;
+            }
+            previous = used;
+        }
+        return previous;
+    }
+
+    private static boolean collect() throws InterruptedException {
+        final var before = getCollectionCount();
+        System.gc();
+        final var deadline = System.nanoTime() + COLLECTION_TIMEOUT_MILLIS * 1_000_000l;
+        while (getCollectionCount() == before) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private static long getCollectionCount() {
+        return collectors.stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationTrackingThreadMXBean() {
+        final var bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final var retval = (com.sun.management.ThreadMXBean) bean;
+        if (!retval.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        retval.setThreadAllocatedMemoryEnabled(true);
+        return retval;
+    }
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.Supplier;
+
+/**
+ * A range query performance test for ordered maps. The map is populated
+ * with every key before the test starts.
+ *
+ * @param <K> the Map's key type
+ */
+public abstract class NavigableMapBenchmark<K> extends MapBenchmark<K> {
+
+    protected NavigableMapBenchmark(final NavigableMapSupplier implementation,
+            final Supplier<NavigableMap<K, Long>> mapSupplier, final String keyLabel, final String testLabel,
+            final Collection<K> keys) {
+        super(implementation, mapSupplier::get, keyLabel, testLabel, keys);
+    }
+
+    protected void init() {
+        super.init();
+
+        getKeys().forEach(key -> getMap().put(key, 1l));
+    }
+
+    protected void benchmark(final Map<K, Long> map) {
+        benchmark((NavigableMap<K, Long>) map);
+    }
+
+    /**
+     * @param map a new map instance, populated with every key
+     * @see MapBenchmark#benchmark(Map)
+     */
+    protected abstract void benchmark(NavigableMap<K, Long> map);
+
+    protected NavigableMap<K, Long> getMap() {
+        return (NavigableMap<K, Long>) super.getMap();
+    }
+
+    protected NavigableMapSupplier getImplementation() {
+        return (NavigableMapSupplier) super.getImplementation();
+    }
+
+}
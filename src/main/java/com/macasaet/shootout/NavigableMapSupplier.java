@@ -0,0 +1,34 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.NavigableMap;
+
+/**
+ * A {@link MapSupplier} whose maps are ordered by key and support range
+ * queries.
+ */
+public interface NavigableMapSupplier extends MapSupplier {
+
+    NavigableMap<Long, Long> createLongMap();
+
+    NavigableMap<String, Long> createStringMap();
+
+    default <K> NavigableMap<K, Long> createMap(final KeyType<K> keyType) {
+        throw new UnsupportedOperationException(name() + " does not support " + keyType.getLabel() + " keys");
+    }
+
+}
@@ -0,0 +1,314 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Common functionality for open-addressing hash maps that store their
+ * entries in native memory. The slot table is a direct {@link ByteBuffer}
+ * of 16-byte slots. The first eight bytes of a slot identify the key and
+ * are zero when the slot is free. The last eight bytes hold the value.
+ * Collisions are resolved by linear probing and deletion shifts
+ * subsequent entries backward, so no tombstones are needed.
+ *
+ * <p>Native memory is released explicitly on {@link #clear()} rather than
+ * when the map becomes unreachable. Keys and values may not be
+ * <code>null</code>.</p>
+ *
+ * @param <K> the key type
+ */
+public abstract class OffHeapHashMap<K> extends AbstractMap<K, Long> implements OpenAddressingTable {
+
+    protected static final int SLOT_SIZE = 16;
+    protected static final int VALUE_OFFSET = 8;
+    protected static final int DEFAULT_EXPECTED_SIZE = 16;
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    private final float loadFactor;
+
+    private ByteBuffer table;
+    private int mask;
+    private int threshold;
+    private int slotsInUse;
+
+    private Set<Entry<K, Long>> entrySet;
+
+    protected OffHeapHashMap(final int expectedSize, final float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be non-negative");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be between 0 and 1 (exclusive)");
+        }
+        this.loadFactor = loadFactor;
+        allocateTable(Math.min(MAXIMUM_CAPACITY, LongOpenHashMap.capacityFor(expectedSize, loadFactor)));
+    }
+
+    /**
+     * @param table a slot table, possibly not the current one
+     * @param slot an occupied slot in that table
+     * @return the hash code of the key in the slot
+     */
+    protected abstract long hashAt(ByteBuffer table, int slot);
+
+    /**
+     * @param slot an occupied slot
+     * @return the key stored in the slot
+     */
+    protected abstract K keyAt(int slot);
+
+    public int size() {
+        return slotsInUse;
+    }
+
+    /**
+     * Release all native memory and reset the map to its initial capacity.
+     */
+    public void clear() {
+        DirectBuffers.free(table);
+        table = null;
+        slotsInUse = 0;
+        allocateTable(LongOpenHashMap.capacityFor(DEFAULT_EXPECTED_SIZE, loadFactor));
+    }
+
+    public void forEach(final BiConsumer<? super K, ? super Long> action) {
+        Objects.requireNonNull(action);
+        for (int slot = 0; slot <= mask; slot++) {
+            if (!isFree(slot)) {
+                action.accept(keyAt(slot), getValue(slot));
+            }
+        }
+    }
+
+    public Set<Entry<K, Long>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                public Iterator<Entry<K, Long>> iterator() {
+                    return entryIterator();
+                }
+
+                public int size() {
+                    return OffHeapHashMap.this.size();
+                }
+
+                public void clear() {
+                    OffHeapHashMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    protected Iterator<Entry<K, Long>> entryIterator() {
+        return new SlotIterator();
+    }
+
+    protected long hashAt(final int slot) {
+        return hashAt(table, slot);
+    }
+
+    protected int home(final long hash) {
+        return (int) LongOpenHashMap.mix(hash) & mask;
+    }
+
+    protected int next(final int slot) {
+        return (slot + 1) & mask;
+    }
+
+    protected boolean isFree(final int slot) {
+        return table.getLong(slot * SLOT_SIZE) == 0l;
+    }
+
+    protected long getIdentifier(final int slot) {
+        return table.getLong(slot * SLOT_SIZE);
+    }
+
+    protected long getValue(final int slot) {
+        return table.getLong(slot * SLOT_SIZE + VALUE_OFFSET);
+    }
+
+    protected void setValue(final int slot, final long value) {
+        table.putLong(slot * SLOT_SIZE + VALUE_OFFSET, value);
+    }
+
+    /**
+     * Occupy a free slot, growing the table if necessary.
+     *
+     * @param slot a free slot found by probing
+     * @param identifier the non-zero first eight bytes of the slot
+     * @param value the value to store
+     */
+    protected void insert(final int slot, final long identifier, final long value) {
+        table.putLong(slot * SLOT_SIZE, identifier);
+        table.putLong(slot * SLOT_SIZE + VALUE_OFFSET, value);
+        if (++slotsInUse > threshold) {
+            if (mask + 1 >= MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("Maximum capacity exceeded");
+            }
+            rehash((mask + 1) * 2);
+        }
+    }
+
+    /**
+     * Vacate a slot and close the gap by moving back any subsequent entries
+     * in the same cluster whose home slot is not between the gap and their
+     * current position (Knuth, Algorithm R).
+     *
+     * @param gap an occupied slot
+     */
+    protected void delete(int gap) {
+        final var table = this.table;
+        slotsInUse--;
+        while (true) {
+            int slot = next(gap);
+            while (true) {
+                if (isFree(slot)) {
+                    table.putLong(gap * SLOT_SIZE, 0l);
+                    return;
+                }
+                final int home = home(hashAt(slot));
+                if (gap <= slot ? gap >= home || home > slot : gap >= home && home > slot) {
+                    break;
+                }
+                slot = next(slot);
+            }
+            table.putLong(gap * SLOT_SIZE, table.getLong(slot * SLOT_SIZE));
+            table.putLong(gap * SLOT_SIZE + VALUE_OFFSET, table.getLong(slot * SLOT_SIZE + VALUE_OFFSET));
+            gap = slot;
+        }
+    }
+
+    /**
+     * Move every entry into a new table, then free the old one.
+     *
+     * @param capacity the new number of slots, a power of two
+     */
+    protected void rehash(final int capacity) {
+        final var oldTable = table;
+        final var oldCapacity = mask + 1;
+        allocateTable(capacity);
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            final var identifier = oldTable.getLong(oldSlot * SLOT_SIZE);
+            if (identifier != 0l) {
+                int slot = home(hashAt(oldTable, oldSlot));
+                while (!isFree(slot)) {
+                    slot = next(slot);
+                }
+                table.putLong(slot * SLOT_SIZE, relocate(identifier));
+                table.putLong(slot * SLOT_SIZE + VALUE_OFFSET, oldTable.getLong(oldSlot * SLOT_SIZE + VALUE_OFFSET));
+            }
+        }
+        DirectBuffers.free(oldTable);
+    }
+
+    /**
+     * Called for each entry when the table is rehashed, so that subclasses
+     * can also reorganise any auxiliary storage.
+     *
+     * @param identifier the first eight bytes of an occupied slot
+     * @return the first eight bytes of the slot in the new table
+     */
+    protected long relocate(final long identifier) {
+        return identifier;
+    }
+
+    protected ByteBuffer getTable() {
+        return table;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public int getProbeDistance(final int slot) {
+        return isFree(slot) ? -1 : (slot - home(hashAt(slot))) & mask;
+    }
+
+    private void allocateTable(final int capacity) {
+        table = DirectBuffers.allocate(capacity * SLOT_SIZE);
+        mask = capacity - 1;
+        threshold = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    /**
+     * Visits the slots in descending order, starting just below a free
+     * slot. Deleting the most recently returned entry only shifts entries
+     * that have already been visited, so {@link #remove()} neither skips
+     * nor repeats entries.
+     */
+    protected class SlotIterator implements Iterator<Entry<K, Long>> {
+
+        private int remaining = getCapacity();
+        private int cursor;
+        private int nextSlot = -1;
+        private int lastReturned = -1;
+
+        protected SlotIterator() {
+            int free = 0;
+            while (!isFree(free)) {
+                free++;
+            }
+            cursor = (free - 1) & mask;
+        }
+
+        public boolean hasNext() {
+            while (nextSlot < 0 && remaining > 0) {
+                final var slot = cursor;
+                cursor = (cursor - 1) & mask;
+                remaining--;
+                if (!isFree(slot)) {
+                    nextSlot = slot;
+                }
+            }
+            return nextSlot >= 0;
+        }
+
+        public Entry<K, Long> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextSlot;
+            nextSlot = -1;
+            return new SimpleEntry<>(keyAt(lastReturned), getValue(lastReturned)) {
+                private static final long serialVersionUID = 1l;
+
+                public Long setValue(final Long value) {
+                    put(getKey(), value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            delete(lastReturned);
+            lastReturned = -1;
+        }
+    }
+
+}
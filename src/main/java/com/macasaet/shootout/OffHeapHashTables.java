@@ -0,0 +1,48 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Map;
+
+public enum OffHeapHashTables implements MapSupplier {
+    OFF_HEAP_HASH_MAP() {
+
+        public Map<Long, Long> createLongMap() {
+            return new OffHeapLongMap();
+        }
+
+        public Map<String, Long> createStringMap() {
+            return new OffHeapStringMap();
+        }
+
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return new OffHeapLongMap(expectedSize, loadFactor);
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return new OffHeapStringMap(expectedSize, loadFactor);
+        }
+
+        public float getDefaultLoadFactor() {
+            return OffHeapHashMap.DEFAULT_LOAD_FACTOR;
+        }
+
+    };
+
+    public boolean isSizeable() {
+        return true;
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An off-heap map of <code>long</code> keys to <code>long</code> values.
+ * Each slot holds the key in its first eight bytes and the value in the
+ * last eight. Since a zero key marks a free slot, that key is stored on
+ * the heap.
+ */
+public class OffHeapLongMap extends OffHeapHashMap<Long> {
+
+    private boolean containsZeroKey;
+    private long zeroKeyValue;
+
+    public OffHeapLongMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    public OffHeapLongMap(final int expectedSize, final float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public Long get(final Object key) {
+        if (!(key instanceof Long)) {
+            return null;
+        }
+        final long k = (Long) key;
+        if (k == 0l) {
+            return containsZeroKey ? zeroKeyValue : null;
+        }
+        final int slot = find(k);
+        return slot < 0 ? null : getValue(slot);
+    }
+
+    public boolean containsKey(final Object key) {
+        if (!(key instanceof Long)) {
+            return false;
+        }
+        final long k = (Long) key;
+        if (k == 0l) {
+            return containsZeroKey;
+        }
+        return find(k) >= 0;
+    }
+
+    public Long put(final Long key, final Long value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        final long k = key;
+        if (k == 0l) {
+            final Long previous = containsZeroKey ? zeroKeyValue : null;
+            containsZeroKey = true;
+            zeroKeyValue = value;
+            return previous;
+        }
+        int slot = home(k);
+        while (!isFree(slot)) {
+            if (getIdentifier(slot) == k) {
+                final var previous = getValue(slot);
+                setValue(slot, value);
+                return previous;
+            }
+            slot = next(slot);
+        }
+        insert(slot, k, value);
+        return null;
+    }
+
+    public Long remove(final Object key) {
+        if (!(key instanceof Long)) {
+            return null;
+        }
+        final long k = (Long) key;
+        if (k == 0l) {
+            if (!containsZeroKey) {
+                return null;
+            }
+            containsZeroKey = false;
+            return zeroKeyValue;
+        }
+        final int slot = find(k);
+        if (slot < 0) {
+            return null;
+        }
+        final var previous = getValue(slot);
+        delete(slot);
+        return previous;
+    }
+
+    public int size() {
+        return super.size() + (containsZeroKey ? 1 : 0);
+    }
+
+    public void clear() {
+        containsZeroKey = false;
+        super.clear();
+    }
+
+    public void forEach(final BiConsumer<? super Long, ? super Long> action) {
+        Objects.requireNonNull(action);
+        if (containsZeroKey) {
+            action.accept(0l, zeroKeyValue);
+        }
+        super.forEach(action);
+    }
+
+    protected Iterator<Entry<Long, Long>> entryIterator() {
+        final var slots = super.entryIterator();
+        if (!containsZeroKey) {
+            return slots;
+        }
+        return new Iterator<>() {
+            private boolean zeroKeyPending = true;
+            private boolean zeroKeyReturned;
+
+            public boolean hasNext() {
+                return zeroKeyPending || slots.hasNext();
+            }
+
+            public Entry<Long, Long> next() {
+                if (zeroKeyPending) {
+                    if (!containsZeroKey) {
+                        throw new NoSuchElementException();
+                    }
+                    zeroKeyPending = false;
+                    zeroKeyReturned = true;
+                    return new AbstractMap.SimpleEntry<>(0l, zeroKeyValue) {
+                        private static final long serialVersionUID = 1l;
+
+                        public Long setValue(final Long value) {
+                            put(0l, value);
+                            return super.setValue(value);
+                        }
+                    };
+                }
+                zeroKeyReturned = false;
+                return slots.next();
+            }
+
+            public void remove() {
+                if (zeroKeyReturned) {
+                    containsZeroKey = false;
+                    zeroKeyReturned = false;
+                } else {
+                    slots.remove();
+                }
+            }
+        };
+    }
+
+    protected long hashAt(final ByteBuffer table, final int slot) {
+        return table.getLong(slot * SLOT_SIZE);
+    }
+
+    protected Long keyAt(final int slot) {
+        return getIdentifier(slot);
+    }
+
+    private int find(final long key) {
+        for (int slot = home(key); !isFree(slot); slot = next(slot)) {
+            if (getIdentifier(slot) == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * An off-heap map of {@link String} keys to <code>long</code> values. The
+ * keys are encoded as length-prefixed UTF-8 and appended to a separate
+ * native data region. Each slot holds the key's hash code and its offset
+ * in the data region, followed by the value. The hash code is compared
+ * before the key bytes, so most lookups that miss never encode the key.
+ *
+ * <p>Removing an entry leaves its key bytes in the data region until the
+ * region is compacted, which happens whenever the slot table is rehashed
+ * or the data region would otherwise need to grow.</p>
+ */
+public class OffHeapStringMap extends OffHeapHashMap<String> {
+
+    private static final int FIRST_OFFSET = Long.BYTES;
+    private static final int LENGTH_SIZE = Integer.BYTES;
+    private static final int MINIMUM_DATA_CAPACITY = 1 << 10;
+    private static final int MAXIMUM_DATA_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private ByteBuffer data;
+    private int dataEnd;
+    private long garbage;
+    private ByteBuffer source;
+
+    public OffHeapStringMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    public OffHeapStringMap(final int expectedSize, final float loadFactor) {
+        super(expectedSize, loadFactor);
+        allocateData(MINIMUM_DATA_CAPACITY);
+    }
+
+    public Long get(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final int slot = find((String) key);
+        return slot < 0 ? null : getValue(slot);
+    }
+
+    public boolean containsKey(final Object key) {
+        if (!(key instanceof String)) {
+            return false;
+        }
+        return find((String) key) >= 0;
+    }
+
+    public Long put(final String key, final Long value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        final var bytes = key.getBytes(UTF_8);
+        final var hash = key.hashCode();
+        int slot = home(hash);
+        while (!isFree(slot)) {
+            final var identifier = getIdentifier(slot);
+            if (hash(identifier) == hash && matches(offset(identifier), bytes)) {
+                final var previous = getValue(slot);
+                setValue(slot, value);
+                return previous;
+            }
+            slot = next(slot);
+        }
+        if (ensureDataCapacity(LENGTH_SIZE + bytes.length)) {
+            // the data region was compacted, which moves every entry
+            slot = home(hash);
+            while (!isFree(slot)) {
+                slot = next(slot);
+            }
+        }
+        final var offset = dataEnd;
+        data.putInt(offset, bytes.length);
+        data.position(offset + LENGTH_SIZE);
+        data.put(bytes);
+        dataEnd += LENGTH_SIZE + bytes.length;
+        insert(slot, identifier(hash, offset), value);
+        return null;
+    }
+
+    public Long remove(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final int slot = find((String) key);
+        if (slot < 0) {
+            return null;
+        }
+        final var previous = getValue(slot);
+        delete(slot);
+        return previous;
+    }
+
+    /**
+     * Release all native memory, including the data region.
+     */
+    public void clear() {
+        DirectBuffers.free(data);
+        data = null;
+        allocateData(MINIMUM_DATA_CAPACITY);
+        super.clear();
+    }
+
+    protected void delete(final int slot) {
+        garbage += LENGTH_SIZE + data.getInt(offset(getIdentifier(slot)));
+        super.delete(slot);
+    }
+
+    protected void rehash(final int capacity) {
+        rebuild(capacity, data.capacity());
+    }
+
+    /**
+     * Copy the key into the new, compacted, data region.
+     */
+    protected long relocate(final long identifier) {
+        final var offset = offset(identifier);
+        // absolute reads are bounded by the limit set for the previous key
+        source.clear();
+        final var length = LENGTH_SIZE + source.getInt(offset);
+        source.position(offset).limit(offset + length);
+        final var newOffset = dataEnd;
+        data.position(newOffset);
+        data.put(source);
+        dataEnd += length;
+        return identifier(hash(identifier), newOffset);
+    }
+
+    protected long hashAt(final ByteBuffer table, final int slot) {
+        return hash(table.getLong(slot * SLOT_SIZE));
+    }
+
+    protected String keyAt(final int slot) {
+        final var offset = offset(getIdentifier(slot));
+        final var bytes = new byte[data.getInt(offset)];
+        data.get(offset + LENGTH_SIZE, bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private int find(final String key) {
+        final var hash = key.hashCode();
+        byte[] bytes = null;
+        for (int slot = home(hash); !isFree(slot); slot = next(slot)) {
+            final var identifier = getIdentifier(slot);
+            if (hash(identifier) == hash) {
+                if (bytes == null) {
+                    bytes = key.getBytes(UTF_8);
+                }
+                if (matches(offset(identifier), bytes)) {
+                    return slot;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(final int offset, final byte[] bytes) {
+        final var data = this.data;
+        if (data.getInt(offset) != bytes.length) {
+            return false;
+        }
+        final var start = offset + LENGTH_SIZE;
+        for (int i = bytes.length; --i >= 0;) {
+            if (data.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param required the number of bytes about to be appended
+     * @return true if the data region had to be rebuilt
+     */
+    private boolean ensureDataCapacity(final int required) {
+        if ((long) dataEnd + required <= data.capacity()) {
+            return false;
+        }
+        final var live = dataEnd - garbage;
+        if (live + required > MAXIMUM_DATA_CAPACITY) {
+            throw new IllegalStateException("Maximum data capacity exceeded");
+        }
+        if (garbage >= dataEnd / 2 && live + required <= data.capacity()) {
+            rebuild(getCapacity(), data.capacity());
+        } else {
+            rebuild(getCapacity(),
+                    (int) Math.min(MAXIMUM_DATA_CAPACITY, Math.max(live + required, 2l * data.capacity())));
+        }
+        return true;
+    }
+
+    private void rebuild(final int tableCapacity, final int dataCapacity) {
+        final var oldData = data;
+        source = oldData.duplicate().order(oldData.order());
+        allocateData(dataCapacity);
+        super.rehash(tableCapacity);
+        source = null;
+        DirectBuffers.free(oldData);
+    }
+
+    private void allocateData(final int capacity) {
+        data = DirectBuffers.allocate(capacity);
+        dataEnd = FIRST_OFFSET;
+        garbage = 0l;
+    }
+
+    private static long identifier(final int hash, final int offset) {
+        return ((long) hash << 32) | offset;
+    }
+
+    private static int hash(final long identifier) {
+        return (int) (identifier >>> 32);
+    }
+
+    private static int offset(final long identifier) {
+        return (int) identifier;
+    }
+
+}
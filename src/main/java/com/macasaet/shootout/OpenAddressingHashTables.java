@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Map;
+
+public enum OpenAddressingHashTables implements MapSupplier {
+    ROBIN_HOOD_HASH_MAP() {
+
+        public Map<Long, Long> createLongMap() {
+            return new RobinHoodHashMap<>();
+        }
+
+        public Map<String, Long> createStringMap() {
+            return new RobinHoodHashMap<>();
+        }
+
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return new RobinHoodHashMap<>(expectedSize, loadFactor);
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return new RobinHoodHashMap<>(expectedSize, loadFactor);
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+            return new RobinHoodHashMap<>();
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+            return new RobinHoodHashMap<>(expectedSize, loadFactor);
+        }
+
+        public float getDefaultLoadFactor() {
+            return RobinHoodHashMap.DEFAULT_LOAD_FACTOR;
+        }
+
+    },
+    HOPSCOTCH_HASH_MAP() {
+
+        public Map<Long, Long> createLongMap() {
+            return new HopscotchHashMap<>();
+        }
+
+        public Map<String, Long> createStringMap() {
+            return new HopscotchHashMap<>();
+        }
+
+        public Map<Long, Long> createLongMap(final int expectedSize, final float loadFactor) {
+            return new HopscotchHashMap<>(expectedSize, loadFactor);
+        }
+
+        public Map<String, Long> createStringMap(final int expectedSize, final float loadFactor) {
+            return new HopscotchHashMap<>(expectedSize, loadFactor);
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType) {
+            return new HopscotchHashMap<>();
+        }
+
+        public <K> Map<K, Long> createMap(final KeyType<K> keyType, final int expectedSize, final float loadFactor) {
+            return new HopscotchHashMap<>(expectedSize, loadFactor);
+        }
+
+        public float getDefaultLoadFactor() {
+            return HopscotchHashMap.DEFAULT_LOAD_FACTOR;
+        }
+
+    };
+
+    public boolean isSizeable() {
+        return true;
+    }
+
+    public boolean supports(final KeyType<?> keyType) {
+        return true;
+    }
+}
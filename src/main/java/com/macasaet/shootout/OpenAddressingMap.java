@@ -0,0 +1,306 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Common storage for hash maps that keep their entries in flat arrays
+ * rather than in chained nodes. Each slot's hash code is cached in an
+ * <code>int[]</code> so that most probes are resolved without
+ * dereferencing a key. A cached hash of zero marks a free slot. Null keys
+ * are not supported.
+ *
+ * <p>Subclasses decide where an entry is placed and how the table is
+ * repaired after a removal. Removal must not leave tombstones and may only
+ * move entries backwards (towards lower slots, wrapping around) within a
+ * run of occupied slots, which allows iterators to support removal.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public abstract class OpenAddressingMap<K, V> extends AbstractMap<K, V> implements OpenAddressingTable {
+
+    protected static final int FREE = 0;
+    protected static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final float loadFactor;
+
+    private int[] hashes;
+    private Object[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    private Set<Entry<K, V>> entrySet;
+
+    /**
+     * @param expectedSize the number of entries the map should hold without resizing
+     * @param loadFactor the maximum ratio of entries to slots, in (0, 1)
+     */
+    protected OpenAddressingMap(final int expectedSize, final float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be non-negative");
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1)");
+        }
+        this.loadFactor = loadFactor;
+        allocate(LongOpenHashMap.capacityFor(expectedSize, loadFactor));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(final Object key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        final var retval = (V) values[slot];
+        removeAt(slot);
+        return retval;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(hashes, FREE);
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        final var hashes = this.hashes;
+        for (int slot = 0; slot < hashes.length; slot++) {
+            if (hashes[slot] != FREE) {
+                action.accept((K) keys[slot], (V) values[slot]);
+            }
+        }
+    }
+
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                public Iterator<Entry<K, V>> iterator() {
+                    return entryIterator();
+                }
+
+                public int size() {
+                    return OpenAddressingMap.this.size();
+                }
+
+                public void clear() {
+                    OpenAddressingMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    protected Iterator<Entry<K, V>> entryIterator() {
+        return new SlotIterator();
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the slot containing the key or a negative number if it is absent
+     */
+    protected abstract int find(Object key);
+
+    /**
+     * Place an entry whose key is known to be absent. This is used when
+     * rehashing, so it must not trigger another resize.
+     *
+     * @return false if the entry could not be placed without resizing
+     */
+    protected abstract boolean insertAbsent(int hash, Object key, Object value);
+
+    /**
+     * Remove the entry in the given slot and repair the table.
+     */
+    protected abstract void removeAt(int slot);
+
+    /**
+     * @return a well-distributed, non-zero hash code for the key
+     */
+    protected static int hash(final Object key) {
+        final int h = key.hashCode() * 0x9e3779b9;
+        final int spread = h ^ (h >>> 16);
+        return spread == FREE ? 1 : spread;
+    }
+
+    protected int home(final int hash) {
+        return hash & mask;
+    }
+
+    /**
+     * Double the table and reinsert every entry.
+     */
+    protected void grow() {
+        if (getCapacity() >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Maximum capacity exceeded");
+        }
+        final var oldHashes = hashes;
+        final var oldKeys = keys;
+        final var oldValues = values;
+        for (int capacity = getCapacity() << 1; ; capacity <<= 1) {
+            allocate(capacity);
+            boolean placed = true;
+            for (int slot = oldHashes.length; placed && --slot >= 0;) {
+                if (oldHashes[slot] != FREE) {
+                    placed = insertAbsent(oldHashes[slot], oldKeys[slot], oldValues[slot]);
+                }
+            }
+            if (placed) {
+                return;
+            }
+        }
+    }
+
+    protected boolean isFull() {
+        return size >= threshold;
+    }
+
+    public int getCapacity() {
+        return hashes.length;
+    }
+
+    public int getProbeDistance(final int slot) {
+        final int hash = hashes[slot];
+        return hash == FREE ? -1 : (slot - home(hash)) & mask;
+    }
+
+    protected int getMask() {
+        return mask;
+    }
+
+    protected int[] getHashes() {
+        return hashes;
+    }
+
+    protected Object[] getKeys() {
+        return keys;
+    }
+
+    protected Object[] getValues() {
+        return values;
+    }
+
+    protected void incrementSize() {
+        size++;
+    }
+
+    protected void decrementSize() {
+        size--;
+    }
+
+    /**
+     * Replace the table with an empty one. Subclasses that keep additional
+     * per-slot state should override this and allocate it here. Note that
+     * this is called from the constructor.
+     */
+    protected void allocate(final int capacity) {
+        hashes = new int[capacity];
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = Math.min(capacity - 1, (int) (capacity * loadFactor));
+        size = 0;
+    }
+
+    /**
+     * Visits the slots in descending order starting just below a free slot.
+     * Removal only moves entries backwards into slots that have already
+     * been visited, so no entry is skipped or returned twice.
+     */
+    private class SlotIterator implements Iterator<Entry<K, V>> {
+
+        private int remaining = getCapacity();
+        private int cursor;
+        private int nextSlot = -1;
+        private int lastReturned = -1;
+
+        SlotIterator() {
+            int free = 0;
+            while (free < hashes.length && hashes[free] != FREE) {
+                free++;
+            }
+            cursor = (free - 1) & mask;
+        }
+
+        public boolean hasNext() {
+            while (nextSlot < 0 && remaining > 0) {
+                final var slot = cursor;
+                cursor = (cursor - 1) & mask;
+                remaining--;
+                if (hashes[slot] != FREE) {
+                    nextSlot = slot;
+                }
+            }
+            return nextSlot >= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextSlot;
+            nextSlot = -1;
+            return new SimpleEntry<>((K) keys[lastReturned], (V) values[lastReturned]) {
+                private static final long serialVersionUID = 1l;
+
+                public V setValue(final V value) {
+                    put(getKey(), value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            removeAt(lastReturned);
+            lastReturned = -1;
+        }
+    }
+
+}
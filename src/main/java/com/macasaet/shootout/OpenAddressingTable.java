@@ -0,0 +1,39 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+/**
+ * A hash table that keeps its entries directly in an array of slots and
+ * resolves collisions by probing, so the cost of finding an entry grows
+ * with the distance between its slot and its home slot.
+ *
+ * @see HashDistribution
+ */
+public interface OpenAddressingTable {
+
+    /**
+     * @return the number of slots
+     */
+    int getCapacity();
+
+    /**
+     * @param slot a slot in [0, {@link #getCapacity()})
+     * @return -1 if the slot is free, otherwise the number of slots between
+     *         the entry in it and its home slot
+     */
+    int getProbeDistance(int slot);
+
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+public enum PrimitiveHashTables implements PrimitiveMapSupplier {
+    LONG_OPEN_HASH_MAP() {
+
+        public LongLongMap createLongLongMap() {
+            return new LongOpenHashMap();
+        }
+
+        public LongLongMap createLongLongMap(final int expectedSize, final float loadFactor) {
+            return new LongOpenHashMap(expectedSize, loadFactor);
+        }
+
+        public float getDefaultLoadFactor() {
+            return LongOpenHashMap.DEFAULT_LOAD_FACTOR;
+        }
+
+    };
+
+    public boolean isSizeable() {
+        return true;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Objects;
+
+import org.junit.jupiter.api.DynamicTest;
+
+/**
+ * A {@link LongLongMap} operation performance test that can be converted
+ * to a {@link DynamicTest}. Keys are supplied as a primitive array so that
+ * neither the test nor the map allocates while it is being timed.
+ */
+public abstract class PrimitiveMapBenchmark extends TimedBenchmark {
+
+    private final PrimitiveMapSupplier implementation;
+    private final long[] keys;
+
+    private LongLongMap map;
+
+    protected PrimitiveMapBenchmark(final PrimitiveMapSupplier implementation, final String keyLabel,
+            final String testLabel, final long[] keys) {
+        super(keyLabel, testLabel);
+        Objects.requireNonNull(implementation);
+        Objects.requireNonNull(keys);
+        this.implementation = implementation;
+        this.keys = keys;
+    }
+
+    /**
+     * Create a new map and perform any other test setup. If you allocate
+     * additional resources, be sure to release them in {@link #destroy()}.
+     *
+     * @see #destroy()
+     */
+    protected void init() {
+        setMap(getImplementation().createLongLongMap());
+    }
+
+    protected void destroy() {
+        getMap().clear();
+        setMap(null);
+    }
+
+    protected void runBenchmark() {
+        benchmark(getMap());
+    }
+
+    /**
+     * Perform the actual test. This method should *not* set up any test
+     * fixtures or dispose of resources. Use {@link #init()} and
+     * {@link #destroy()} for that.
+     *
+     * @param map a new map instance specifically for this test
+     */
+    protected abstract void benchmark(LongLongMap map);
+
+    protected LongLongMap getMap() {
+        return map;
+    }
+
+    protected void setMap(final LongLongMap map) {
+        this.map = map;
+    }
+
+    protected PrimitiveMapSupplier getImplementation() {
+        return implementation;
+    }
+
+    protected String getImplementationName() {
+        return getImplementation().name();
+    }
+
+    /**
+     * @return the keys, which must not be modified
+     */
+    protected long[] getKeys() {
+        return keys;
+    }
+
+    protected int getKeyCount() {
+        return getKeys().length;
+    }
+
+}
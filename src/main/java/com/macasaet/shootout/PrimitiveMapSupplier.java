@@ -0,0 +1,52 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+/**
+ * A source of primitive maps. This is the boxing-free analogue of
+ * {@link MapSupplier}; its maps are benchmarked against the same int64
+ * keys so the boxed implementations serve as a baseline.
+ */
+public interface PrimitiveMapSupplier {
+
+    LongLongMap createLongLongMap();
+
+    /**
+     * @param expectedSize the number of entries the map should hold without resizing
+     * @param loadFactor the maximum ratio of entries to slots
+     * @see MapSupplier#createLongMap(int, float)
+     */
+    default LongLongMap createLongLongMap(final int expectedSize, final float loadFactor) {
+        return createLongLongMap();
+    }
+
+    /**
+     * @see MapSupplier#isSizeable()
+     */
+    default boolean isSizeable() {
+        return false;
+    }
+
+    /**
+     * @see MapSupplier#getDefaultLoadFactor()
+     */
+    default float getDefaultLoadFactor() {
+        return 0.75f;
+    }
+
+    String name();
+
+}
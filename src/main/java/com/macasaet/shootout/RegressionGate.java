@@ -0,0 +1,288 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares a <code>data.tsv</code> file against a stored baseline and
+ * fails if any benchmark got slower or used more memory than the
+ * configured tolerance allows.
+ *
+ * <p>Rows are matched by key type, test, implementation, and number of
+ * keys. If either file contains the same benchmark more than once, e.g.
+ * because the results of several runs were concatenated, the median is
+ * compared and the threshold for that benchmark is widened to
+ * <code>shootout.noiseFactor</code> times the larger relative median
+ * absolute deviation of the two sets of samples. Changes smaller than
+ * <code>shootout.minTimeNanos</code> or <code>shootout.minBytes</code> are
+ * ignored regardless, since they are within the resolution of a single
+ * run.</p>
+ *
+ * <p>Usage: <code>RegressionGate baseline.tsv [data.tsv]</code>. The
+ * process exits with status 1 if there are any regressions.</p>
+ */
+public class RegressionGate {
+
+    /**
+     * The numeric columns of <code>data.tsv</code> that are compared, in
+     * column order. Files written before a column was added are compared
+     * on the columns they have.
+     */
+    protected enum Metric {
+        TIME_NANOS("timeNanos", 4, true),
+        ALLOCATED_BYTES("allocatedBytes", 5, false),
+        RETAINED_BYTES("retainedBytes", 6, false),
+        NATIVE_MEMORY("nativeMemory", 7, false),
+        P99_NANOS("p99Nanos", 10, true);
+
+        private final String label;
+        private final int column;
+        private final boolean time;
+
+        Metric(final String label, final int column, final boolean time) {
+            this.label = label;
+            this.column = column;
+            this.time = time;
+        }
+
+        protected String getLabel() {
+            return label;
+        }
+
+        protected int getColumn() {
+            return column;
+        }
+
+        protected boolean isTime() {
+            return time;
+        }
+    }
+
+    /**
+     * A metric whose median changed beyond its threshold.
+     */
+    protected static class Change {
+        private final String benchmark;
+        private final Metric metric;
+        private final double baseline;
+        private final double current;
+        private final double threshold;
+
+        public Change(final String benchmark, final Metric metric, final double baseline, final double current,
+                final double threshold) {
+            Objects.requireNonNull(benchmark);
+            Objects.requireNonNull(metric);
+            this.benchmark = benchmark;
+            this.metric = metric;
+            this.baseline = baseline;
+            this.current = current;
+            this.threshold = threshold;
+        }
+
+        /**
+         * @return the change relative to the magnitude of the baseline, so
+         *         that it is positive when the metric grew even if it is
+         *         negative, as the retained bytes after deletes are, or
+         *         NaN if the baseline is zero and there is nothing to scale
+         *         the change by
+         */
+        protected double getRelativeChange() {
+            return baseline == 0 ? Double.NaN : (current - baseline) / Math.abs(baseline);
+        }
+
+        public String toString() {
+            final var relative = getRelativeChange();
+            return String.format("  %-60s %-15s %,18.0f -> %,18.0f  (%s, threshold %.1f%%)", benchmark,
+                    metric.getLabel(), baseline, current,
+                    Double.isNaN(relative) ? "from zero" : String.format("%+.1f%%", relative * 100),
+                    threshold * 100);
+        }
+    }
+
+    private final double timeTolerance;
+    private final double memoryTolerance;
+    private final double noiseFactor;
+    private final long minTimeNanos;
+    private final long minBytes;
+
+    private final List<Change> regressions = new ArrayList<>();
+    private final List<Change> improvements = new ArrayList<>();
+    private final List<String> missing = new ArrayList<>();
+    private int comparisons;
+
+    public RegressionGate(final double timeTolerance, final double memoryTolerance, final double noiseFactor,
+            final long minTimeNanos, final long minBytes) {
+        if (timeTolerance < 0 || memoryTolerance < 0 || noiseFactor < 0) {
+            throw new IllegalArgumentException("tolerances must be non-negative");
+        }
+        this.timeTolerance = timeTolerance;
+        this.memoryTolerance = memoryTolerance;
+        this.noiseFactor = noiseFactor;
+        this.minTimeNanos = minTimeNanos;
+        this.minBytes = minBytes;
+    }
+
+    public static void main(final String... arguments) throws IOException {
+        if (arguments.length < 1 || arguments.length > 2) {
+            System.err.println("Usage: RegressionGate baseline.tsv [data.tsv]");
+            System.exit(2);
+        }
+        final var baseline = Paths.get(arguments[0]);
+        final var results = Paths.get(arguments.length > 1 ? arguments[1] : "data.tsv");
+        final var gate = new RegressionGate(Double.parseDouble(System.getProperty("shootout.timeTolerance", "0.1")),
+                Double.parseDouble(System.getProperty("shootout.memoryTolerance", "0.05")),
+                Double.parseDouble(System.getProperty("shootout.noiseFactor", "3")),
+                Long.getLong("shootout.minTimeNanos", 1_000_000l), Long.getLong("shootout.minBytes", 65_536l));
+        gate.compare(read(baseline), read(results));
+        System.out.println("Comparing " + results + " against baseline " + baseline);
+        gate.report(System.out);
+        if (!gate.getRegressions().isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @param file a file in the <code>data.tsv</code> format
+     * @return every row's numeric columns, grouped by benchmark in file order
+     */
+    protected static Map<String, List<String[]>> read(final Path file) throws IOException {
+        final var retval = new LinkedHashMap<String, List<String[]>>();
+        for (final var line : Files.readAllLines(file, UTF_8)) {
+            final var columns = line.split("\t");
+            if (columns.length <= Metric.TIME_NANOS.getColumn()) {
+                continue;
+            }
+            final var benchmark = String.join(" ", Arrays.copyOf(columns, Metric.TIME_NANOS.getColumn()));
+            retval.computeIfAbsent(benchmark, key -> new ArrayList<>()).add(columns);
+        }
+        return retval;
+    }
+
+    protected void compare(final Map<String, List<String[]>> baseline, final Map<String, List<String[]>> current) {
+        for (final var entry : baseline.entrySet()) {
+            final var benchmark = entry.getKey();
+            final var currentRows = current.get(benchmark);
+            if (currentRows == null) {
+                missing.add(benchmark);
+                continue;
+            }
+            for (final var metric : Metric.values()) {
+                final var before = samples(entry.getValue(), metric);
+                final var after = samples(currentRows, metric);
+                if (before.length == 0 || after.length == 0) {
+                    continue;
+                }
+                comparisons++;
+                final double baselineMedian = median(before);
+                final double currentMedian = median(after);
+                final double tolerance = metric.isTime() ? timeTolerance : memoryTolerance;
+                final double noise = Math.max(relativeDeviation(before), relativeDeviation(after));
+                final double threshold = Math.max(tolerance, noiseFactor * noise);
+                final double floor = metric.isTime() ? minTimeNanos : minBytes;
+                final double delta = currentMedian - baselineMedian;
+                if (Math.abs(delta) <= floor) {
+                    continue;
+                }
+                final var change = new Change(benchmark, metric, baselineMedian, currentMedian, threshold);
+                if (baselineMedian == 0) {
+                    // no relative change can be computed, but the change
+                    // already exceeds the absolute floor, e.g. allocations
+                    // added to a test that allocated nothing
+                    (delta > 0 ? regressions : improvements).add(change);
+                } else if (change.getRelativeChange() > threshold) {
+                    regressions.add(change);
+                } else if (-change.getRelativeChange() > threshold) {
+                    improvements.add(change);
+                }
+            }
+        }
+    }
+
+    protected void report(final PrintStream out) {
+        out.println(String.format("Compared %d metrics: %d regressions, %d improvements, %d benchmarks missing",
+                comparisons, regressions.size(), improvements.size(), missing.size()));
+        // changes from zero have no relative size and sort as the largest
+        final Comparator<Change> bySize = Comparator.comparingDouble(change -> Math.abs(change.getRelativeChange()));
+        if (!regressions.isEmpty()) {
+            out.println("REGRESSIONS");
+            regressions.stream().sorted(bySize.reversed()).forEach(out::println);
+        }
+        if (!improvements.isEmpty()) {
+            out.println("Improvements");
+            improvements.stream().sorted(bySize.reversed()).forEach(out::println);
+        }
+        if (!missing.isEmpty()) {
+            out.println("Missing from results");
+            missing.forEach(benchmark -> out.println("  " + benchmark));
+        }
+    }
+
+    protected List<Change> getRegressions() {
+        return Collections.unmodifiableList(regressions);
+    }
+
+    protected List<Change> getImprovements() {
+        return Collections.unmodifiableList(improvements);
+    }
+
+    protected static double[] samples(final List<String[]> rows, final Metric metric) {
+        return rows.stream()
+                .filter(columns -> columns.length > metric.getColumn())
+                .map(columns -> columns[metric.getColumn()])
+                .filter(value -> !"NA".equals(value))
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+    }
+
+    protected static double median(final double[] samples) {
+        final var sorted = samples.clone();
+        Arrays.sort(sorted);
+        final int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * @return the median absolute deviation relative to the median, or 0
+     *         if there are too few samples to tell
+     */
+    protected static double relativeDeviation(final double[] samples) {
+        if (samples.length < 2) {
+            return 0;
+        }
+        final double median = median(samples);
+        if (median == 0) {
+            return 0;
+        }
+        final var deviations = Arrays.stream(samples).map(sample -> Math.abs(sample - median)).toArray();
+        return median(deviations) / Math.abs(median);
+    }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.io.IOException;
+
+/**
+ * A destination for benchmark results. Implementations need not be
+ * thread-safe; wrap them in an {@link AsyncResultSink} to move the output
+ * off the measurement thread.
+ */
+public interface ResultSink extends AutoCloseable {
+
+    void accept(BenchmarkResult result) throws IOException;
+
+    /**
+     * Write any buffered results.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Write any buffered results and release the underlying resources.
+     */
+    void close() throws IOException;
+
+}
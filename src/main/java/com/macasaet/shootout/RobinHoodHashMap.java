@@ -0,0 +1,133 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+/**
+ * A linear-probing hash map that uses Robin Hood insertion: an entry that
+ * is further from its home slot displaces one that is closer to its own.
+ * This bounds the variance of probe lengths and lets unsuccessful lookups
+ * stop as soon as they meet an entry closer to home than the key would
+ * be. Removal uses backward-shift deletion, so no tombstones accumulate.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see https://codecapsule.com/2013/11/17/robin-hood-hashing-backward-shift-deletion/
+ */
+public class RobinHoodHashMap<K, V> extends OpenAddressingMap<K, V> {
+
+    public static final float DEFAULT_LOAD_FACTOR = 0.8f;
+
+    public RobinHoodHashMap() {
+        this(16, DEFAULT_LOAD_FACTOR);
+    }
+
+    public RobinHoodHashMap(final int expectedSize, final float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(final K key, final V value) {
+        final int hash = hash(key);
+        final int slot = find(hash, key);
+        if (slot >= 0) {
+            final var values = getValues();
+            final var retval = (V) values[slot];
+            values[slot] = value;
+            return retval;
+        }
+        if (isFull()) {
+            grow();
+        }
+        insertAbsent(hash, key, value);
+        return null;
+    }
+
+    protected int find(final Object key) {
+        return find(hash(key), key);
+    }
+
+    protected int find(final int hash, final Object key) {
+        final var hashes = getHashes();
+        final var keys = getKeys();
+        final int mask = getMask();
+        int slot = home(hash);
+        for (int distance = 0; ; distance++) {
+            final int current = hashes[slot];
+            if (current == FREE || distanceFromHome(slot, current) < distance) {
+                return -1;
+            }
+            if (current == hash && key.equals(keys[slot])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    protected boolean insertAbsent(int hash, Object key, Object value) {
+        final var hashes = getHashes();
+        final var keys = getKeys();
+        final var values = getValues();
+        final int mask = getMask();
+        int slot = home(hash);
+        for (int distance = 0; ; distance++) {
+            final int current = hashes[slot];
+            if (current == FREE) {
+                hashes[slot] = hash;
+                keys[slot] = key;
+                values[slot] = value;
+                incrementSize();
+                return true;
+            }
+            final int currentDistance = distanceFromHome(slot, current);
+            if (currentDistance < distance) {
+                // take from the rich and carry the displaced entry onwards
+                final var displacedKey = keys[slot];
+                final var displacedValue = values[slot];
+                hashes[slot] = hash;
+                keys[slot] = key;
+                values[slot] = value;
+                hash = current;
+                key = displacedKey;
+                value = displacedValue;
+                distance = currentDistance;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    protected void removeAt(final int slot) {
+        final var hashes = getHashes();
+        final var keys = getKeys();
+        final var values = getValues();
+        final int mask = getMask();
+        int gap = slot;
+        for (int next = (gap + 1) & mask; hashes[next] != FREE && distanceFromHome(next, hashes[next]) > 0; next = (next + 1) & mask) {
+            hashes[gap] = hashes[next];
+            keys[gap] = keys[next];
+            values[gap] = values[next];
+            gap = next;
+        }
+        hashes[gap] = FREE;
+        keys[gap] = null;
+        values[gap] = null;
+        decrementSize();
+    }
+
+    protected int distanceFromHome(final int slot, final int hash) {
+        return (slot - home(hash)) & getMask();
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Describes the environment in which a benchmark run took place: the JVM,
+ * its garbage collectors and heap, the hardware it saw, and every
+ * "shootout.*" system property, including the key seed.
+ */
+public class RunMetadata {
+
+    private final Map<String, String> properties;
+
+    protected RunMetadata(final Map<String, String> properties) {
+        this.properties = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+    }
+
+    /**
+     * @return a description of the current JVM with a new, random run ID
+     */
+    public static RunMetadata capture() {
+        final var runtime = ManagementFactory.getRuntimeMXBean();
+        final var properties = new LinkedHashMap<String, String>();
+        properties.put("runId", UUID.randomUUID().toString());
+        properties.put("startTime", Instant.ofEpochMilli(runtime.getStartTime()).toString());
+        properties.put("javaVersion", System.getProperty("java.version"));
+        properties.put("vmName", runtime.getVmName());
+        properties.put("vmVersion", runtime.getVmVersion());
+        properties.put("vmArguments", String.join(" ", runtime.getInputArguments()));
+        properties.put("garbageCollectors", ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .map(GarbageCollectorMXBean::getName)
+                .collect(Collectors.joining(",")));
+        properties.put("maxHeapBytes", String.valueOf(Runtime.getRuntime().maxMemory()));
+        properties.put("availableProcessors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        properties.put("osName", System.getProperty("os.name"));
+        properties.put("osVersion", System.getProperty("os.version"));
+        properties.put("osArch", System.getProperty("os.arch"));
+        properties.put("seed", String.valueOf(KeyGenerator.getConfiguredSeed()));
+        System.getProperties().stringPropertyNames().stream()
+            .filter(name -> name.startsWith("shootout."))
+            .sorted()
+            .forEach(name -> properties.put(name, System.getProperty(name)));
+        return new RunMetadata(properties);
+    }
+
+    public String getRunId() {
+        return properties.get("runId");
+    }
+
+    /**
+     * @return the metadata as ordered name-value pairs
+     */
+    public Map<String, String> asMap() {
+        return properties;
+    }
+
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.AbstractMap.SimpleEntry;
+
+/**
+ * Segmented LRU: new entries are placed in a probationary segment and are
+ * promoted to a protected segment, which holds 80% of the entries, when
+ * they are read again. The least recently used protected entry is demoted
+ * back to probation when the protected segment overflows, and entries are
+ * evicted from probation first. Keys that are read only once therefore
+ * cannot flush out the frequently read ones, as they can with plain LRU.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SegmentedLruCache<K, V> extends BoundedCache<K, V, SegmentedLruCache.Node<K, V>> {
+
+    protected static final double PROTECTED_FRACTION = 0.8;
+
+    protected static final class Node<K, V> extends SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1l;
+
+        private Node<K, V> previous;
+        private Node<K, V> next;
+        private Segment<K, V> segment;
+
+        protected Node(final K key, final V value) {
+            super(key, value);
+        }
+
+        protected Segment<K, V> getSegment() {
+            return segment;
+        }
+    }
+
+    /**
+     * A list of nodes from least to most recently used.
+     */
+    protected static final class Segment<K, V> {
+        private final Node<K, V> sentinel = new Node<>(null, null);
+        private final int capacity;
+        private int size;
+
+        protected Segment(final int capacity) {
+            this.capacity = capacity;
+            clear();
+        }
+
+        protected void addLast(final Node<K, V> node) {
+            node.previous = sentinel.previous;
+            node.next = sentinel;
+            sentinel.previous.next = node;
+            sentinel.previous = node;
+            node.segment = this;
+            size++;
+        }
+
+        protected void remove(final Node<K, V> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            node.segment = null;
+            size--;
+        }
+
+        protected void moveToLast(final Node<K, V> node) {
+            remove(node);
+            addLast(node);
+        }
+
+        /**
+         * @return the least recently used node, or null if the segment is empty
+         */
+        protected Node<K, V> first() {
+            return size == 0 ? null : sentinel.next;
+        }
+
+        protected void clear() {
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            size = 0;
+        }
+
+        protected int size() {
+            return size;
+        }
+
+        protected boolean isOverflowing() {
+            return size > capacity;
+        }
+    }
+
+    private final int mainCapacity;
+    private final Segment<K, V> probation;
+    private final Segment<K, V> protectedSegment;
+
+    public SegmentedLruCache(final int maximumSize) {
+        this(maximumSize, maximumSize);
+    }
+
+    /**
+     * @param mainCapacity the number of entries the two segments hold
+     *        together, subclasses may keep the remainder elsewhere
+     */
+    protected SegmentedLruCache(final int maximumSize, final int mainCapacity) {
+        super(maximumSize);
+        this.mainCapacity = mainCapacity;
+        probation = new Segment<>(mainCapacity);
+        protectedSegment = new Segment<>((int) (mainCapacity * PROTECTED_FRACTION));
+    }
+
+    protected Node<K, V> createEntry(final K key, final V value) {
+        return new Node<>(key, value);
+    }
+
+    protected void recordAccess(final Node<K, V> node) {
+        if (node.segment == protectedSegment) {
+            protectedSegment.moveToLast(node);
+            return;
+        }
+        probation.remove(node);
+        protectedSegment.addLast(node);
+        if (protectedSegment.isOverflowing()) {
+            final var demoted = protectedSegment.first();
+            protectedSegment.remove(demoted);
+            probation.addLast(demoted);
+        }
+    }
+
+    protected void admit(final Node<K, V> node) {
+        probation.addLast(node);
+        if (size() > getMaximumSize()) {
+            evict(getVictim());
+        }
+    }
+
+    protected void unlink(final Node<K, V> node) {
+        node.segment.remove(node);
+    }
+
+    protected void unlinkAll() {
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    /**
+     * @return the entry the main segments would evict next, or null if they
+     *         are empty
+     */
+    protected Node<K, V> getVictim() {
+        final var retval = probation.first();
+        return retval != null ? retval : protectedSegment.first();
+    }
+
+    /**
+     * Add a node to the probationary segment without evicting.
+     */
+    protected void addToProbation(final Node<K, V> node) {
+        probation.addLast(node);
+    }
+
+    protected int getMainSize() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    protected int getMainCapacity() {
+        return mainCapacity;
+    }
+
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A thread-safe map that partitions its entries among several
+ * {@link HashMap}s, each guarded by its own monitor. Threads operating on
+ * keys in different stripes do not contend with each other.
+ *
+ * <p>Operations that span stripes, such as {@link #size()} and iteration,
+ * lock one stripe at a time and are therefore only weakly consistent.
+ * Iterators operate on a per-stripe snapshot.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class StripedLockMap<K, V> extends AbstractMap<K, V> {
+
+    private final HashMap<K, V>[] stripes;
+    private final int shift;
+
+    private Set<Entry<K, V>> entrySet;
+
+    public StripedLockMap() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param expectedSize the number of entries the map should hold without resizing
+     * @param loadFactor the load factor of each stripe
+     */
+    public StripedLockMap(final int expectedSize, final float loadFactor) {
+        this(4 * Runtime.getRuntime().availableProcessors(), expectedSize, loadFactor);
+    }
+
+    public StripedLockMap(final int minimumStripes) {
+        this(minimumStripes, 0, 0.75f);
+    }
+
+    /**
+     * @param minimumStripes the minimum number of independently locked
+     *        partitions, this will be rounded up to a power of two
+     * @param expectedSize the number of entries the map should hold without resizing
+     * @param loadFactor the load factor of each stripe
+     */
+    @SuppressWarnings("unchecked")
+    public StripedLockMap(final int minimumStripes, final int expectedSize, final float loadFactor) {
+        if (minimumStripes < 1 || minimumStripes > 1 << 16) {
+            throw new IllegalArgumentException("minimumStripes must be between 1 and 65536");
+        }
+        final var bits = 32 - Integer.numberOfLeadingZeros(minimumStripes - 1);
+        stripes = (HashMap<K, V>[]) new HashMap<?, ?>[1 << bits];
+        // select stripes by the high bits of the hash so that the entries
+        // within a stripe still spread across the HashMap's buckets, which
+        // are selected by the low bits
+        shift = 32 - bits;
+        // the keys will not be spread perfectly evenly, so leave room for
+        // four standard deviations above the mean in each stripe
+        final double mean = expectedSize / (double) stripes.length;
+        final int stripeSize = (int) Math.ceil(mean + 4 * Math.sqrt(mean));
+        final int initialCapacity = Math.max(16, JdkHashTables.initialCapacity(stripeSize, loadFactor));
+        for (int i = stripes.length; --i >= 0;) {
+            stripes[i] = new HashMap<>(initialCapacity, loadFactor);
+        }
+    }
+
+    public V get(final Object key) {
+        final var stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    public boolean containsKey(final Object key) {
+        final var stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.containsKey(key);
+        }
+    }
+
+    public V put(final K key, final V value) {
+        final var stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.put(key, value);
+        }
+    }
+
+    public V remove(final Object key) {
+        final var stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.remove(key);
+        }
+    }
+
+    public int size() {
+        long retval = 0;
+        for (final var stripe : stripes) {
+            synchronized (stripe) {
+                retval += stripe.size();
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, retval);
+    }
+
+    public void clear() {
+        for (final var stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        for (final var stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach(action);
+            }
+        }
+    }
+
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                public int size() {
+                    return StripedLockMap.this.size();
+                }
+
+                public void clear() {
+                    StripedLockMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * @return the maps holding each stripe's entries, for diagnostics
+     */
+    protected HashMap<K, V>[] getStripes() {
+        return stripes;
+    }
+
+    protected HashMap<K, V> stripeFor(final Object key) {
+        final int hash = key == null ? 0 : key.hashCode();
+        // with a single stripe the shift is 32, which Java treats as 0, so
+        // the mask is needed to select it
+        return stripes[(((hash ^ (hash >>> 16)) * 0x9e3779b9) >>> shift) & (stripes.length - 1)];
+    }
+
+    /**
+     * Iterates over a snapshot of one stripe at a time. Removal and value
+     * updates are written through to the map.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private int nextStripe = 0;
+        private Iterator<Entry<K, V>> current = Collections.emptyIterator();
+        private Entry<K, V> lastReturned;
+
+        public boolean hasNext() {
+            while (!current.hasNext() && nextStripe < stripes.length) {
+                final var stripe = stripes[nextStripe++];
+                final ArrayList<Entry<K, V>> snapshot;
+                synchronized (stripe) {
+                    snapshot = new ArrayList<>(stripe.size());
+                    for (final var entry : stripe.entrySet()) {
+                        snapshot.add(new SimpleEntry<>(entry) {
+                            private static final long serialVersionUID = 1l;
+
+                            public V setValue(final V value) {
+                                put(getKey(), value);
+                                return super.setValue(value);
+                            }
+                        });
+                    }
+                }
+                current = snapshot.iterator();
+            }
+            return current.hasNext();
+        }
+
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return lastReturned = current.next();
+        }
+
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            StripedLockMap.this.remove(lastReturned.getKey());
+            lastReturned = null;
+        }
+    }
+
+}
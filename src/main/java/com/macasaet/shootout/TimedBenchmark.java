@@ -0,0 +1,190 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.junit.jupiter.api.DynamicTest;
+
+/**
+ * A performance test that can be converted to a {@link DynamicTest}. The
+ * test invocation is timed and its heap allocation, retained heap, and
+ * native memory consumption are measured, as are the garbage collections
+ * that overlapped it.
+ *
+ * <p>When the system property "shootout.latencyBatchSize" is positive,
+ * tests that support it also record how long each batch of that many
+ * operations takes and the distribution is reported alongside the total.
+ * Reading the clock adds overhead to the total elapsed time, so latency
+ * and throughput should be measured in separate runs.</p>
+ */
+public abstract class TimedBenchmark {
+
+    private final String keyLabel;
+    private final String testLabel;
+    private final int latencyBatchSize = Integer.getInteger("shootout.latencyBatchSize", 0);
+    private final LatencyHistogram latencyHistogram = latencyBatchSize > 0 ? new LatencyHistogram() : null;
+
+    protected TimedBenchmark(final String keyLabel, final String testLabel) {
+        Objects.requireNonNull(keyLabel);
+        Objects.requireNonNull(testLabel);
+        this.keyLabel = keyLabel;
+        this.testLabel = testLabel;
+    }
+
+    public DynamicTest asDynamicTest() {
+        return dynamicTest(getTestLabel(), this::execute);
+    }
+
+    /**
+     * Perform any test setup. If you allocate resources, be sure to release
+     * them in {@link #destroy()}.
+     *
+     * @see #destroy()
+     */
+    protected abstract void init();
+
+    /**
+     * Prepares the test, runs the test, then cleans up resources. The test
+     * invocation is timed and the bytes it allocates are counted. The heap
+     * is measured after a full garbage collection before and after the test
+     * to determine how much memory the test retains. Finally, the results
+     * are handed to the {@link ResultSink}.
+     *
+     * @throws IOException 
+     * @throws InterruptedException if interrupted while waiting for garbage collection
+     */
+    protected void execute() throws IOException, InterruptedException {
+        init();
+
+        // collecting garbage also reduces, but does not eliminate, the
+        // likelihood that garbage collection affects test performance
+        final var startRetainedMemory = MemoryProbe.getRetainedHeapBytes();
+        final var startNativeMemory = MemoryProbe.getNativeMemoryUsed();
+        final var startAllocatedMemory = MemoryProbe.getAllocatedBytes();
+        final var gc = GcProbe.start();
+        final var startNanos = System.nanoTime();
+        runBenchmark();
+        final var endNanos = System.nanoTime();
+        gc.end();
+        final var endAllocatedMemory = MemoryProbe.getAllocatedBytes();
+        final var endNativeMemory = MemoryProbe.getNativeMemoryUsed();
+        final var endRetainedMemory = MemoryProbe.getRetainedHeapBytes();
+
+        // release memory references to improve the likelihood that GC will
+        // happen before the next benchmark
+        destroy();
+
+        final var elapsedNanos = endNanos - startNanos;
+
+        final var result = new BenchmarkResult(keyLabel, testLabel, getImplementationName(), getKeyCount())
+                .put("timeNanos", elapsedNanos)
+                .put("allocatedBytes", difference(startAllocatedMemory, endAllocatedMemory))
+                .put("retainedBytes", difference(startRetainedMemory, endRetainedMemory))
+                .put("nativeMemory", difference(startNativeMemory, endNativeMemory))
+                .put("p50Nanos", valueAtPercentile(50))
+                .put("p90Nanos", valueAtPercentile(90))
+                .put("p99Nanos", valueAtPercentile(99))
+                .put("p999Nanos", valueAtPercentile(99.9))
+                .put("maxNanos", valueAtPercentile(100));
+        gc.addMetrics(result);
+        addMetrics(result, elapsedNanos);
+        getResultSink().accept(result);
+    }
+
+    /**
+     * Add any test-specific metrics after the common ones. They are
+     * appended to the row in the order they are added.
+     *
+     * @param result the result of the test
+     * @param elapsedNanos the time taken by {@link #runBenchmark()}
+     */
+    protected void addMetrics(final BenchmarkResult result, final long elapsedNanos) {
+    }
+
+    /**
+     * @return the difference between two measurements or null if either
+     *         measurement is unavailable
+     */
+    protected Long difference(final long start, final long end) {
+        return start < 0 || end < 0 ? null : end - start;
+    }
+
+    /**
+     * @return the latency at the given percentile or null if latency was
+     *         not recorded
+     */
+    protected Long valueAtPercentile(final double percentile) {
+        final var histogram = getLatencyHistogram();
+        return histogram == null || histogram.getTotalCount() == 0
+                ? null
+                : histogram.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Release memory to reduce the likelihood that garbage collection
+     * interferes with the next test. If your test allocates additional
+     * resources via the {@link #init()} method, then release them here.
+     *
+     * @see #init()
+     */
+    protected abstract void destroy();
+
+    /**
+     * Perform the actual test. This method will automatically be timed and
+     * memory consumption before and after will be measured.
+     */
+    protected abstract void runBenchmark();
+
+    /**
+     * @return the number of operations to time together, only meaningful
+     *         if {@link #getLatencyHistogram()} is not null
+     */
+    protected int getLatencyBatchSize() {
+        return latencyBatchSize;
+    }
+
+    /**
+     * @return the histogram into which tests record the time taken by each
+     *         batch of operations or null if latency recording is disabled
+     */
+    protected LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    protected String getKeyLabel() {
+        return keyLabel;
+    }
+
+    protected String getTestLabel() {
+        return testLabel;
+    }
+
+    /**
+     * @return the name of the data structure under test
+     */
+    protected abstract String getImplementationName();
+
+    /**
+     * @return the number of keys the test operates on
+     */
+    protected abstract int getKeyCount();
+
+    protected abstract ResultSink getResultSink();
+}
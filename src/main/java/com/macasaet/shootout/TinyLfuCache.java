@@ -0,0 +1,165 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.Arrays;
+
+/**
+ * W-TinyLFU as described by Einziger, Friedman, and Manes in "TinyLFU: A
+ * Highly Efficient Cache Admission Policy" (ACM Transactions on Storage,
+ * 2017). New entries enter a small LRU window, 1% of the cache. An entry
+ * pushed out of the window only displaces the segmented LRU's victim if
+ * its key has been read more often, according to a compact frequency
+ * sketch, so a burst of one-off keys cannot flush the popular ones.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class TinyLfuCache<K, V> extends SegmentedLruCache<K, V> {
+
+    /**
+     * A count-min sketch of 4-bit counters, 16 to a <code>long</code>,
+     * that estimates how often each key was read. All counters are halved
+     * periodically so that the estimates favour recent popularity.
+     */
+    protected static final class FrequencySketch {
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127l, 0xb492b66fbe98f273l, 0x9ae16a3b2f90404fl,
+                0xcbf29ce484222325l };
+        private static final long RESET_MASK = 0x7777777777777777l;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        /**
+         * @param maximumSize the number of keys to track, which determines
+         *        the width of the sketch and how often it ages
+         */
+        protected FrequencySketch(final int maximumSize) {
+            table = new long[Integer.highestOneBit(Math.max(1, maximumSize - 1)) << 1];
+            sampleSize = 10 * maximumSize;
+        }
+
+        /**
+         * @return the estimated number of recent reads, at most 15
+         */
+        protected int frequency(final Object key) {
+            final int hash = key.hashCode();
+            int retval = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                final long h = mix(hash, i);
+                retval = Math.min(retval, (int) (table[index(h)] >>> shift(h)) & 0xf);
+            }
+            return retval;
+        }
+
+        protected void increment(final Object key) {
+            final int hash = key.hashCode();
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                final long h = mix(hash, i);
+                final int index = index(h);
+                final int shift = shift(h);
+                if (((table[index] >>> shift) & 0xf) < 15) {
+                    table[index] += 1l << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                age();
+            }
+        }
+
+        protected void age() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+
+        protected void clear() {
+            Arrays.fill(table, 0l);
+            additions = 0;
+        }
+
+        private static long mix(final int hash, final int row) {
+            final long h = (hash + SEEDS[row]) * SEEDS[row];
+            return h ^ (h >>> 29);
+        }
+
+        private int index(final long h) {
+            return (int) h & (table.length - 1);
+        }
+
+        private static int shift(final long h) {
+            return (int) (h >>> 60) << 2;
+        }
+    }
+
+    private final Segment<K, V> window;
+    private final FrequencySketch sketch;
+
+    public TinyLfuCache(final int maximumSize) {
+        super(maximumSize, maximumSize - windowCapacity(maximumSize));
+        window = new Segment<>(windowCapacity(maximumSize));
+        sketch = new FrequencySketch(maximumSize);
+    }
+
+    protected static int windowCapacity(final int maximumSize) {
+        return Math.max(1, maximumSize / 100);
+    }
+
+    protected void recordMiss(final Object key) {
+        sketch.increment(key);
+    }
+
+    protected void recordAccess(final Node<K, V> node) {
+        sketch.increment(node.getKey());
+        if (node.getSegment() == window) {
+            window.moveToLast(node);
+        } else {
+            super.recordAccess(node);
+        }
+    }
+
+    protected void admit(final Node<K, V> node) {
+        window.addLast(node);
+        if (!window.isOverflowing()) {
+            return;
+        }
+        final var candidate = window.first();
+        if (getMainSize() < getMainCapacity()) {
+            window.remove(candidate);
+            addToProbation(candidate);
+            return;
+        }
+        final var victim = getVictim();
+        if (victim != null && sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+            evict(victim);
+            window.remove(candidate);
+            addToProbation(candidate);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    protected void unlinkAll() {
+        super.unlinkAll();
+        window.clear();
+        sketch.clear();
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * Writes each result as a row of tab-separated values with no header: the
+ * key type, test, implementation, and number of keys followed by the
+ * metrics in order. Unavailable metrics are written as "NA". This is the
+ * format <code>analysis.R</code> reads.
+ */
+public class TsvResultSink implements ResultSink {
+
+    private final Writer writer;
+    private final boolean autoFlush;
+
+    public TsvResultSink(final Writer writer) {
+        this(writer, false);
+    }
+
+    /**
+     * @param autoFlush whether to flush after every row, e.g. for console output
+     */
+    public TsvResultSink(final Writer writer, final boolean autoFlush) {
+        Objects.requireNonNull(writer);
+        this.writer = writer;
+        this.autoFlush = autoFlush;
+    }
+
+    public void accept(final BenchmarkResult result) throws IOException {
+        final var row = new StringBuilder(128);
+        row.append(result.getKeyLabel())
+            .append('\t').append(result.getTestLabel())
+            .append('\t').append(result.getImplementation())
+            .append('\t').append(result.getKeyCount());
+        for (final var value : result.getMetrics().values()) {
+            row.append('\t').append(value == null ? "NA" : value);
+        }
+        row.append(System.lineSeparator());
+        writer.write(row.toString());
+        if (autoFlush) {
+            writer.flush();
+        }
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    public void close() throws IOException {
+        writer.close();
+    }
+
+}
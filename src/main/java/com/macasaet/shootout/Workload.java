@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+/**
+ * The operation mixes of the YCSB core workloads.
+ *
+ * @see https://github.com/brianfrankcooper/YCSB/wiki/Core-Workloads
+ */
+public enum Workload {
+    /**
+     * Update heavy: 50% reads, 50% updates
+     */
+    A(50, 50, 0, 0, 0),
+    /**
+     * Read mostly: 95% reads, 5% updates
+     */
+    B(95, 5, 0, 0, 0),
+    /**
+     * Read only
+     */
+    C(100, 0, 0, 0, 0),
+    /**
+     * Read latest: 95% reads, 5% inserts, reads favour recent inserts
+     */
+    D(95, 0, 5, 0, 0),
+    /**
+     * Short ranges: 95% scans, 5% inserts
+     */
+    E(0, 0, 5, 95, 0),
+    /**
+     * Read-modify-write: 50% reads, 50% read-modify-writes
+     */
+    F(50, 0, 0, 0, 50);
+
+    /**
+     * The skew YCSB uses for its zipfian distributions
+     */
+    public static final double DEFAULT_THETA = 0.99;
+    /**
+     * The longest scan, scan lengths are uniformly distributed
+     */
+    public static final int MAX_SCAN_LENGTH = 100;
+
+    private final int readPercentage;
+    private final int updatePercentage;
+    private final int insertPercentage;
+    private final int scanPercentage;
+    private final int readModifyWritePercentage;
+
+    Workload(final int readPercentage, final int updatePercentage, final int insertPercentage,
+            final int scanPercentage, final int readModifyWritePercentage) {
+        this.readPercentage = readPercentage;
+        this.updatePercentage = updatePercentage;
+        this.insertPercentage = insertPercentage;
+        this.scanPercentage = scanPercentage;
+        this.readModifyWritePercentage = readModifyWritePercentage;
+    }
+
+    /**
+     * @param theta the skew, in (0, 1)
+     * @return the kind of request distribution YCSB uses for this workload
+     */
+    public KeyDistribution createDefaultDistribution(final double theta) {
+        return this == D ? KeyDistribution.latest(theta) : KeyDistribution.zipfian(theta);
+    }
+
+    public int getReadPercentage() {
+        return readPercentage;
+    }
+
+    public int getUpdatePercentage() {
+        return updatePercentage;
+    }
+
+    public int getInsertPercentage() {
+        return insertPercentage;
+    }
+
+    public int getScanPercentage() {
+        return scanPercentage;
+    }
+
+    public int getReadModifyWritePercentage() {
+        return readModifyWritePercentage;
+    }
+
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * A mixed-operation test in the style of the YCSB core workloads. The map
+ * is preloaded with the records, then a pre-generated stream of reads,
+ * updates, inserts, scans, and read-modify-writes is replayed against it.
+ * Generating the stream up front keeps sampling the key distribution out
+ * of the timed region, and sharing one {@link Trace} among implementations
+ * means that they all serve the same requests.
+ *
+ * <p>Scans iterate a {@link NavigableMap} from the selected key. Other maps
+ * have no order to scan in, so a scan reads the following records in
+ * insertion order instead.</p>
+ *
+ * @param <K> the Map's key type
+ */
+public abstract class WorkloadBenchmark<K> extends MapBenchmark<K> {
+
+    protected static final byte READ = 0;
+    protected static final byte UPDATE = 1;
+    protected static final byte INSERT = 2;
+    protected static final byte SCAN = 3;
+    protected static final byte READ_MODIFY_WRITE = 4;
+
+    /**
+     * A pre-generated stream of operations. It is read-only, so one trace
+     * can be replayed against every implementation.
+     */
+    public static final class Trace {
+
+        private final Workload workload;
+        private final int recordCount;
+        private final byte[] operations;
+        private final int[] keyIndices;
+        private final int[] scanLengths;
+        private final int itemCount;
+
+        /**
+         * @param recordCount the number of records preloaded into the map
+         * @param random the source of randomness for the operation stream
+         */
+        public Trace(final Workload workload, final KeyDistribution distribution, final int recordCount,
+                final int operationCount, final SplittableRandom random) {
+            Objects.requireNonNull(workload);
+            Objects.requireNonNull(distribution);
+            Objects.requireNonNull(random);
+            if (recordCount < 1) {
+                throw new IllegalArgumentException("at least one record is required");
+            }
+            this.workload = workload;
+            this.recordCount = recordCount;
+            operations = new byte[operationCount];
+            keyIndices = new int[operationCount];
+            scanLengths = workload.getScanPercentage() > 0 ? new int[operationCount] : null;
+            int itemCount = recordCount;
+            for (int i = 0; i < operationCount; i++) {
+                final byte operation = nextOperation(random);
+                operations[i] = operation;
+                if (operation == INSERT) {
+                    keyIndices[i] = itemCount++;
+                } else {
+                    keyIndices[i] = distribution.nextIndex(random, itemCount);
+                    if (operation == SCAN) {
+                        scanLengths[i] = 1 + random.nextInt(Workload.MAX_SCAN_LENGTH);
+                    }
+                }
+            }
+            this.itemCount = itemCount;
+        }
+
+        protected byte nextOperation(final SplittableRandom random) {
+            int choice = random.nextInt(100);
+            if ((choice -= workload.getReadPercentage()) < 0) {
+                return READ;
+            } else if ((choice -= workload.getUpdatePercentage()) < 0) {
+                return UPDATE;
+            } else if ((choice -= workload.getInsertPercentage()) < 0) {
+                return INSERT;
+            } else if ((choice -= workload.getScanPercentage()) < 0) {
+                return SCAN;
+            }
+            return READ_MODIFY_WRITE;
+        }
+
+        protected int getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * @return the number of records plus the number of inserts
+         */
+        protected int getItemCount() {
+            return itemCount;
+        }
+
+    }
+
+    private final List<K> insertKeys;
+    private final Trace trace;
+
+    private List<K> keySpace;
+    private long checksum;
+
+    /**
+     * @param keys the records with which to preload the map
+     * @param insertKeys keys absent from <code>keys</code> to use for inserts,
+     *        there must be at least as many as the trace inserts
+     * @param trace the operations to replay, generated for this many records
+     */
+    protected WorkloadBenchmark(final MapSupplier implementation, final Supplier<Map<K, Long>> mapSupplier,
+            final String keyLabel, final String testLabel, final Collection<K> keys, final List<K> insertKeys,
+            final Trace trace) {
+        super(implementation, mapSupplier, keyLabel, testLabel, keys);
+        Objects.requireNonNull(insertKeys);
+        Objects.requireNonNull(trace);
+        if (trace.getRecordCount() != keys.size()) {
+            throw new IllegalArgumentException("the trace was generated for a different number of records");
+        }
+        if (insertKeys.size() < trace.getItemCount() - keys.size()) {
+            throw new IllegalArgumentException("insufficient insert keys");
+        }
+        this.insertKeys = insertKeys;
+        this.trace = trace;
+    }
+
+    protected void init() {
+        super.init();
+        getKeys().forEach(key -> getMap().put(key, 1l));
+
+        keySpace = new ArrayList<>(trace.getItemCount());
+        keySpace.addAll(getKeys());
+        keySpace.addAll(insertKeys.subList(0, trace.getItemCount() - getKeyCount()));
+    }
+
+    protected void destroy() {
+        keySpace = null;
+        super.destroy();
+    }
+
+    protected void benchmark(final Map<K, Long> map) {
+        final var keySpace = this.keySpace;
+        final var operations = trace.operations;
+        final var keyIndices = trace.keyIndices;
+        final var scanLengths = trace.scanLengths;
+        final var navigableMap = map instanceof NavigableMap ? (NavigableMap<K, Long>) map : null;
+        int itemCount = getKeyCount();
+        long checksum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            final var key = keySpace.get(keyIndices[i]);
+            switch (operations[i]) {
+            case READ:
+                checksum += valueOf(map.get(key));
+                break;
+            case UPDATE:
+                map.put(key, 1l);
+                break;
+            case INSERT:
+                map.put(key, 1l);
+                itemCount++;
+                break;
+            case SCAN:
+                if (navigableMap != null) {
+                    final var values = navigableMap.tailMap(key, true).values().iterator();
+                    for (int j = scanLengths[i]; --j >= 0 && values.hasNext();) {
+                        checksum += values.next();
+                    }
+                } else {
+                    final int end = Math.min(itemCount, keyIndices[i] + scanLengths[i]);
+                    for (int j = keyIndices[i]; j < end; j++) {
+                        checksum += valueOf(map.get(keySpace.get(j)));
+                    }
+                }
+                break;
+            case READ_MODIFY_WRITE:
+                map.put(key, valueOf(map.get(key)) + 1);
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation: " + operations[i]);
+            }
+        }
+        // publish the result so the reads cannot be optimised away
+        this.checksum = checksum;
+    }
+
+    protected long getChecksum() {
+        return checksum;
+    }
+
+    private static long valueOf(final Long value) {
+        return value == null ? 0l : value;
+    }
+
+}
@@ -0,0 +1,330 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Drives thread-safe {@link Map} implementations from thousands of virtual
+ * threads. Each virtual thread repeatedly serves a request of mixed map
+ * operations and then blocks briefly, as if waiting on I/O, so the
+ * scheduler has to multiplex the threads over a handful of carrier
+ * threads. Maps that block while holding a monitor, such as
+ * {@link java.util.Collections#synchronizedMap(Map)}, pin the carrier for
+ * the duration; those guarded by a
+ * {@link java.util.concurrent.locks.Lock} or that are lock-free do not.
+ *
+ * <p>The virtual thread counts are taken from the comma-separated system
+ * property "shootout.virtualThreads", each test runs for
+ * "shootout.durationMillis" milliseconds, and the results are written to
+ * <code>virtual-thread-data.tsv</code> and
+ * <code>virtual-thread-data.jsonl</code>. This class requires Java 21 and
+ * is only compiled by the <code>virtual-threads</code> profile.</p>
+ */
+public class VirtualThreadShootout {
+
+    private final KeyGenerator keyGenerator = new KeyGenerator();
+    private final List<ConcurrentMapSupplier> mapSuppliers;
+    private final ResultSink resultSink;
+
+    /**
+     * @param mapSuppliers the thread-safe {@link Map} implementations to benchmark
+     * @param resultSink where to write the results
+     */
+    public VirtualThreadShootout(final List<ConcurrentMapSupplier> mapSuppliers, final ResultSink resultSink) {
+        Objects.requireNonNull(mapSuppliers);
+        Objects.requireNonNull(resultSink);
+        this.mapSuppliers = mapSuppliers;
+        this.resultSink = resultSink;
+    }
+
+    public static void main(final String... arguments) throws IOException, InterruptedException {
+        final var tsv = new TsvResultSink(new FileWriter(System.getProperty("shootout.output", "virtual-thread-data.tsv"), UTF_8));
+        final var jsonLines = new JsonLinesResultSink(
+                new FileWriter(System.getProperty("shootout.jsonOutput", "virtual-thread-data.jsonl"), UTF_8),
+                RunMetadata.capture());
+        try (var sink = new CompositeResultSink(tsv, jsonLines)) {
+            new VirtualThreadShootout(List.of(ConcurrentHashTables.SYNCHRONIZED_HASH_MAP,
+                    ConcurrentHashTables.LOCK_GUARDED_HASH_MAP,
+                    ConcurrentHashTables.STRIPED_LOCK_HASH_MAP,
+                    ConcurrentHashTables.CONCURRENT_HASH_MAP,
+                    ConcurrentSearchTrees.CONCURRENT_SKIP_LIST_MAP), sink).run();
+        }
+    }
+
+    /**
+     * Runs every mix against every implementation at every virtual thread
+     * count.
+     *
+     * @throws IOException if the results cannot be written
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void run() throws IOException, InterruptedException {
+        final int size = 1_000_000;
+        final var keys = keyGenerator.generateIntegerKeys(Long.MIN_VALUE, size);
+        final var missKeys = keyGenerator.generateIntegerKeys(Long.MIN_VALUE, size);
+        for (final var implementation : getMapSuppliers()) {
+            for (final var threads : getThreadCounts()) {
+                new VirtualThreadMix<>(implementation, implementation::createLongMap, "int64", "readMostly",
+                        keys, missKeys, threads, 5, 0).execute();
+                new VirtualThreadMix<>(implementation, implementation::createLongMap, "int64", "balanced",
+                        keys, missKeys, threads, 50, 0).execute();
+                new VirtualThreadMix<>(implementation, implementation::createLongMap, "int64", "readThrough",
+                        keys, missKeys, threads, 9, 1).execute();
+            }
+        }
+    }
+
+    /**
+     * @return the virtual thread counts to sweep, 1,000 and 10,000 by default
+     */
+    protected int[] getThreadCounts() {
+        return Arrays.stream(System.getProperty("shootout.virtualThreads", "1000,10000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    protected long getDurationMillis() {
+        return Long.getLong("shootout.durationMillis", 2_000l);
+    }
+
+    /**
+     * @return how long each virtual thread blocks between requests
+     */
+    protected long getThinkNanos() {
+        return Long.getLong("shootout.thinkMicros", 100l) * 1_000l;
+    }
+
+    /**
+     * @return how long a read-through load blocks, while the map computes
+     *         the missing value
+     */
+    protected long getLoadNanos() {
+        return Long.getLong("shootout.loadMicros", 100l) * 1_000l;
+    }
+
+    /**
+     * Each virtual thread serves requests of {@link #REQUEST_SIZE} reads,
+     * writes, and read-through loads drawn from a shared pre-generated
+     * stream, then parks for the think time. A write replaces the value of
+     * an existing key. A load calls
+     * {@link Map#computeIfAbsent(Object, Function)} for an absent key with
+     * a function that parks for the load time, then removes the key again,
+     * so the map's size stays constant.
+     *
+     * <p>In addition to the throughput, the latency of each request
+     * (excluding the think time) and the number and total duration of
+     * <code>jdk.VirtualThreadPinned</code> events, i.e. virtual threads
+     * that parked without releasing their carrier, are reported.</p>
+     */
+    protected class VirtualThreadMix<K> extends ConcurrentMapBenchmark<K> {
+
+        private static final int STREAM_COUNT = 16;
+        private static final int STREAM_LENGTH = 1 << 16;
+        private static final int REQUEST_SIZE = 16;
+        private static final int READ = 0;
+        private static final int WRITE = 1;
+        private static final int LOAD = 2;
+
+        private final List<K> missKeys;
+        private final int writePercentage;
+        private final int loadPercentage;
+
+        private int[][] streams;
+        private LatencyHistogram[] histograms;
+        private ReentrantLock[] histogramLocks;
+        private Recording recording;
+        private long pinnedEvents;
+        private long pinnedNanos;
+
+        /**
+         * @param missKeys keys that are not in the map, for the loads
+         * @param writePercentage the percentage of operations that are writes
+         * @param loadPercentage the percentage of operations that are
+         *        read-through loads, the remainder are reads
+         */
+        public VirtualThreadMix(final ConcurrentMapSupplier implementation, final Supplier<Map<K, Long>> mapSupplier,
+                final String keyLabel, final String testLabel, final List<K> keys, final List<K> missKeys,
+                final int threads, final int writePercentage, final int loadPercentage) {
+            super(implementation, mapSupplier, keyLabel, testLabel, keys, threads, VirtualThreadShootout.this.getDurationMillis());
+            Objects.requireNonNull(missKeys);
+            if (writePercentage < 0 || loadPercentage < 0 || writePercentage + loadPercentage > 100) {
+                throw new IllegalArgumentException("writePercentage and loadPercentage must not exceed 100 in total");
+            }
+            this.missKeys = missKeys;
+            this.writePercentage = writePercentage;
+            this.loadPercentage = loadPercentage;
+        }
+
+        protected void init() {
+            super.init();
+            final var random = keyGenerator.split();
+            final var numKeys = getKeys().size();
+            final var numMissKeys = missKeys.size();
+            // thousands of threads cannot each have their own stream, so
+            // they share a few, starting at different offsets
+            streams = new int[STREAM_COUNT][STREAM_LENGTH];
+            for (final var stream : streams) {
+                for (int i = stream.length; --i >= 0;) {
+                    final int roll = random.nextInt(100);
+                    if (roll < loadPercentage) {
+                        stream[i] = random.nextInt(numMissKeys) << 2 | LOAD;
+                    } else if (roll < loadPercentage + writePercentage) {
+                        stream[i] = random.nextInt(numKeys) << 2 | WRITE;
+                    } else {
+                        stream[i] = random.nextInt(numKeys) << 2 | READ;
+                    }
+                }
+            }
+            // nor their own histograms, so they share one per stripe
+            final var stripes = 4 * Runtime.getRuntime().availableProcessors();
+            histograms = new LatencyHistogram[stripes];
+            histogramLocks = new ReentrantLock[stripes];
+            for (int i = stripes; --i >= 0;) {
+                histograms[i] = new LatencyHistogram();
+                histogramLocks[i] = new ReentrantLock();
+            }
+            pinnedEvents = 0;
+            pinnedNanos = 0;
+            recording = new Recording();
+            // the default threshold of 20 ms would hide short pins
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.start();
+        }
+
+        protected void destroy() {
+            recording.stop();
+            try {
+                final var file = Files.createTempFile("virtual-thread-pinning", ".jfr");
+                try {
+                    recording.dump(file);
+                    for (final var event : RecordingFile.readAllEvents(file)) {
+                        if ("jdk.VirtualThreadPinned".equals(event.getEventType().getName())) {
+                            pinnedEvents++;
+                            pinnedNanos += event.getDuration().toNanos();
+                        }
+                    }
+                } finally {
+                    Files.deleteIfExists(file);
+                }
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            } finally {
+                recording.close();
+                recording = null;
+            }
+            streams = null;
+            super.destroy();
+        }
+
+        protected Thread createWorker(final Runnable task, final String name) {
+            return Thread.ofVirtual().name(name).unstarted(task);
+        }
+
+        protected long work(final Map<K, Long> map, final int threadIndex) {
+            final var keys = getKeys();
+            final var stream = streams[threadIndex % STREAM_COUNT];
+            final var stripe = threadIndex % histograms.length;
+            final var thinkNanos = getThinkNanos();
+            final var loadNanos = getLoadNanos();
+            final Function<K, Long> loader = key -> {
+                LockSupport.parkNanos(loadNanos);
+                return 1l;
+            };
+            long operations = 0;
+            int cursor = (threadIndex / STREAM_COUNT * 4_099) & (STREAM_LENGTH - 1);
+            while (isRunning()) {
+                final var start = System.nanoTime();
+                for (int i = REQUEST_SIZE; --i >= 0;) {
+                    final int operation = stream[cursor];
+                    final int keyIndex = operation >>> 2;
+                    switch (operation & 3) {
+                    case WRITE:
+                        map.put(keys.get(keyIndex), 1l);
+                        break;
+                    case LOAD: {
+                        final var missKey = missKeys.get(keyIndex);
+                        map.computeIfAbsent(missKey, loader);
+                        map.remove(missKey);
+                        break;
+                    }
+                    default:
+                        map.get(keys.get(keyIndex));
+                    }
+                    cursor = (cursor + 1) & (STREAM_LENGTH - 1);
+                }
+                final var latency = System.nanoTime() - start;
+                operations += REQUEST_SIZE;
+                final var lock = histogramLocks[stripe];
+                lock.lock();
+                try {
+                    histograms[stripe].record(latency);
+                } finally {
+                    lock.unlock();
+                }
+                LockSupport.parkNanos(thinkNanos);
+            }
+            return operations;
+        }
+
+        protected void addMetrics(final BenchmarkResult result, final long elapsedNanos) {
+            final var histogram = new LatencyHistogram();
+            for (final var stripe : histograms) {
+                histogram.add(stripe);
+            }
+            histograms = null;
+            histogramLocks = null;
+            final var recorded = histogram.getTotalCount() > 0;
+            result.put("p50Nanos", recorded ? histogram.getValueAtPercentile(50) : null)
+                    .put("p99Nanos", recorded ? histogram.getValueAtPercentile(99) : null)
+                    .put("p999Nanos", recorded ? histogram.getValueAtPercentile(99.9) : null)
+                    .put("maxNanos", recorded ? histogram.getMax() : null)
+                    .put("pinnedEvents", pinnedEvents)
+                    .put("pinnedNanos", pinnedNanos);
+        }
+
+        protected ResultSink getResultSink() {
+            return VirtualThreadShootout.this.getResultSink();
+        }
+    }
+
+    protected List<ConcurrentMapSupplier> getMapSuppliers() {
+        return mapSuppliers;
+    }
+
+    protected ResultSink getResultSink() {
+        return resultSink;
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class BoundedCacheTest {
+
+    private static final int[] MAXIMUM_SIZES = { 1, 2, 10, 100, 1_000 };
+
+    @ParameterizedTest
+    @EnumSource(BoundedCaches.class)
+    void holdsOnlyTheLatestValuesWithinItsBound(final BoundedCaches supplier) {
+        for (final int maximumSize : MAXIMUM_SIZES) {
+            final var random = new SplittableRandom(maximumSize);
+            final Map<Long, Long> cache = supplier.createCache(maximumSize);
+            // what the cache would hold if it were unbounded
+            final var unbounded = new HashMap<Long, Long>();
+            final long keySpace = maximumSize * 3l;
+            for (int i = 0; i < 50_000; i++) {
+                final long key = random.nextLong(keySpace);
+                final int operation = random.nextInt(10);
+                if (operation < 4) {
+                    final long value = random.nextLong();
+                    final var previous = cache.put(key, value);
+                    if (previous != null) {
+                        assertEquals(unbounded.get(key), previous, () -> "put " + key);
+                    }
+                    unbounded.put(key, value);
+                    if (supplier != BoundedCaches.TINY_LFU_CACHE) {
+                        // only TinyLFU may turn away a new entry
+                        assertEquals(value, cache.get(key), () -> "just put " + key);
+                    }
+                } else if (operation < 8) {
+                    final var value = cache.get(key);
+                    if (value != null) {
+                        assertEquals(unbounded.get(key), value, () -> "get " + key);
+                    }
+                    assertEquals(value != null, cache.containsKey(key), () -> "containsKey " + key);
+                } else {
+                    final var removed = cache.remove(key);
+                    if (removed != null) {
+                        assertEquals(unbounded.get(key), removed, () -> "remove " + key);
+                    }
+                    unbounded.remove(key);
+                    assertEquals(null, cache.get(key));
+                }
+                assertTrue(cache.size() <= maximumSize, () -> "size " + cache.size() + " > " + maximumSize);
+                if (i % 1_000 == 0) {
+                    assertSubsetOf(unbounded, cache);
+                }
+            }
+            assertSubsetOf(unbounded, cache);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BoundedCaches.class)
+    void keepsEverythingUntilFull(final BoundedCaches supplier) {
+        for (final int maximumSize : MAXIMUM_SIZES) {
+            final Map<Long, Long> cache = supplier.createCache(maximumSize);
+            final var expected = new HashMap<Long, Long>();
+            for (long key = 0; key < maximumSize; key++) {
+                cache.put(key, -key);
+                expected.put(key, -key);
+            }
+            MapAssertions.assertSameContents(expected, cache);
+            cache.put((long) maximumSize, 0l);
+            assertEquals(maximumSize, cache.size());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BoundedCaches.class)
+    void iteratorWritesKeepTheEvictionOrderConsistent(final BoundedCaches supplier) {
+        for (final int maximumSize : MAXIMUM_SIZES) {
+            final var random = new SplittableRandom(maximumSize);
+            final Map<Long, Long> cache = supplier.createCache(maximumSize);
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < maximumSize * 2; i++) {
+                    final long key = random.nextLong(maximumSize * 3l);
+                    cache.put(key, key);
+                    cache.get(random.nextLong(maximumSize * 3l));
+                }
+                final var expected = new HashMap<>(cache);
+                MapAssertions.assertIteratorWrites(expected, cache, random);
+                assertTrue(cache.size() <= maximumSize);
+            }
+            // evicting after iterator removals must not find stale entries
+            for (long key = -1; key >= -maximumSize * 4l; key--) {
+                cache.put(key, key);
+                assertTrue(cache.size() <= maximumSize);
+            }
+            cache.clear();
+            MapAssertions.assertSameContents(Map.of(), cache);
+            cache.put(1l, 1l);
+            assertEquals(1l, cache.get(1l));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = BoundedCaches.class, names = { "SEGMENTED_LRU_CACHE", "TINY_LFU_CACHE" })
+    void frequentlyReadEntriesSurviveAScan(final BoundedCaches supplier) {
+        final int maximumSize = 1_000;
+        final int hotSize = maximumSize / 2;
+        final Map<Long, Long> cache = supplier.createCache(maximumSize);
+        for (int round = 0; round < 4; round++) {
+            for (long key = 0; key < hotSize; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+        for (long key = hotSize; key < hotSize + maximumSize * 10l; key++) {
+            cache.put(key, key);
+        }
+        for (long key = 0; key < hotSize; key++) {
+            assertNotNull(cache.get(key), "evicted hot key " + key);
+        }
+    }
+
+    protected void assertSubsetOf(final Map<Long, Long> unbounded, final Map<Long, Long> cache) {
+        int size = 0;
+        for (final var entry : cache.entrySet()) {
+            assertEquals(unbounded.get(entry.getKey()), entry.getValue(), () -> "stale entry " + entry);
+            size++;
+        }
+        assertEquals(cache.size(), size);
+    }
+
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+
+@Tag("benchmark")
+public class ConcurrentMapShootoutIT extends ConcurrentMapShootout {
+
+    private static ResultSink resultSink;
+
+    public ConcurrentMapShootoutIT() {
+        setResultSink(resultSink);
+    }
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        resultSink = new AsyncResultSink(new CompositeResultSink(
+                new TsvResultSink(new FileWriter("concurrent-data.tsv", UTF_8)),
+                new JsonLinesResultSink(new FileWriter("concurrent-data.jsonl", UTF_8), RunMetadata.capture())));
+    }
+
+    @AfterAll
+    public static void tearDown() throws IOException {
+        resultSink.close();
+    }
+}
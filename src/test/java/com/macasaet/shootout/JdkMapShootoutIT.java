@@ -15,9 +15,10 @@
  */
 package com.macasaet.shootout;
 
-import java.io.FileNotFoundException;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.Arrays;
 
 import org.junit.jupiter.api.AfterAll;
@@ -27,24 +28,33 @@ import org.junit.jupiter.api.Tag;
 @Tag("benchmark")
 public class JdkMapShootoutIT extends MapShootout {
 
-    private static PrintWriter outputSink;
+    private static ResultSink resultSink;
 
-    public JdkMapShootoutIT() throws FileNotFoundException {
+    public JdkMapShootoutIT() {
         super(Arrays.asList(JdkHashTables.JDK_HASH_MAP,
             JdkHashTables.JDK_LINKED_HASH_MAP,
-            JdkSearchTrees.JDK_TREE_MAP));
-
-        setWriter(outputSink);
+            JdkSearchTrees.JDK_TREE_MAP,
+            OffHeapHashTables.OFF_HEAP_HASH_MAP,
+            OpenAddressingHashTables.ROBIN_HOOD_HASH_MAP,
+            OpenAddressingHashTables.HOPSCOTCH_HASH_MAP,
+            ConcurrentSearchTrees.CONCURRENT_SKIP_LIST_MAP,
+            CacheConsciousSearchTrees.B_PLUS_TREE_MAP,
+            CacheConsciousSearchTrees.ADAPTIVE_RADIX_TREE_MAP),
+            Arrays.asList(PrimitiveHashTables.values()),
+            Arrays.asList(BoundedCaches.values()));
+
+        setResultSink(resultSink);
     }
 
     @BeforeAll
-    public static void setUp() throws FileNotFoundException {
-        outputSink = new PrintWriter("data.tsv");
+    public static void setUp() throws IOException {
+        resultSink = new AsyncResultSink(new CompositeResultSink(
+                new TsvResultSink(new FileWriter("data.tsv", UTF_8)),
+                new JsonLinesResultSink(new FileWriter("data.jsonl", UTF_8), RunMetadata.capture())));
     }
 
     @AfterAll
     public static void tearDown() throws IOException {
-        outputSink.flush();
-        outputSink.close();
+        resultSink.close();
     }
-}
\ No newline at end of file
+}
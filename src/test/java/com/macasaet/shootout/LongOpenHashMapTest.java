@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LongOpenHashMapTest {
+
+    private static final long NO_ENTRY = -1l;
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 16, 4_096 })
+    void matchesHashMap(final int expectedSize) {
+        final var random = new SplittableRandom(expectedSize);
+        final var keys = new ArrayList<>(MapAssertions.randomLongKeys(random, 2_000));
+        // the free key, stored outside the table, and the no-entry value
+        keys.add(0l);
+        keys.add(NO_ENTRY);
+        keys.add(Long.MIN_VALUE);
+        keys.add(Long.MAX_VALUE);
+        final var expected = new HashMap<Long, Long>();
+        final var actual = new LongOpenHashMap(expectedSize, 0.5f, NO_ENTRY);
+
+        for (int i = 0; i < 50_000; i++) {
+            final long key = keys.get(random.nextInt(keys.size()));
+            final long value = random.nextLong(-2, 2);
+            final int operation = random.nextInt(10);
+            if (operation < 5) {
+                assertEquals(valueOf(expected.put(key, value)), actual.put(key, value), () -> "put " + key);
+            } else if (operation < 7) {
+                assertEquals(valueOf(expected.get(key)), actual.get(key), () -> "get " + key);
+                assertEquals(expected.containsKey(key), actual.containsKey(key), () -> "containsKey " + key);
+            } else {
+                assertEquals(valueOf(expected.remove(key)), actual.remove(key), () -> "remove " + key);
+            }
+            assertEquals(expected.size(), actual.size());
+            if (i % 5_000 == 0) {
+                assertSameContents(expected, actual);
+            }
+        }
+        assertSameContents(expected, actual);
+    }
+
+    @Test
+    void growsPastExpectedSize() {
+        final var keys = MapAssertions.randomLongKeys(new SplittableRandom(7l), 100_000);
+        final var map = new LongOpenHashMap(1, 0.75f);
+        final int initialCapacity = map.getCapacity();
+        for (int i = 0; i < keys.size(); i++) {
+            map.put(keys.get(i), i);
+        }
+        assertTrue(map.getCapacity() > initialCapacity);
+        assertTrue(map.size() <= map.getCapacity() * 0.75f);
+        assertEquals(keys.size(), map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, map.get(keys.get(i)));
+        }
+    }
+
+    @Test
+    void removalKeepsProbeChainsIntact() {
+        // sequential keys are adjacent after mixing often enough to form
+        // long runs; removing every other one exercises the backward shift
+        final var map = new LongOpenHashMap(64, 0.9f, NO_ENTRY);
+        final var expected = new HashMap<Long, Long>();
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key, key);
+            expected.put(key, key);
+        }
+        for (long key = 1; key <= 10_000; key += 2) {
+            assertEquals(key, map.remove(key));
+            expected.remove(key);
+        }
+        assertSameContents(expected, map);
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals(valueOf(expected.get(key)), map.get(key));
+        }
+    }
+
+    @Test
+    void clearEmptiesTheMap() {
+        final var map = new LongOpenHashMap(16, 0.75f, NO_ENTRY);
+        map.put(0l, 1l);
+        map.put(5l, 2l);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(NO_ENTRY, map.get(0l));
+        assertEquals(NO_ENTRY, map.get(5l));
+        map.forEach((key, value) -> {
+            throw new AssertionError("visited " + key);
+        });
+    }
+
+    protected long valueOf(final Long value) {
+        return value == null ? NO_ENTRY : value;
+    }
+
+    protected void assertSameContents(final Map<Long, Long> expected, final LongOpenHashMap actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        final var visited = new HashMap<Long, Long>();
+        actual.forEach((key, value) -> assertNull(visited.put(key, value), () -> "visited twice " + key));
+        assertEquals(expected, visited);
+        for (final var entry : expected.entrySet()) {
+            assertTrue(actual.containsKey(entry.getKey()));
+            assertEquals(entry.getValue().longValue(), actual.get(entry.getKey()));
+        }
+    }
+
+}
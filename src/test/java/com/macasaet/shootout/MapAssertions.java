@@ -0,0 +1,191 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Drives a map under test and a reference map from the JDK through the
+ * same seeded sequence of operations, comparing every result.
+ */
+final class MapAssertions {
+
+    /**
+     * Code points of one, two, three, and four bytes in UTF-8
+     */
+    private static final int[] ALPHABET = { 'a', 'b', 'c', 0xe9, 0x4e2d, 0x1f600 };
+
+    private MapAssertions() {
+    }
+
+    /**
+     * Apply random puts, gets, removals, and compound operations on keys
+     * drawn from <code>keys</code>, checking the full contents every so
+     * often.
+     *
+     * @param expected the reference map, e.g. a {@link HashMap}
+     * @param actual the map under test, initially with the same contents
+     * @param keys the keys to draw from, so that operations often hit
+     */
+    static <K> void assertRandomOperations(final Map<K, Long> expected, final Map<K, Long> actual,
+            final List<K> keys, final SplittableRandom random, final int operations) {
+        for (int i = 0; i < operations; i++) {
+            final var key = keys.get(random.nextInt(keys.size()));
+            final long value = random.nextLong();
+            final int operation = random.nextInt(100);
+            if (operation < 40) {
+                assertEquals(expected.put(key, value), actual.put(key, value), () -> "put " + key);
+            } else if (operation < 60) {
+                assertEquals(expected.get(key), actual.get(key), () -> "get " + key);
+                assertEquals(expected.containsKey(key), actual.containsKey(key), () -> "containsKey " + key);
+            } else if (operation < 85) {
+                assertEquals(expected.remove(key), actual.remove(key), () -> "remove " + key);
+            } else if (operation < 90) {
+                assertEquals(expected.putIfAbsent(key, value), actual.putIfAbsent(key, value),
+                        () -> "putIfAbsent " + key);
+            } else if (operation < 95) {
+                assertEquals(expected.merge(key, 1l, Long::sum), actual.merge(key, 1l, Long::sum),
+                        () -> "merge " + key);
+            } else {
+                assertEquals(expected.getOrDefault(key, -1l), actual.getOrDefault(key, -1l),
+                        () -> "getOrDefault " + key);
+            }
+            assertEquals(expected.size(), actual.size(), () -> "size after operation on " + key);
+            if (i % 1_000 == 0) {
+                assertSameContents(expected, actual);
+            }
+        }
+        assertSameContents(expected, actual);
+    }
+
+    /**
+     * Walk the map's entry set once, removing roughly a third of the
+     * entries with {@link java.util.Iterator#remove()} and updating
+     * another third with {@link java.util.Map.Entry#setValue(Object)}, then check that
+     * every entry was visited exactly once and that the writes went
+     * through.
+     */
+    static <K> void assertIteratorWrites(final Map<K, Long> expected, final Map<K, Long> actual,
+            final SplittableRandom random) {
+        final Map<K, Long> visited = new HashMap<>();
+        for (final var iterator = actual.entrySet().iterator(); iterator.hasNext();) {
+            final var entry = iterator.next();
+            assertNull(visited.put(entry.getKey(), entry.getValue()), () -> "visited twice " + entry);
+            assertEquals(expected.get(entry.getKey()), entry.getValue(), () -> "value of " + entry.getKey());
+            final int choice = random.nextInt(3);
+            if (choice == 0) {
+                iterator.remove();
+                expected.remove(entry.getKey());
+            } else if (choice == 1) {
+                final long value = random.nextLong();
+                entry.setValue(value);
+                expected.put(entry.getKey(), value);
+                assertEquals(value, entry.getValue());
+            }
+        }
+        assertSameContents(expected, actual);
+        final var iterator = actual.entrySet().iterator();
+        assertThrows(IllegalStateException.class, iterator::remove);
+        if (actual.isEmpty()) {
+            assertFalse(iterator.hasNext());
+            assertThrows(NoSuchElementException.class, iterator::next);
+        }
+    }
+
+    /**
+     * Compare size, lookups, equality, hash code, the three views, and
+     * {@link Map#forEach(java.util.function.BiConsumer)}.
+     */
+    static <K, V> void assertSameContents(final Map<K, V> expected, final Map<K, V> actual) {
+        assertEquals(expected.size(), actual.size(), "size");
+        assertEquals(expected.isEmpty(), actual.isEmpty(), "isEmpty");
+        for (final var entry : expected.entrySet()) {
+            assertTrue(actual.containsKey(entry.getKey()), () -> "containsKey " + entry.getKey());
+            assertEquals(entry.getValue(), actual.get(entry.getKey()), () -> "get " + entry.getKey());
+        }
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode(), "hashCode");
+
+        final var iterated = new HashMap<K, V>();
+        for (final var entry : actual.entrySet()) {
+            assertNull(iterated.put(entry.getKey(), entry.getValue()), () -> "iterated twice " + entry);
+        }
+        assertEquals(expected, iterated, "entrySet");
+        final var keys = new ArrayList<K>(actual.keySet());
+        assertEquals(expected.size(), keys.size(), "keySet size");
+        assertTrue(expected.keySet().containsAll(keys), "keySet");
+        final var values = new ArrayList<V>(actual.values());
+        final var expectedValues = new ArrayList<V>(expected.values());
+        values.sort(null);
+        expectedValues.sort(null);
+        assertEquals(expectedValues, values, "values");
+
+        final var visited = new HashMap<K, V>();
+        actual.forEach((key, value) -> assertNull(visited.put(key, value), () -> "forEach twice " + key));
+        assertEquals(expected, visited, "forEach");
+    }
+
+    /**
+     * @return <code>count</code> distinct random keys
+     */
+    static List<Long> randomLongKeys(final SplittableRandom random, final int count) {
+        final var retval = new ArrayList<Long>(count);
+        final var seen = new HashMap<Long, Boolean>();
+        while (retval.size() < count) {
+            final long key = random.nextLong();
+            if (seen.put(key, Boolean.TRUE) == null) {
+                retval.add(key);
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * @return <code>count</code> distinct random strings of up to
+     *         <code>maxLength</code> characters drawn from a small
+     *         alphabet, so that many share prefixes and some are prefixes
+     *         of others
+     */
+    static List<String> randomStringKeys(final SplittableRandom random, final int count, final int maxLength) {
+        final var retval = new ArrayList<String>(count);
+        final var seen = new HashMap<String, Boolean>();
+        final var builder = new StringBuilder();
+        while (retval.size() < count) {
+            builder.setLength(0);
+            for (int i = random.nextInt(maxLength + 1); --i >= 0;) {
+                builder.appendCodePoint(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            final var key = builder.toString();
+            if (seen.put(key, Boolean.TRUE) == null) {
+                retval.add(key);
+            }
+        }
+        return retval;
+    }
+
+}
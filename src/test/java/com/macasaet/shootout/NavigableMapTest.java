@@ -0,0 +1,304 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class NavigableMapTest {
+
+    static Stream<Arguments> longMaps() {
+        return Stream.of(
+                longMap("BPlusTreeMap(4)", () -> new BPlusTreeMap<>(null, 4)),
+                longMap("BPlusTreeMap", BPlusTreeMap::new),
+                longMap("LongBPlusTreeMap(4)", () -> new LongBPlusTreeMap<>(4)),
+                longMap("LongBPlusTreeMap", LongBPlusTreeMap::new),
+                longMap("AdaptiveRadixTreeMap",
+                        () -> new AdaptiveRadixTreeMap<>(AdaptiveRadixTreeMap.KeyEncoding.LONG)));
+    }
+
+    static Stream<Arguments> stringMaps() {
+        return Stream.of(
+                stringMap("BPlusTreeMap(4)", () -> new BPlusTreeMap<>(null, 4)),
+                stringMap("BPlusTreeMap", BPlusTreeMap::new),
+                stringMap("AdaptiveRadixTreeMap",
+                        () -> new AdaptiveRadixTreeMap<>(AdaptiveRadixTreeMap.KeyEncoding.STRING)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("longMaps")
+    void matchesTreeMapWithLongKeys(final String name, final Supplier<NavigableMap<Long, Long>> factory) {
+        final var random = new SplittableRandom(name.hashCode());
+        final var keys = new TreeSet<Long>();
+        // dense keys share all but their lowest bytes, sparse keys spread
+        // over the whole range
+        while (keys.size() < 250) {
+            keys.add(random.nextLong(-400, 400));
+        }
+        keys.addAll(MapAssertions.randomLongKeys(random, 50));
+        keys.add(Long.MIN_VALUE);
+        keys.add(Long.MAX_VALUE);
+        keys.add(0l);
+        final var probes = new TreeSet<Long>();
+        for (final var key : keys) {
+            probes.add(key);
+            probes.add(key - 1);
+            probes.add(key + 1);
+        }
+        assertMatchesTreeMap(new TreeMap<>(), factory.get(), new ArrayList<>(keys), new ArrayList<>(probes),
+                random);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("stringMaps")
+    void matchesTreeMapWithStringKeys(final String name, final Supplier<NavigableMap<String, Long>> factory) {
+        final var random = new SplittableRandom(name.hashCode());
+        // short keys from a small alphabet are often prefixes of each other
+        final var keys = new TreeSet<>(MapAssertions.randomStringKeys(random, 300, 5));
+        final var probes = new TreeSet<String>();
+        for (final var key : keys) {
+            probes.add(key);
+            probes.add(key + "\u0000");
+            if (!key.isEmpty()) {
+                probes.add(key.substring(0, key.length() - 1));
+            }
+        }
+        assertMatchesTreeMap(new TreeMap<>(), factory.get(), new ArrayList<>(keys), new ArrayList<>(probes),
+                random);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("longMaps")
+    void emptyMapHasNoBoundaries(final String name, final Supplier<NavigableMap<Long, Long>> factory) {
+        final var expected = new TreeMap<Long, Long>();
+        final var actual = factory.get();
+        assertSameNavigation(expected, actual, List.of(Long.MIN_VALUE, 0l, Long.MAX_VALUE));
+        assertSameNavigation(expected.subMap(-1l, true, 1l, true), actual.subMap(-1l, true, 1l, true),
+                List.of(-2l, -1l, 0l, 1l, 2l));
+        assertEquals(expected.pollFirstEntry(), actual.pollFirstEntry());
+        assertEquals(expected.pollLastEntry(), actual.pollLastEntry());
+    }
+
+    @Test
+    void reverseComparatorMatchesTreeMap() {
+        final var random = new SplittableRandom(17l);
+        final Comparator<String> order = Collections.reverseOrder();
+        final var keys = new ArrayList<>(MapAssertions.randomStringKeys(random, 300, 5));
+        final var probes = new ArrayList<>(keys);
+        probes.add("");
+        probes.add("zzz");
+        assertMatchesTreeMap(new TreeMap<>(order), new BPlusTreeMap<>(order, 4), keys, probes, random);
+    }
+
+    protected <K> void assertMatchesTreeMap(final NavigableMap<K, Long> expected,
+            final NavigableMap<K, Long> actual, final List<K> keys, final List<K> probes,
+            final SplittableRandom random) {
+        // grow and shrink the whole map, splitting and merging nodes
+        MapAssertions.assertRandomOperations(expected, actual, keys, random, 10_000);
+        assertSameNavigation(expected, actual, probes);
+        MapAssertions.assertIteratorWrites(expected, actual, random);
+        assertSameNavigation(expected, actual, probes);
+        for (final var key : keys) {
+            expected.put(key, 1l);
+            actual.put(key, 1l);
+        }
+        assertSameNavigation(expected, actual, probes);
+        assertSameNavigation(expected.descendingMap(), actual.descendingMap(), probes);
+
+        final var sorted = new ArrayList<>(probes);
+        sorted.sort(expected.comparator());
+        for (int i = 0; i < 25; i++) {
+            int from = random.nextInt(sorted.size());
+            int to = random.nextInt(sorted.size());
+            if (from > to) {
+                final int swap = from;
+                from = to;
+                to = swap;
+            }
+            final var low = sorted.get(from);
+            final var high = sorted.get(to);
+            final boolean lowInclusive = random.nextBoolean();
+            final boolean highInclusive = random.nextBoolean();
+            // the keys at and around each bound, plus a sample of the rest
+            final var viewProbes = new ArrayList<K>();
+            for (int j = -1; j <= 1; j++) {
+                viewProbes.add(sorted.get(Math.floorMod(from + j, sorted.size())));
+                viewProbes.add(sorted.get(Math.floorMod(to + j, sorted.size())));
+            }
+            for (int j = 0; j < 64; j++) {
+                viewProbes.add(sorted.get(random.nextInt(sorted.size())));
+            }
+            assertSameView(expected.subMap(low, lowInclusive, high, highInclusive),
+                    actual.subMap(low, lowInclusive, high, highInclusive), viewProbes, random);
+            assertSameView(expected.headMap(high, highInclusive), actual.headMap(high, highInclusive), viewProbes,
+                    random);
+            assertSameView(expected.tailMap(low, lowInclusive), actual.tailMap(low, lowInclusive), viewProbes,
+                    random);
+            assertSameView(expected.descendingMap().subMap(high, highInclusive, low, lowInclusive),
+                    actual.descendingMap().subMap(high, highInclusive, low, lowInclusive), viewProbes, random);
+            assertSameView(expected.descendingMap().headMap(low, lowInclusive),
+                    actual.descendingMap().headMap(low, lowInclusive), viewProbes, random);
+            assertSameView(expected.descendingMap().tailMap(high, highInclusive),
+                    actual.descendingMap().tailMap(high, highInclusive), viewProbes, random);
+            assertSameNavigation(expected, actual, viewProbes);
+            assertSameView(expected.subMap(low, lowInclusive, high, highInclusive).descendingMap(),
+                    actual.subMap(low, lowInclusive, high, highInclusive).descendingMap(), viewProbes, random);
+
+            // writes through views, then clearing a bounded range
+            final var expectedView = expected.subMap(low, true, high, true);
+            final var actualView = actual.subMap(low, true, high, true);
+            final var inRange = new ArrayList<K>();
+            for (final var key : keys) {
+                if (!isOutOfRange(expectedView, key)) {
+                    inRange.add(key);
+                }
+            }
+            if (!inRange.isEmpty()) {
+                MapAssertions.assertRandomOperations(expectedView, actualView, inRange, random, 500);
+            }
+            MapAssertions.assertIteratorWrites(expectedView.descendingMap(), actualView.descendingMap(), random);
+            assertSameNavigation(expected, actual, viewProbes);
+            if (i % 4 == 0 && from < to) {
+                final var expectedTail = expected.tailMap(low, lowInclusive);
+                final var actualTail = actual.tailMap(low, lowInclusive);
+                expectedTail.headMap(high, highInclusive).clear();
+                actualTail.headMap(high, highInclusive).clear();
+                assertSameNavigation(expected, actual, viewProbes);
+                for (final var key : keys) {
+                    expected.put(key, 2l);
+                    actual.put(key, 2l);
+                }
+            }
+        }
+
+        while (!expected.isEmpty()) {
+            if (random.nextBoolean()) {
+                assertEquals(expected.pollFirstEntry(), actual.pollFirstEntry());
+            } else {
+                assertEquals(expected.pollLastEntry(), actual.pollLastEntry());
+            }
+        }
+        assertSameNavigation(expected, actual, probes);
+    }
+
+    protected <K> void assertSameView(final NavigableMap<K, Long> expected, final NavigableMap<K, Long> actual,
+            final List<K> probes, final SplittableRandom random) {
+        assertSameNavigation(expected, actual, probes);
+        for (final var probe : probes) {
+            if (!expected.containsKey(probe)) {
+                final boolean outOfRange = isOutOfRange(expected, probe);
+                assertEquals(outOfRange, isOutOfRange(actual, probe), () -> "range of " + probe);
+                if (outOfRange) {
+                    assertThrows(IllegalArgumentException.class, () -> actual.put(probe, 0l));
+                    assertEquals(null, actual.remove(probe));
+                }
+            }
+        }
+        if (!expected.isEmpty()) {
+            // a nested view, bounded by keys inside this one
+            final var first = expected.firstKey();
+            final var last = expected.lastKey();
+            assertSameNavigation(expected.subMap(first, false, last, true), actual.subMap(first, false, last, true),
+                    probes);
+            assertSameNavigation(expected.headMap(last, false).descendingMap(),
+                    actual.headMap(last, false).descendingMap(), probes);
+            assertSameNavigation(expected.tailMap(first, true).tailMap(last, true),
+                    actual.tailMap(first, true).tailMap(last, true), probes);
+            assertEquals(expected.pollFirstEntry(), actual.pollFirstEntry());
+            assertEquals(expected.pollLastEntry(), actual.pollLastEntry());
+            assertSameNavigation(expected, actual, probes);
+        }
+    }
+
+    /**
+     * Compare contents in iteration order and the result of every
+     * navigation method at each probe.
+     */
+    protected <K, V> void assertSameNavigation(final NavigableMap<K, V> expected, final NavigableMap<K, V> actual,
+            final List<K> probes) {
+        assertEquals(copyOf(expected.entrySet()), copyOf(actual.entrySet()), "entries in order");
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()), "keys in order");
+        assertEquals(new ArrayList<>(expected.descendingKeySet()), new ArrayList<>(actual.descendingKeySet()),
+                "descending keys");
+        assertEquals(copyOf(expected.descendingMap().entrySet()), copyOf(actual.descendingMap().entrySet()),
+                "descending entries");
+        assertEquals(expected.size(), actual.size(), "size");
+        assertEquals(expected.isEmpty(), actual.isEmpty(), "isEmpty");
+        assertEquals(expected.firstEntry(), actual.firstEntry(), "firstEntry");
+        assertEquals(expected.lastEntry(), actual.lastEntry(), "lastEntry");
+        if (expected.isEmpty()) {
+            assertThrows(NoSuchElementException.class, actual::firstKey);
+            assertThrows(NoSuchElementException.class, actual::lastKey);
+        } else {
+            assertEquals(expected.firstKey(), actual.firstKey());
+            assertEquals(expected.lastKey(), actual.lastKey());
+        }
+        for (final var probe : probes) {
+            assertEquals(expected.get(probe), actual.get(probe), () -> "get " + probe);
+            assertEquals(expected.containsKey(probe), actual.containsKey(probe), () -> "containsKey " + probe);
+            assertEquals(expected.floorEntry(probe), actual.floorEntry(probe), () -> "floorEntry " + probe);
+            assertEquals(expected.ceilingEntry(probe), actual.ceilingEntry(probe), () -> "ceilingEntry " + probe);
+            assertEquals(expected.lowerKey(probe), actual.lowerKey(probe), () -> "lowerKey " + probe);
+            assertEquals(expected.higherKey(probe), actual.higherKey(probe), () -> "higherKey " + probe);
+        }
+    }
+
+    protected static <K, V> List<Entry<K, V>> copyOf(final Iterable<Entry<K, V>> entries) {
+        final var retval = new ArrayList<Entry<K, V>>();
+        for (final var entry : entries) {
+            retval.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        return retval;
+    }
+
+    protected static <K> boolean isOutOfRange(final NavigableMap<K, Long> map, final K key) {
+        try {
+            map.headMap(key, true);
+            map.tailMap(key, true);
+            return false;
+        } catch (final IllegalArgumentException iae) {
+            return true;
+        }
+    }
+
+    protected static Arguments longMap(final String name, final Supplier<NavigableMap<Long, Long>> factory) {
+        return Arguments.of(name, factory);
+    }
+
+    protected static Arguments stringMap(final String name, final Supplier<NavigableMap<String, Long>> factory) {
+        return Arguments.of(name, factory);
+    }
+
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class OffHeapMapTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 16, 4_096 })
+    void longMapMatchesHashMap(final int expectedSize) {
+        final var random = new SplittableRandom(expectedSize);
+        final var keys = new ArrayList<>(MapAssertions.randomLongKeys(random, 2_000));
+        // zero is stored on the heap, outside the table
+        keys.add(0l);
+        keys.add(Long.MIN_VALUE);
+        keys.add(Long.MAX_VALUE);
+        final var expected = new HashMap<Long, Long>();
+        final var actual = new OffHeapLongMap(expectedSize, 0.5f);
+        try {
+            MapAssertions.assertRandomOperations(expected, actual, keys, random, 50_000);
+            MapAssertions.assertIteratorWrites(expected, actual, random);
+            MapAssertions.assertRandomOperations(expected, actual, keys, random, 10_000);
+        } finally {
+            actual.clear();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 16, 4_096 })
+    void stringMapMatchesHashMap(final int expectedSize) {
+        final var random = new SplittableRandom(expectedSize);
+        // long keys fill the data region quickly, so removals and
+        // re-insertions force it to grow and compact
+        final var keys = new ArrayList<>(MapAssertions.randomStringKeys(random, 2_000, 64));
+        keys.add("");
+        final var expected = new HashMap<String, Long>();
+        final var actual = new OffHeapStringMap(expectedSize, 0.5f);
+        try {
+            MapAssertions.assertRandomOperations(expected, actual, keys, random, 50_000);
+            MapAssertions.assertIteratorWrites(expected, actual, random);
+            MapAssertions.assertRandomOperations(expected, actual, keys, random, 10_000);
+        } finally {
+            actual.clear();
+        }
+    }
+
+    @Test
+    void longMapIteratorRemovesTheZeroKey() {
+        final var map = new OffHeapLongMap();
+        final var expected = new HashMap<Long, Long>();
+        for (long key = -8; key <= 8; key++) {
+            map.put(key, key);
+            expected.put(key, key);
+        }
+        for (final var iterator = map.entrySet().iterator(); iterator.hasNext();) {
+            final var entry = iterator.next();
+            if (entry.getKey() == 0l) {
+                iterator.remove();
+            } else {
+                entry.setValue(-entry.getKey());
+                expected.put(entry.getKey(), -entry.getKey());
+            }
+        }
+        expected.remove(0l);
+        MapAssertions.assertSameContents(expected, map);
+        assertNull(map.get(0l));
+        map.clear();
+    }
+
+    @Test
+    void stringMapReusesSpaceAfterChurn() {
+        final var random = new SplittableRandom(11l);
+        final var map = new OffHeapStringMap(64, 0.75f);
+        final var expected = new HashMap<String, Long>();
+        try {
+            // repeatedly replace every key so that most of the data region
+            // belongs to removed entries
+            for (int round = 0; round < 50; round++) {
+                for (final var key : new ArrayList<>(expected.keySet())) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                }
+                for (final var key : MapAssertions.randomStringKeys(random, 64, 256)) {
+                    assertEquals(expected.put(key, (long) round), map.put(key, (long) round));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            MapAssertions.assertSameContents(expected, map);
+            assertTrue(map.getCapacity() <= 1_024, "capacity grew with churn: " + map.getCapacity());
+        } finally {
+            map.clear();
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class OpenAddressingMapTest {
+
+    static Stream<Arguments> maps() {
+        final BiFunction<Integer, Float, Map<Object, Long>> robinHood = RobinHoodHashMap::new;
+        final BiFunction<Integer, Float, Map<Object, Long>> hopscotch = HopscotchHashMap::new;
+        return Stream.of(Arguments.of("RobinHoodHashMap", robinHood),
+                Arguments.of("HopscotchHashMap", hopscotch));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void matchesHashMapWithLongKeys(final String name, final BiFunction<Integer, Float, Map<Object, Long>> factory) {
+        for (final int expectedSize : new int[] { 0, 1, 16, 4_096 }) {
+            final var random = new SplittableRandom(expectedSize);
+            final List<Object> keys = new ArrayList<>(MapAssertions.randomLongKeys(random, 2_000));
+            assertMatchesHashMap(factory.apply(expectedSize, 0.9f), keys, random);
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void matchesHashMapWithStringKeys(final String name,
+            final BiFunction<Integer, Float, Map<Object, Long>> factory) {
+        final var random = new SplittableRandom(3l);
+        final List<Object> keys = new ArrayList<>(MapAssertions.randomStringKeys(random, 2_000, 8));
+        assertMatchesHashMap(factory.apply(1, 0.75f), keys, random);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void matchesHashMapWithCollidingKeys(final String name,
+            final BiFunction<Integer, Float, Map<Object, Long>> factory) {
+        final var random = new SplittableRandom(5l);
+        final List<Object> keys = new ArrayList<>(KeyGenerator.generateCollidingStringKeys(1_024));
+        // more keys share a hash code than fit in a hopscotch neighbourhood
+        for (int i = 0; i < 200; i++) {
+            keys.add(new FixedHashKey(i));
+        }
+        assertMatchesHashMap(factory.apply(16, 0.9f), keys, random);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("maps")
+    void growsPastExpectedSize(final String name, final BiFunction<Integer, Float, Map<Object, Long>> factory) {
+        final var keys = MapAssertions.randomLongKeys(new SplittableRandom(7l), 100_000);
+        final var map = factory.apply(1, 0.9f);
+        final var table = (OpenAddressingTable) map;
+        final int initialCapacity = table.getCapacity();
+        for (int i = 0; i < keys.size(); i++) {
+            map.put(keys.get(i), (long) i);
+        }
+        assertTrue(table.getCapacity() > initialCapacity);
+        assertEquals(keys.size(), map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, map.get(keys.get(i)));
+        }
+    }
+
+    protected void assertMatchesHashMap(final Map<Object, Long> actual, final List<Object> keys,
+            final SplittableRandom random) {
+        final var expected = new HashMap<Object, Long>();
+        MapAssertions.assertRandomOperations(expected, actual, keys, random, 50_000);
+        MapAssertions.assertIteratorWrites(expected, actual, random);
+        MapAssertions.assertRandomOperations(expected, actual, keys, random, 10_000);
+        // fill the table to force growth with every key present
+        for (final var key : keys) {
+            assertEquals(expected.put(key, 1l), actual.put(key, 1l));
+        }
+        MapAssertions.assertSameContents(expected, actual);
+        MapAssertions.assertIteratorWrites(expected, actual, random);
+        actual.clear();
+        expected.clear();
+        MapAssertions.assertSameContents(expected, actual);
+    }
+
+    /**
+     * A key whose hash code is the same for every instance
+     */
+    protected static final class FixedHashKey {
+        private final int id;
+
+        public FixedHashKey(final int id) {
+            this.id = id;
+        }
+
+        public int hashCode() {
+            return 42;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof FixedHashKey && ((FixedHashKey) obj).id == id;
+        }
+
+        public String toString() {
+            return "FixedHashKey[" + id + "]";
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class RegressionGateTest {
+
+    private static final String BENCHMARK = "int64 deletes JDK_HASH_MAP 1000000";
+
+    private final RegressionGate gate = new RegressionGate(0.1, 0.05, 3, 1_000_000l, 65_536l);
+
+    @Test
+    public void negativeBaselineMovingTowardsZeroIsRegression() {
+        gate.compare(results(-100_000_000l), results(-50_000_000l));
+
+        assertEquals(1, gate.getRegressions().size());
+        assertEquals(0.5, gate.getRegressions().get(0).getRelativeChange(), 1e-9);
+        assertTrue(gate.getImprovements().isEmpty());
+    }
+
+    @Test
+    public void negativeBaselineMovingAwayFromZeroIsImprovement() {
+        gate.compare(results(-100_000_000l), results(-200_000_000l));
+
+        assertTrue(gate.getRegressions().isEmpty());
+        assertEquals(1, gate.getImprovements().size());
+        assertEquals(-1.0, gate.getImprovements().get(0).getRelativeChange(), 1e-9);
+    }
+
+    @Test
+    public void positiveBaselineGrowingIsRegression() {
+        gate.compare(results(100_000_000l), results(150_000_000l));
+
+        assertEquals(1, gate.getRegressions().size());
+        assertEquals(0.5, gate.getRegressions().get(0).getRelativeChange(), 1e-9);
+    }
+
+    @Test
+    public void growthFromZeroBaselineIsRegression() {
+        gate.compare(results(0l), results(72_000_000l));
+
+        assertEquals(1, gate.getRegressions().size());
+        assertTrue(Double.isNaN(gate.getRegressions().get(0).getRelativeChange()));
+        assertTrue(gate.getImprovements().isEmpty());
+    }
+
+    @Test
+    public void shrinkingFromZeroBaselineIsImprovement() {
+        gate.compare(results(0l), results(-10_000_000l));
+
+        assertTrue(gate.getRegressions().isEmpty());
+        assertEquals(1, gate.getImprovements().size());
+    }
+
+    @Test
+    public void zeroBaselineWithinMinimumIsIgnored() {
+        gate.compare(results(0l), results(1_024l));
+
+        assertTrue(gate.getRegressions().isEmpty());
+        assertTrue(gate.getImprovements().isEmpty());
+    }
+
+    /**
+     * @param retainedBytes the retained bytes of the only row, every other
+     *        metric is the same in each call
+     */
+    protected static Map<String, List<String[]>> results(final long retainedBytes) {
+        final var rows = new ArrayList<String[]>();
+        rows.add(new String[] { "int64", "deletes", "JDK_HASH_MAP", "1000000", "500000000", "0",
+                String.valueOf(retainedBytes), "0" });
+        return Map.of(BENCHMARK, rows);
+    }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright © 2020 Carlos Macasaet
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.macasaet.shootout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class StripedLockMapTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 64 })
+    void matchesHashMap(final int minimumStripes) {
+        final var random = new SplittableRandom(minimumStripes);
+        final var keys = new ArrayList<>(MapAssertions.randomLongKeys(random, 2_000));
+        final var expected = new HashMap<Long, Long>();
+        final var actual = new StripedLockMap<Long, Long>(minimumStripes);
+        MapAssertions.assertRandomOperations(expected, actual, keys, random, 20_000);
+        MapAssertions.assertIteratorWrites(expected, actual, random);
+        MapAssertions.assertRandomOperations(expected, actual, keys, random, 5_000);
+    }
+
+    @Test
+    void singleStripeHoldsEveryKey() {
+        final var map = new StripedLockMap<Long, Long>(1);
+        map.put(123456789l, 1l);
+        map.put(null, 2l);
+        assertEquals(1, map.getStripes().length);
+        assertEquals(1l, map.get(123456789l));
+        assertEquals(2l, map.get(null));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void rejectsInvalidStripeCounts() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLockMap<Long, Long>(0));
+        assertThrows(IllegalArgumentException.class, () -> new StripedLockMap<Long, Long>((1 << 16) + 1));
+    }
+
+}